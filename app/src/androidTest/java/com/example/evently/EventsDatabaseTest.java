@@ -2,15 +2,28 @@
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 
@@ -20,9 +33,15 @@
 import org.junit.runner.RunWith;
 
 import com.example.evently.data.EventsDB;
+import com.example.evently.data.generic.Page;
+import com.example.evently.data.generic.Progress;
 import com.example.evently.data.generic.Promise;
 import com.example.evently.data.model.Category;
+import com.example.evently.data.model.Entrant;
+import com.example.evently.data.model.EntrantCounts;
+import com.example.evently.data.model.EntrantStatus;
 import com.example.evently.data.model.Event;
+import com.example.evently.data.model.EventEntrants;
 import com.example.evently.utils.FirebaseAuthUtils;
 
 @RunWith(AndroidJUnit4.class)
@@ -94,6 +113,27 @@ public void testStoreAndFetchEvent() throws InterruptedException, ExecutionExcep
         assertEquals(fetchedEvent.get().toHashMap(), event.toHashMap());
     }
 
+    /**
+     * Tests that repeat fetches are served from the cache, and that our own writes invalidate it.
+     */
+    @Test
+    public void testFetchEventCached() throws InterruptedException, ExecutionException {
+        EventsDB db = new EventsDB();
+
+        Event event = testEvent();
+        db.storeEvent(event).await();
+
+        db.fetchEvent(event.eventID()).await();
+        final var before = EventsDB.eventCacheStats();
+        assertTrue(db.fetchEvent(event.eventID()).await().isPresent());
+        assertEquals(before.hits() + 1, EventsDB.eventCacheStats().hits());
+
+        // The cached copy must not outlive a write.
+        db.addSelected(event.eventID(), "cached@test.com").await();
+        assertEquals(
+                1, db.fetchEvent(event.eventID()).await().orElseThrow().entrantCounts().selected());
+    }
+
     /**
      * Tests the store, and fetch event with geolocation.
      */
@@ -204,6 +244,400 @@ public void testFetchEventByDate() throws InterruptedException, ExecutionExcepti
         assertFalse(eventCollection.contains(event2));
     }
 
+    /**
+     * Tests paging through all the events
+     */
+    @Test
+    public void testFetchAllEventsPaginated() throws InterruptedException, ExecutionException {
+        EventsDB db = new EventsDB();
+
+        final var stored = new ArrayList<Event>();
+        for (int i = 0; i < 5; i++) {
+            stored.add(testEvent(i));
+        }
+        Promise.all(stored.stream().map(db::storeEvent)).await();
+
+        // Walk through every page, collecting all the events seen.
+        final var seenIDs = new HashSet<UUID>();
+        final var seen = new ArrayList<Event>();
+        Optional<Page.Token> after = Optional.empty();
+        do {
+            final var page = db.fetchAllEvents(2, after).await();
+            assertTrue("Pages must respect the page size", page.items().size() <= 2);
+            for (final var event : page.items()) {
+                assertTrue("Events must not repeat across pages", seenIDs.add(event.eventID()));
+                seen.add(event);
+            }
+            after = page.next();
+        } while (after.isPresent());
+
+        for (final var event : stored) {
+            assertTrue(seen.contains(event));
+        }
+    }
+
+    /**
+     * Tests fetching enrolled events past the whereIn limit, which requires multiple chunks.
+     */
+    @Test
+    public void testFetchEventsByEnrolledChunked() throws ExecutionException, InterruptedException {
+        EventsDB db = new EventsDB();
+        String account = "test1@test.com";
+
+        final var expectedIds = new HashSet<UUID>();
+        for (int i = 0; i < 35; i++) {
+            Event event = testEvent(i);
+            db.storeEvent(event).await();
+            db.unsafeEnroll(event.eventID(), account).await();
+            expectedIds.add(event.eventID());
+        }
+        // This one is not enrolled in.
+        db.storeEvent(testEvent(35)).await();
+
+        final var events = db.fetchEventsByEnrolled(account).await();
+        assertEquals(expectedIds.size(), events.size());
+        for (final var event : events) {
+            assertTrue(expectedIds.contains(event.eventID()));
+        }
+    }
+
+    /**
+     * Tests that the entrant counts on the event are kept in sync with the entrant lists.
+     */
+    @Test
+    public void testEntrantCounts() throws ExecutionException, InterruptedException {
+        EventsDB db = new EventsDB();
+
+        Event event = testEvent();
+        UUID id = event.eventID();
+        String account1 = "test1@test.com";
+        String account2 = "test2@test.com";
+
+        db.storeEvent(event).await();
+        assertEntrantCounts(db, id, new EntrantCounts());
+
+        db.enroll(id, account1).await();
+        db.enroll(id, account2).await();
+        // Enrolling twice must not be counted twice.
+        db.enroll(id, account2).await();
+        assertEntrantCounts(db, id, new EntrantCounts(2, 0, 0, 0));
+
+        db.addSelected(id, account1).await();
+        db.addSelected(id, account2).await();
+        db.addAccepted(id, account1).await();
+        db.cancelSelectedUser(id, account2).await();
+        assertEntrantCounts(db, id, new EntrantCounts(2, 1, 1, 1));
+
+        // Unenrolling removes the entrant altogether, from all the counts they were part of.
+        db.unenroll(id, account2).await();
+        assertEntrantCounts(db, id, new EntrantCounts(1, 1, 1, 0));
+
+        db.removeUserFromEvents(account1).await();
+        assertEntrantCounts(db, id, new EntrantCounts(0, 0, 0, 0));
+    }
+
+    /**
+     * Tests that entrants moved in bulk are counted like entrants moved one at a time.
+     */
+    @Test
+    public void testBulkCancel() throws ExecutionException, InterruptedException {
+        EventsDB db = new EventsDB();
+
+        Event event = testEvent();
+        UUID id = event.eventID();
+        db.storeEvent(event).await();
+
+        final var emails = IntStream.range(0, 3)
+                .mapToObj(i -> "bulk" + i + "@test.com")
+                .collect(Collectors.toList());
+        Promise.all(emails.stream().map(email -> db.unsafeEnroll(id, email))).await();
+        Promise.all(emails.stream().map(email -> db.addSelected(id, email))).await();
+
+        // Accounts that are not entrants are skipped, and entrants are only counted once.
+        db.cancelSelectedUsers(
+                        id, List.of(emails.get(0), emails.get(1), emails.get(1), "bulkx@test.com"))
+                .await();
+        assertEntrantCounts(db, id, new EntrantCounts(3, 1, 0, 2));
+        assertTrue(db.fetchEntrant(id, "bulkx@test.com").await().isEmpty());
+        assertEquals(
+                List.of(emails.get(0), emails.get(1)),
+                db.fetchEntrants(id, EntrantStatus.Cancelled, 10, Optional.empty())
+                        .await()
+                        .items()
+                        .stream()
+                        .map(Entrant::email)
+                        .collect(Collectors.toList()));
+    }
+
+    /**
+     * Tests that concurrent enrollments never go over the entrant limit.
+     */
+    @Test
+    public void testConcurrentEnrollLimit() throws ExecutionException, InterruptedException {
+        EventsDB db = new EventsDB();
+
+        final var now = Instant.now();
+        Event event = new Event(
+                "shardedEvent",
+                "Event created for testing concurrent enrollment",
+                Category.Educational,
+                false,
+                new Timestamp(now.plus(Duration.ofDays(1))),
+                new Timestamp(now.plus(Duration.ofDays(2))),
+                "testOrganizer@example.com",
+                10L,
+                12L);
+        UUID id = event.eventID();
+        db.storeEvent(event).await();
+        final var statsBefore = EventsDB.enrollContentionStats();
+
+        // More entrants than the limit, all at once.
+        final var emails = IntStream.range(0, 16)
+                .mapToObj(i -> "sharded" + i + "@test.com")
+                .collect(Collectors.toList());
+        final var enrolled = new AtomicInteger();
+        final var rejected = new AtomicInteger();
+        final var latch = new CountDownLatch(emails.size());
+        for (final var email : emails) {
+            db.enroll(id, email)
+                    .thenRun(x -> {
+                        enrolled.incrementAndGet();
+                        latch.countDown();
+                    })
+                    .catchE(e -> {
+                        assertTrue(e instanceof IllegalArgumentException);
+                        rejected.incrementAndGet();
+                        latch.countDown();
+                    });
+        }
+        latch.await();
+
+        assertEquals(12, enrolled.get());
+        assertEquals(4, rejected.get());
+        final var fetched = awaitEnrolledCount(db, id, 12);
+        assertEquals(12, fetched.entrantCounts().enrolled());
+        assertTrue(fetched.isFull());
+
+        // Every enrollment ran at least one transaction attempt.
+        final var statsAfter = EventsDB.enrollContentionStats();
+        assertTrue(statsAfter.transactions() - statsBefore.transactions() >= emails.size());
+        assertTrue(statsAfter.attempts() >= statsAfter.transactions());
+
+        // Unenrolling frees up a slot.
+        final var someEntrant =
+                db.fetchEntrants(id, 1, Optional.empty()).await().items().get(0);
+        db.unenroll(id, someEntrant.email()).await();
+        db.enroll(id, "sharded-late@test.com").await();
+        assertEquals(12, awaitEnrolledCount(db, id, 12).entrantCounts().enrolled());
+    }
+
+    // Assert the counts on an event, once its enrolled count has been recounted.
+    private static void assertEntrantCounts(EventsDB db, UUID id, EntrantCounts expected)
+            throws InterruptedException {
+        assertEquals(expected, awaitEnrolledCount(db, id, expected.enrolled()).entrantCounts());
+    }
+
+    // Wait for the enrolled count of an event to reach the expected value, as it is recounted by a
+    // cloud function every minute. Yields the latest copy of the event.
+    private static Event awaitEnrolledCount(EventsDB db, UUID id, long expected)
+            throws InterruptedException {
+        final var latest = new AtomicReference<Event>();
+        final var reached = new CountDownLatch(1);
+        final var registration = db.listenEvent(id, event -> event.ifPresent(e -> {
+            latest.set(e);
+            if (e.entrantCounts().enrolled() == expected) reached.countDown();
+        }));
+        try {
+            reached.await(2, TimeUnit.MINUTES);
+        } finally {
+            registration.remove();
+        }
+        assertNotNull(latest.get());
+        return latest.get();
+    }
+
+    /**
+     * Tests that enroll requests are applied by the server, within the entrant limit.
+     */
+    @Test
+    public void testRequestEnroll() throws ExecutionException, InterruptedException {
+        EventsDB db = new EventsDB();
+
+        final var now = Instant.now();
+        Event event = new Event(
+                "queuedEvent",
+                "Event created for testing queued enrollment",
+                Category.Educational,
+                false,
+                new Timestamp(now.plus(Duration.ofDays(1))),
+                new Timestamp(now.plus(Duration.ofDays(2))),
+                "testOrganizer@example.com",
+                10L,
+                3L);
+        UUID id = event.eventID();
+        db.storeEvent(event).await();
+
+        final var emails = IntStream.range(0, 5)
+                .mapToObj(i -> "queued" + i + "@test.com")
+                .collect(Collectors.toList());
+        final var enrolled = new AtomicInteger();
+        final var rejected = new AtomicInteger();
+        final var latch = new CountDownLatch(emails.size());
+        for (final var email : emails) {
+            db.requestEnroll(id, email, null)
+                    .thenRun(x -> {
+                        enrolled.incrementAndGet();
+                        latch.countDown();
+                    })
+                    .catchE(e -> {
+                        if (e instanceof IllegalArgumentException) rejected.incrementAndGet();
+                        latch.countDown();
+                    });
+        }
+        latch.await();
+
+        assertEquals(3, enrolled.get());
+        assertEquals(2, rejected.get());
+        final var fetched = awaitEnrolledCount(db, id, 3);
+        assertEquals(3, fetched.entrantCounts().enrolled());
+        assertTrue(fetched.isFull());
+    }
+
+    /**
+     * Tests the paged listing of entrants by status.
+     */
+    @Test
+    public void testFetchEntrantsByStatus() throws ExecutionException, InterruptedException {
+        EventsDB db = new EventsDB();
+
+        Event event = testEvent();
+        UUID id = event.eventID();
+        db.storeEvent(event).await();
+
+        // 5 enrolled, 3 of whom get selected.
+        final var emails = IntStream.range(0, 5)
+                .mapToObj(i -> "paged" + i + "@test.com")
+                .collect(Collectors.toList());
+        Promise.all(emails.stream().map(email -> db.unsafeEnroll(id, email))).await();
+        Promise.all(emails.stream().limit(3).map(email -> db.addSelected(id, email)))
+                .await();
+
+        // Page through the selected entrants, 2 at a time.
+        final var firstPage = db.fetchEntrants(id, EntrantStatus.Selected, 2, Optional.empty())
+                .await();
+        assertEquals(2, firstPage.items().size());
+        assertTrue(firstPage.hasNext());
+        final var secondPage = db.fetchEntrants(id, EntrantStatus.Selected, 2, firstPage.next())
+                .await();
+        assertEquals(1, secondPage.items().size());
+        assertFalse(secondPage.hasNext());
+
+        final var selected = Stream.concat(firstPage.items().stream(), secondPage.items().stream())
+                .map(Entrant::email)
+                .collect(Collectors.toList());
+        assertEquals(emails.subList(0, 3), selected);
+
+        // The remaining entrants are still on the waitlist.
+        final var enrolled =
+                db.fetchEntrants(id, EntrantStatus.Enrolled, 10, Optional.empty()).await();
+        assertEquals(
+                emails.subList(3, 5),
+                enrolled.items().stream().map(Entrant::email).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testListenEventEntrants() throws ExecutionException, InterruptedException {
+        EventsDB db = new EventsDB();
+
+        Event event = testEvent();
+        UUID id = event.eventID();
+        db.storeEvent(event).await();
+
+        final var updates = new LinkedBlockingQueue<EventEntrants>();
+        final var registration = db.listenEventEntrants(id, updates::add);
+        try {
+            // The first update is the current, empty, state.
+            assertTrue(awaitEntrants(updates).all().isEmpty());
+
+            db.unsafeEnroll(id, "listen1@test.com").await();
+            assertEquals(List.of("listen1@test.com"), awaitEntrants(updates).all());
+
+            db.addSelected(id, "listen1@test.com").await();
+            assertEquals(List.of("listen1@test.com"), awaitEntrants(updates).selected());
+
+            db.unenroll(id, "listen1@test.com").await();
+            assertTrue(awaitEntrants(updates).all().isEmpty());
+        } finally {
+            registration.remove();
+        }
+    }
+
+    // Wait for the listener to settle on the latest update, skipping any intermediate ones.
+    private static EventEntrants awaitEntrants(LinkedBlockingQueue<EventEntrants> updates)
+            throws InterruptedException {
+        var latest = updates.poll(10, TimeUnit.SECONDS);
+        assertNotNull(latest);
+        for (var next = updates.poll(1, TimeUnit.SECONDS);
+                next != null;
+                next = updates.poll(1, TimeUnit.SECONDS)) {
+            latest = next;
+        }
+        return latest;
+    }
+
+    /**
+     * Tests that users part of more events than fit in a single batch are removed from all of them.
+     */
+    @Test
+    public void testRemoveUserFromManyEvents() throws ExecutionException, InterruptedException {
+        EventsDB db = new EventsDB();
+        final var account = "many@test.com";
+
+        // Three writes per event, so this takes two batches.
+        final var events =
+                IntStream.range(0, 200).mapToObj(this::testEvent).collect(Collectors.toList());
+        Promise.all(events.stream().map(db::storeEvent)).await();
+        Promise.all(events.stream().map(event -> db.unsafeEnroll(event.eventID(), account)))
+                .await();
+
+        final var progress = new LinkedBlockingQueue<Progress>();
+        db.removeUserFromEvents(account, progress::add).await();
+
+        // Progress is reported on the main thread, so it may still be on its way by now.
+        final var done = new Progress(200, 200);
+        final var reported = new ArrayList<Progress>();
+        while (reported.isEmpty() || !reported.get(reported.size() - 1).equals(done)) {
+            final var next = progress.poll(10, TimeUnit.SECONDS);
+            assertNotNull("The removal never reported being done", next);
+            reported.add(next);
+        }
+        assertEquals(new Progress(0, 200), reported.get(0));
+        assertTrue(db.fetchEntrantsByEmail(account).await().isEmpty());
+        assertEntrantCounts(db, events.get(199).eventID(), new EntrantCounts());
+    }
+
+    /**
+     * Tests that entrants whose event is gone don't keep the user from being removed elsewhere.
+     */
+    @Test
+    public void testRemoveUserFromDeletedEvent() throws ExecutionException, InterruptedException {
+        EventsDB db = new EventsDB();
+        final var account = "orphan@test.com";
+
+        Event event = testEvent();
+        db.storeEvent(event).await();
+        db.unsafeEnroll(event.eventID(), account).await();
+        db.addSelected(event.eventID(), account).await();
+        // An entrant left behind by an event that no longer exists.
+        db.unsafeEnroll(UUID.randomUUID(), account).await();
+
+        db.removeUserFromEvents(account).await();
+        assertTrue(db.fetchEntrantsByEmail(account).await().isEmpty());
+        assertEquals(
+                0,
+                db.fetchEvent(event.eventID()).await().orElseThrow().entrantCounts().selected());
+    }
+
     /**
      * Tests that users are removed from all lists of entrants, and non-inputted users are not affected
      */
@@ -0,0 +1,107 @@
+package com.example.evently;
+
+import static com.example.evently.data.generic.Promise.promise;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LifecycleRegistry;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.google.android.gms.tasks.TaskCompletionSource;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.example.evently.data.generic.Promise;
+
+/**
+ * Tests for promises bound to a lifecycle, see {@link Promise#bindTo(LifecycleOwner)}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class LifecycleBindingTest {
+    // A lifecycle owner moved through its states by hand. Only to be used on the main thread.
+    private static final class TestOwner implements LifecycleOwner {
+        private final LifecycleRegistry registry = new LifecycleRegistry(this);
+
+        TestOwner() {
+            registry.setCurrentState(Lifecycle.State.RESUMED);
+        }
+
+        void destroy() {
+            registry.setCurrentState(Lifecycle.State.DESTROYED);
+        }
+
+        @NonNull
+        @Override
+        public Lifecycle getLifecycle() {
+            return registry;
+        }
+    }
+
+    private static void onMainThread(Runnable act) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(act);
+    }
+
+    @Test
+    public void testListenersRunWhileAlive() throws InterruptedException {
+        final var source = new TaskCompletionSource<Integer>();
+        final var ran = new CountDownLatch(1);
+        onMainThread(() ->
+                promise(source.getTask()).bindTo(new TestOwner()).thenRun(x -> ran.countDown()));
+
+        source.setResult(1);
+        assertTrue(ran.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testListenersSuppressedAfterDestroy() {
+        final var source = new TaskCompletionSource<Integer>();
+        final var ran = new AtomicBoolean(false);
+        final var bound = new AtomicReference<Promise<Integer>>();
+        onMainThread(() -> {
+            final var owner = new TestOwner();
+            bound.set(promise(source.getTask())
+                    .bindTo(owner)
+                    .thenRun(x -> ran.set(true))
+                    .catchE(e -> ran.set(true)));
+            owner.destroy();
+        });
+        // Cancellation reaches the promise through the main thread.
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+
+        // The work itself still completes, but the bound promise is cancelled.
+        source.setResult(1);
+        assertThrows(CancellationException.class, bound.get()::await);
+        // Let any listener posted to the main thread run.
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+        assertFalse(ran.get());
+    }
+
+    @Test
+    public void testBindingToDestroyedOwner() {
+        final var source = new TaskCompletionSource<Integer>();
+        final var ran = new AtomicBoolean(false);
+        final var bound = new AtomicReference<Promise<Integer>>();
+        onMainThread(() -> {
+            final var owner = new TestOwner();
+            owner.destroy();
+            bound.set(promise(source.getTask()).bindTo(owner).thenRun(x -> ran.set(true)));
+        });
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+
+        source.setResult(1);
+        assertThrows(CancellationException.class, bound.get()::await);
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+        assertFalse(ran.get());
+    }
+}
@@ -7,14 +7,18 @@
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
 
 import com.google.firebase.Timestamp;
 import org.junit.Test;
 
+import com.example.evently.data.CascadingDelete;
 import com.example.evently.data.EventsDB;
 import com.example.evently.data.NotificationDB;
 import com.example.evently.data.model.Category;
@@ -141,4 +145,131 @@ public void testFetchEventChannelNotifs() throws InterruptedException, Execution
         assertTrue(notificationList.contains(winnerNotification));
         assertEquals(1, notificationList.size());
     }
+
+    /**
+     * Tests fetching user notifications for more events than a single whereIn allows.
+     * Notifications must be newest first, and limited.
+     */
+    @Test
+    public void testFetchUserNotificationsManyEvents()
+            throws InterruptedException, ExecutionException {
+        NotificationDB notificationDB = new NotificationDB();
+        EventsDB eventsDB = new EventsDB();
+        String email = "test1@test.com";
+
+        final var start = Instant.now();
+        final var notifications = new ArrayList<Notification>();
+        for (int i = 0; i < 35; i++) {
+            Event event = testEvent();
+            eventsDB.storeEvent(event).await();
+            eventsDB.unsafeEnroll(event.eventID(), email).await();
+
+            Notification n = new Notification(
+                    UUID.randomUUID(),
+                    event.eventID(),
+                    Notification.Channel.All,
+                    "Notification " + i,
+                    "Test notification",
+                    start.plusSeconds(i),
+                    new HashSet<>());
+            notificationDB.storeNotification(n).await();
+            notifications.add(n);
+        }
+
+        final var fetched = notificationDB.fetchUserNotifications(email, 10).await();
+        assertEquals(10, fetched.size());
+        // The 10 newest, in reverse order of creation.
+        for (int i = 0; i < 10; i++) {
+            assertEquals(notifications.get(34 - i).id(), fetched.get(i).id());
+        }
+    }
+
+    /**
+     * Tests that seen state and the unread count are tracked within the user's inbox.
+     */
+    @Test
+    public void testSeenAndUnreadCount() throws InterruptedException, ExecutionException {
+        NotificationDB notificationDB = new NotificationDB();
+        EventsDB eventsDB = new EventsDB();
+        // A fresh user, so that no other notifications end up in their inbox.
+        String email = UUID.randomUUID() + "@test.com";
+
+        Event event = testEvent();
+        eventsDB.storeEvent(event).await();
+        eventsDB.unsafeEnroll(event.eventID(), email).await();
+
+        Notification n1 = getTestNotification(event);
+        Notification n2 = getTestNotification(event);
+        Notification n3 = getTestNotification(event);
+        notificationDB.storeNotification(n1).await();
+        notificationDB.storeNotification(n2).await();
+        notificationDB.storeNotification(n3).await();
+
+        // Notifications are delivered into the inbox by the backend. Wait for them to show up.
+        for (int attempt = 0; attempt < 40; attempt++) {
+            if (notificationDB.fetchUnreadCount(email).await() == 3) break;
+            Thread.sleep(250);
+        }
+        assertEquals(3L, (long) notificationDB.fetchUnreadCount(email).await());
+        assertFalse(notificationDB.hasSeen(n1.id(), email).await());
+
+        // Seeing the same notification twice only counts once.
+        notificationDB.markSeen(n1.id(), email).await();
+        notificationDB.markSeen(n1.id(), email).await();
+        assertTrue(notificationDB.hasSeen(n1.id(), email).await());
+        assertEquals(2L, (long) notificationDB.fetchUnreadCount(email).await());
+
+        notificationDB.markAllSeen(email).await();
+        assertTrue(notificationDB.hasSeen(n2.id(), email).await());
+        assertTrue(notificationDB.hasSeen(n3.id(), email).await());
+        assertEquals(0L, (long) notificationDB.fetchUnreadCount(email).await());
+
+        // The shared notification is left untouched.
+        assertFalse(notificationDB.fetchNotification(n1.id()).await().orElseThrow().hasSeen(email));
+    }
+
+    /**
+     * Tests that deleting an event takes its notifications, and their inbox deliveries, with it.
+     */
+    @Test
+    public void testCascadingDeleteEvent() throws InterruptedException, ExecutionException {
+        NotificationDB notificationDB = new NotificationDB();
+        EventsDB eventsDB = new EventsDB();
+        String email = UUID.randomUUID() + "@test.com";
+
+        Event event = testEvent();
+        Event otherEvent = testEvent();
+        eventsDB.storeEvent(event).await();
+        eventsDB.storeEvent(otherEvent).await();
+        eventsDB.unsafeEnroll(event.eventID(), email).await();
+        eventsDB.unsafeEnroll(otherEvent.eventID(), email).await();
+
+        Notification n1 = getTestNotification(event);
+        Notification n2 = getTestNotification(otherEvent);
+        notificationDB.storeNotification(n1).await();
+        notificationDB.storeNotification(n2).await();
+        for (int attempt = 0; attempt < 40; attempt++) {
+            if (notificationDB.fetchUnreadCount(email).await() == 2) break;
+            Thread.sleep(250);
+        }
+        assertEquals(2L, (long) notificationDB.fetchUnreadCount(email).await());
+
+        new CascadingDelete().deleteEvent(event.eventID()).await();
+
+        assertTrue(eventsDB.fetchEvent(event.eventID()).await().isEmpty());
+        assertTrue(notificationDB.fetchEventNotifications(event.eventID()).await().isEmpty());
+        assertFalse(notificationDB.fetchNotification(n1.id()).await().isPresent());
+        // Only the delivery of the deleted event's notification is gone from the inbox.
+        assertEquals(1L, (long) notificationDB.fetchUnreadCount(email).await());
+        final var inbox = notificationDB
+                .fetchInbox(email, NotificationDB.DEFAULT_INBOX_PAGE_SIZE, Optional.empty())
+                .await();
+        assertEquals(
+                List.of(n2.id()),
+                inbox.items().stream().map(Notification::id).collect(Collectors.toList()));
+
+        // Deleting again is harmless.
+        new CascadingDelete().deleteEvent(event.eventID()).await();
+        assertEquals(1L, (long) notificationDB.fetchUnreadCount(email).await());
+    }
 }
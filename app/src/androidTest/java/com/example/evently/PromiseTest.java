@@ -0,0 +1,202 @@
+package com.example.evently;
+
+import static com.example.evently.data.generic.Promise.promise;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.google.android.gms.tasks.CancellationTokenSource;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.example.evently.data.generic.Promise;
+import com.example.evently.data.generic.RetryPolicy;
+
+/**
+ * Tests for the cancellation, timeouts, retries and bounded concurrency of {@link Promise}.
+ * <p>
+ * Cancellation tokens notify their listeners on the main thread, so these run on a device.
+ */
+@RunWith(AndroidJUnit4.class)
+public class PromiseTest {
+    // Short backoffs, so that retries don't hold up the tests.
+    private static final RetryPolicy POLICY = new RetryPolicy(
+            3, Duration.ofMillis(10), Duration.ofMillis(20), RetryPolicy::isTransient);
+
+    @Test
+    public void testCancelBeforeSettle() throws InterruptedException {
+        final var source = new TaskCompletionSource<Integer>();
+        final var cancelSource = new CancellationTokenSource();
+        final var mapped = new AtomicBoolean(false);
+        final var cancellable = promise(source.getTask()).cancellable(cancelSource.getToken());
+        final var chained = cancellable.map(x -> {
+            mapped.set(true);
+            return x;
+        });
+
+        cancelSource.cancel();
+        assertThrows(CancellationException.class, cancellable::await);
+        assertThrows(CancellationException.class, chained::await);
+
+        // The underlying task settling afterwards changes nothing.
+        source.setResult(1);
+        assertThrows(CancellationException.class, chained::await);
+        assertFalse(mapped.get());
+    }
+
+    @Test
+    public void testCancelAfterSettle() throws ExecutionException, InterruptedException {
+        final var cancelSource = new CancellationTokenSource();
+        final var cancellable = Promise.of(1).cancellable(cancelSource.getToken());
+        assertEquals(1, (int) cancellable.await());
+
+        cancelSource.cancel();
+        // The result stands...
+        assertEquals(1, (int) cancellable.await());
+        // ... but nothing chained after the cancellation runs.
+        final var mapped = new AtomicBoolean(false);
+        final var chained = cancellable.map(x -> {
+            mapped.set(true);
+            return x;
+        });
+        assertThrows(CancellationException.class, chained::await);
+        assertFalse(mapped.get());
+    }
+
+    @Test
+    public void testTimeoutFires() {
+        final var neverSettled = new TaskCompletionSource<Integer>();
+        final var timed = promise(neverSettled.getTask()).timeout(Duration.ofMillis(50));
+
+        final var e = assertThrows(ExecutionException.class, timed::await);
+        assertTrue(e.getCause() instanceof TimeoutException);
+    }
+
+    @Test
+    public void testTimeoutDoesNotFireAfterSuccess()
+            throws ExecutionException, InterruptedException {
+        final var source = new TaskCompletionSource<Integer>();
+        final var timed = promise(source.getTask()).timeout(Duration.ofMillis(100));
+        source.setResult(1);
+        assertEquals(1, (int) timed.await());
+
+        // Once the timeout has passed, the result still stands.
+        Thread.sleep(200);
+        assertEquals(1, (int) timed.await());
+    }
+
+    @Test
+    public void testRetryStopsOnNonRetryableError() {
+        final var attempts = new AtomicInteger();
+        final Promise<Integer> retried = Promise.retry(POLICY, () -> {
+            attempts.incrementAndGet();
+            return promise(Tasks.forException(new IllegalArgumentException("Event is full")));
+        });
+
+        final var e = assertThrows(ExecutionException.class, retried::await);
+        assertTrue(e.getCause() instanceof IllegalArgumentException);
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    public void testRetryGivesUpAfterMaxAttempts() {
+        final var attempts = new AtomicInteger();
+        final Promise<Integer> retried = Promise.retry(POLICY, () -> {
+            attempts.incrementAndGet();
+            return promise(Tasks.forException(new TimeoutException()));
+        });
+
+        final var e = assertThrows(ExecutionException.class, retried::await);
+        assertTrue(e.getCause() instanceof TimeoutException);
+        assertEquals(POLICY.maxAttempts(), attempts.get());
+    }
+
+    @Test
+    public void testRetrySucceedsAfterTransientError()
+            throws ExecutionException, InterruptedException {
+        final var attempts = new AtomicInteger();
+        final Promise<Integer> retried = Promise.retry(POLICY, () -> attempts.incrementAndGet() == 1
+                ? promise(Tasks.<Integer>forException(new TimeoutException()))
+                : Promise.of(42));
+
+        assertEquals(42, (int) retried.await());
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void testMapConcurrentKeepsInputOrder() throws ExecutionException, InterruptedException {
+        final var sources = List.of(
+                new TaskCompletionSource<String>(),
+                new TaskCompletionSource<String>(),
+                new TaskCompletionSource<String>());
+        final var results =
+                Promise.mapConcurrent(List.of(0, 1, 2), 3, i -> promise(sources.get(i).getTask()));
+
+        // Finish out of order.
+        sources.get(2).setResult("c");
+        sources.get(0).setResult("a");
+        sources.get(1).setResult("b");
+        assertEquals(List.of("a", "b", "c"), results.await());
+    }
+
+    @Test
+    public void testMapConcurrentBoundsInFlight() throws ExecutionException, InterruptedException {
+        final var timer = Executors.newSingleThreadScheduledExecutor();
+        final var inFlight = new AtomicInteger();
+        final var maxInFlight = new AtomicInteger();
+        final var items = IntStream.range(0, 10).boxed().collect(Collectors.toList());
+        final var results = Promise.mapConcurrent(items, 3, i -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            final var source = new TaskCompletionSource<Integer>();
+            timer.schedule(
+                    () -> {
+                        inFlight.decrementAndGet();
+                        source.setResult(i * 2);
+                    },
+                    20,
+                    TimeUnit.MILLISECONDS);
+            return promise(source.getTask());
+        });
+
+        assertEquals(
+                items.stream().map(i -> i * 2).collect(Collectors.toList()), results.await());
+        assertEquals(3, maxInFlight.get());
+        timer.shutdown();
+    }
+
+    @Test
+    public void testAllLimitedFailsFast() {
+        final var started = new AtomicInteger();
+        final var failing = new TaskCompletionSource<Integer>();
+        final var neverSettled = new TaskCompletionSource<Integer>();
+        final var items = IntStream.range(0, 10).boxed().collect(Collectors.toList());
+        final var results = Promise.mapConcurrent(items, 2, i -> {
+            started.incrementAndGet();
+            return promise(i == 0 ? failing.getTask() : neverSettled.getTask());
+        });
+
+        // Both of the first two are in flight by now.
+        failing.setException(new IllegalStateException("Failed"));
+        final var e = assertThrows(ExecutionException.class, results::await);
+        assertTrue(e.getCause() instanceof IllegalStateException);
+        // Only the first two were started, none after the failure.
+        assertEquals(2, started.get());
+    }
+}
@@ -18,8 +18,10 @@
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
 
 import androidx.navigation.NavGraph;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
@@ -209,6 +211,41 @@ public static void setUpNotifications() throws ExecutionException, InterruptedEx
         promises.add(notificationDB.storeNotification(templateNotification(5, Channel.Cancelled)));
 
         Promise.all(promises.stream()).await();
+
+        // Notifications are delivered into the inbox by the backend. Wait for them to show up.
+        awaitInbox(
+                templateNotification(1, Channel.All),
+                templateNotification(3, Channel.All),
+                templateNotification(7, Channel.All),
+                templateNotification(2, Channel.Winners),
+                templateNotification(3, Channel.Winners),
+                templateNotification(4, Channel.Winners),
+                templateNotification(5, Channel.Winners),
+                templateNotification(6, Channel.Winners),
+                templateNotification(7, Channel.Winners),
+                templateNotification(1, Channel.Losers));
+    }
+
+    /**
+     * Poll the inbox of the mock account until all the given notifications have been delivered.
+     * @param expected Notifications expected in the inbox.
+     */
+    private static void awaitInbox(Notification... expected)
+            throws ExecutionException, InterruptedException {
+        final var expectedIds =
+                Arrays.stream(expected).map(Notification::id).collect(Collectors.toSet());
+        for (int attempt = 0; attempt < 40; attempt++) {
+            final var inbox = notificationDB
+                    .fetchInbox(mockAccount.email(), 100, Optional.empty())
+                    .await();
+            final var ids =
+                    inbox.items().stream().map(Notification::id).collect(Collectors.toSet());
+            if (ids.containsAll(expectedIds)) {
+                return;
+            }
+            Thread.sleep(250);
+        }
+        throw new AssertionError("Timed out waiting for notifications to be delivered");
     }
 
     @AfterClass
@@ -321,11 +358,7 @@ public void test6_acceptInvitation_markSeen() throws InterruptedException, Execu
         Notification invite = templateNotification(2, Channel.Winners);
 
         // Asserts that we haven't seen the notification
-        assertFalse(notificationDB
-                .fetchNotification(invite.id())
-                .await()
-                .get()
-                .hasSeen(mockAccount.email()));
+        assertFalse(notificationDB.hasSeen(invite.id(), mockAccount.email()).await());
 
         // Confirms notification are not yet accepted.
         assertFalse(eventsDB.fetchEventEntrants(invite.eventId())
@@ -348,11 +381,7 @@ public void test6_acceptInvitation_markSeen() throws InterruptedException, Execu
                 .contains(mockAccount.email()));
 
         // Confirms notification is seen
-        assertTrue(notificationDB
-                .fetchNotification(invite.id())
-                .await()
-                .get()
-                .hasSeen(mockAccount.email()));
+        assertTrue(notificationDB.hasSeen(invite.id(), mockAccount.email()).await());
     }
 
     @Test
@@ -362,11 +391,7 @@ public void test7_declineInvitation_markSeen_expectNotification_cancelled()
         Notification invite = templateNotification(3, Channel.Winners);
 
         // Asserts that we haven't seen the new notification
-        assertFalse(notificationDB
-                .fetchNotification(invite.id())
-                .await()
-                .get()
-                .hasSeen(mockAccount.email()));
+        assertFalse(notificationDB.hasSeen(invite.id(), mockAccount.email()).await());
 
         // Confirms notification is not yet canceled.
         assertFalse(eventsDB.fetchEventEntrants(invite.eventId())
@@ -389,11 +414,7 @@ public void test7_declineInvitation_markSeen_expectNotification_cancelled()
                 .contains(mockAccount.email()));
 
         // Confirms notification is seen.
-        assertTrue(notificationDB
-                .fetchNotification(invite.id())
-                .await()
-                .get()
-                .hasSeen(mockAccount.email()));
+        assertTrue(notificationDB.hasSeen(invite.id(), mockAccount.email()).await());
     }
 
     /**
@@ -13,13 +13,14 @@
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.WriteBatch;
 import org.jetbrains.annotations.TestOnly;
 
+import com.example.evently.data.generic.ChunkedQuery;
 import com.example.evently.data.generic.Promise;
 import com.example.evently.data.generic.PromiseOpt;
+import com.example.evently.data.generic.Tracing;
 import com.example.evently.data.model.Account;
 
 /**
@@ -73,10 +74,11 @@ public Promise<Void> storeAccount(Account a) {
     }
 
     public Promise<Void> storeAccount(Account a, String deviceID) {
+        final var span = Tracing.start("AccountDB.storeAccount");
         DocumentReference docRef = accountsRef.document(a.email());
         final var obj = a.toHashMap();
         obj.put("deviceID", deviceID);
-        return promise(docRef.set(obj));
+        return span.end(promise(docRef.set(obj)));
     }
 
     /**
@@ -85,30 +87,38 @@ public Promise<Void> storeAccount(Account a, String deviceID) {
      * @return Reference to the concurrent task yielding to an account (if found).
      */
     public PromiseOpt<Account> fetchAccount(String email) {
-        return promiseOpt(
-                promise(accountsRef.document(email).get()).map(AccountDB::getAccountFromSnapshot));
+        final var span = Tracing.start("AccountDB.fetchAccount");
+        return span.end(promiseOpt(
+                promise(accountsRef.document(email).get()).map(AccountDB::getAccountFromSnapshot)));
     }
 
+    /**
+     * Returns the accounts with the given emails.
+     * <p>
+     * Any number of emails may be given, they are fetched with one query per 30 emails.
+     * @param email The emails of the target accounts
+     * @return The accounts, in the order of the given emails. Missing accounts are skipped.
+     */
     public Promise<List<Account>> fetchAccounts(List<String> email) {
         if (email.isEmpty()) return Promise.of(new ArrayList<>());
 
-        return promise(accountsRef.whereIn(FieldPath.documentId(), email).get())
-                .map(querySnapshot -> querySnapshot.getDocuments().stream()
-                        .map(AccountDB::getAccountFromSnapshot)
-                        .flatMap(Optional::stream)
-                        .collect(Collectors.toList()));
+        final var span = Tracing.start("AccountDB.fetchAccounts");
+        return span.end(
+                ChunkedQuery.fetchByIds(accountsRef, email, AccountDB::getAccountFromSnapshot),
+                List::size);
     }
 
     public PromiseOpt<Account> fetchAccountByDeviceID(String deviceID) {
+        final var span = Tracing.start("AccountDB.fetchAccountByDeviceID");
         final var prom =
                 promise(accountsRef.whereEqualTo("deviceID", deviceID).limit(1).get());
-        return promiseOpt(prom.map(qs -> {
+        return span.end(promiseOpt(prom.map(qs -> {
             if (qs.isEmpty()) {
                 return Optional.empty();
             } else {
                 return getAccountFromSnapshot(qs.getDocuments().get(0));
             }
-        }));
+        })));
     }
 
     /**
@@ -116,10 +126,13 @@ public PromiseOpt<Account> fetchAccountByDeviceID(String deviceID) {
      * @return A list of accounts
      */
     public Promise<List<Account>> fetchAllAccounts() {
-        return promise(accountsRef.get()).map(querySnapshot -> querySnapshot.getDocuments().stream()
-                .map(AccountDB::getAccountFromSnapshot)
-                .flatMap(Optional::stream)
-                .collect(Collectors.toList()));
+        final var span = Tracing.start("AccountDB.fetchAllAccounts");
+        final var accounts = promise(accountsRef.get())
+                .map(querySnapshot -> querySnapshot.getDocuments().stream()
+                        .map(AccountDB::getAccountFromSnapshot)
+                        .flatMap(Optional::stream)
+                        .collect(Collectors.toList()));
+        return span.end(accounts, List::size);
     }
 
     /**
@@ -128,7 +141,8 @@ public Promise<List<Account>> fetchAllAccounts() {
      * @return Reference to the concurrent task.
      */
     public Promise<Void> deleteAccount(String email) {
-        return promise(accountsRef.document(email).delete());
+        final var span = Tracing.start("AccountDB.deleteAccount");
+        return span.end(promise(accountsRef.document(email).delete()));
     }
 
     /**
@@ -163,9 +177,10 @@ public Promise<Void> updateVisibleEmail(String primaryEmail, String newVisibleEm
 
     // Helper for updating any field for an account.
     private Promise<Void> updateField(String email, String field, Object newValue) {
+        final var span = Tracing.start("AccountDB.updateField");
         // Gets an account based on the email
         DocumentReference docRef = accountsRef.document(email);
-        return promise(docRef.update(field, newValue));
+        return span.end(promise(docRef.update(field, newValue)));
     }
 
     /**
@@ -174,7 +189,8 @@ private Promise<Void> updateField(String email, String field, Object newValue) {
      * @return A boolean about if the account is admin or not.
      */
     public Promise<Boolean> isAdmin(String email) {
-        return promise(adminRef.document(email).get()).map(DocumentSnapshot::exists);
+        final var span = Tracing.start("AccountDB.isAdmin");
+        return span.end(promise(adminRef.document(email).get()).map(DocumentSnapshot::exists));
     }
 
     /**
@@ -0,0 +1,108 @@
+package com.example.evently.data;
+
+import static com.example.evently.data.generic.Promise.promise;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import com.example.evently.data.generic.ChunkedQuery;
+import com.example.evently.data.generic.Progress;
+import com.example.evently.data.generic.Promise;
+import com.example.evently.data.model.Event;
+
+/**
+ * Deletes events and accounts alongside everything that refers to them, for the admin.
+ * <p>
+ * An event takes its entrants, enrollment state, poster, notifications and their inbox deliveries
+ * with it. An account takes the events it organizes, its entries within other events, its inbox
+ * and its messaging token with it.
+ * <p>
+ * Every step is idempotent, and the event or account document itself goes last. As such, a failed
+ * deletion leaves the target listed, and deleting it again resumes wherever it stopped.
+ */
+public class CascadingDelete {
+    private final FirebaseFirestore db;
+    private final EventsDB eventsDB;
+    private final AccountDB accountDB;
+    private final NotificationDB notificationDB;
+
+    public CascadingDelete() {
+        db = FirebaseFirestore.getInstance();
+        eventsDB = new EventsDB();
+        accountDB = new AccountDB();
+        notificationDB = new NotificationDB();
+    }
+
+    /**
+     * Delete an event alongside everything that refers to it.
+     * @param eventID Event target.
+     * @return Promise.
+     */
+    public Promise<Void> deleteEvent(UUID eventID) {
+        return notificationDB
+                .deleteEventNotifications(eventID)
+                .then(x -> eventsDB.deleteEvent(eventID));
+    }
+
+    /**
+     * Delete several events, a few at a time.
+     * @param eventIDs Events to delete.
+     * @param onProgress Called on the main thread with the number of events deleted so far, once at
+     *                   the start and after every event.
+     * @return Promise.
+     */
+    public Promise<Void> deleteEvents(List<UUID> eventIDs, Consumer<Progress> onProgress) {
+        return deleteEach(eventIDs, this::deleteEvent, onProgress);
+    }
+
+    /**
+     * Delete an account alongside everything that refers to it.
+     * <p>
+     * The events organized by the account go first, then the account's entries within the events
+     * of others. This does not delete the authentication user, which only the user themselves may
+     * do.
+     * @param email Account target.
+     * @return Promise.
+     */
+    public Promise<Void> deleteAccount(String email) {
+        return eventsDB.fetchEventsByOrganizers(email)
+                .then(events -> deleteEvents(
+                        events.stream().map(Event::eventID).collect(Collectors.toList()),
+                        progress -> {}))
+                .then(x -> eventsDB.removeUserFromEvents(email))
+                .then(x -> notificationDB.deleteInbox(email))
+                .then(x -> promise(db.collection("fcmTokens").document(email).delete()))
+                .then(x -> accountDB.deleteAccount(email));
+    }
+
+    /**
+     * Delete several accounts, a few at a time.
+     * @param emails Accounts to delete.
+     * @param onProgress Called on the main thread with the number of accounts deleted so far, once
+     *                   at the start and after every account.
+     * @return Promise.
+     */
+    public Promise<Void> deleteAccounts(List<String> emails, Consumer<Progress> onProgress) {
+        return deleteEach(emails, this::deleteAccount, onProgress);
+    }
+
+    // Run the deletion of every target, a bounded number of them at a time.
+    private static <T> Promise<Void> deleteEach(
+            List<T> targets, Function<T, Promise<Void>> delete, Consumer<Progress> onProgress) {
+        final var done = new AtomicInteger();
+        onProgress.accept(new Progress(0, targets.size()));
+        return Promise.mapConcurrent(
+                        targets,
+                        ChunkedQuery.DEFAULT_CONCURRENCY,
+                        target -> delete.apply(target)
+                                .thenRun(x -> onProgress.accept(
+                                        new Progress(done.incrementAndGet(), targets.size()))))
+                .<Void>map(x -> null);
+    }
+}
@@ -3,31 +3,43 @@
 import static com.example.evently.data.generic.Promise.promise;
 import static com.example.evently.data.generic.PromiseOpt.promiseOpt;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import android.net.Uri;
+import android.util.Log;
 
+import com.google.android.gms.tasks.CancellationToken;
+import com.google.android.gms.tasks.CancellationTokenSource;
 import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
 import com.google.firebase.Timestamp;
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.GeoPoint;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.MetadataChanges;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
 import com.google.firebase.firestore.Transaction;
 import com.google.firebase.firestore.WriteBatch;
 import com.google.firebase.storage.FirebaseStorage;
@@ -35,9 +47,22 @@
 import com.google.firebase.storage.StorageReference;
 import org.jetbrains.annotations.TestOnly;
 
+import com.example.evently.data.generic.ChunkedQuery;
+import com.example.evently.data.generic.ContentionStats;
+import com.example.evently.data.generic.Page;
+import com.example.evently.data.generic.PagedDelete;
+import com.example.evently.data.generic.Progress;
 import com.example.evently.data.generic.Promise;
 import com.example.evently.data.generic.PromiseOpt;
+import com.example.evently.data.generic.RetryPolicy;
+import com.example.evently.data.generic.SearchTokens;
+import com.example.evently.data.generic.ShardedCounter;
+import com.example.evently.data.generic.Tracing;
+import com.example.evently.data.generic.TtlCache;
 import com.example.evently.data.model.Category;
+import com.example.evently.data.model.Entrant;
+import com.example.evently.data.model.EntrantCounts;
+import com.example.evently.data.model.EntrantStatus;
 import com.example.evently.data.model.Event;
 import com.example.evently.data.model.EventEntrants;
 import com.example.evently.data.model.EventFilter;
@@ -47,6 +72,61 @@
  * @author Ronan St. Amand
  */
 public class EventsDB {
+    /**
+     * Number of events fetched per page by the paginated queries, unless specified otherwise.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 20;
+
+    // Name of the subcollection, under each event entrants document, holding the entrants.
+    private static final String ENTRANTS_COLL = "entrants";
+
+    // Maximum number of writes firestore allows within a single batch.
+    private static final int MAX_BATCH_WRITES = 500;
+
+    // Most entrants moved within a single batch, alongside the one update of the event counts.
+    private static final int MAX_MOVES_PER_BATCH = MAX_BATCH_WRITES - 1;
+
+    // Most writes it takes to remove an entrant: the entrant, the event counts, and their shard.
+    private static final int WRITES_PER_REMOVAL = 3;
+
+    // Name of the subcollection, under each event, holding its enrollment shards.
+    private static final String ENROLL_SHARDS_COLL = "enrollShards";
+
+    // Number of shards the entrant limit of an event is shared out between.
+    private static final int NUM_ENROLL_SHARDS = 10;
+
+    // Name of the subcollection, under each event, holding the enroll requests awaiting the server.
+    private static final String ENROLL_REQUESTS_COLL = "enrollRequests";
+
+    // Statuses of an enroll request, as written by the client and the server respectively.
+    private static final String ENROLL_REQUEST_PENDING = "Pending";
+    private static final String ENROLL_REQUEST_ENROLLED = "Enrolled";
+
+    // How long to wait for the server to apply an enroll request.
+    private static final Duration ENROLL_REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    // Field on an entrant holding the enrollment shard they reserved their slot on.
+    private static final String SHARD_FIELD = "shard";
+
+    // Field of an event holding its search tokens, see SearchTokens.
+    private static final String SEARCH_TOKENS_FIELD = "searchTokens";
+
+    // Maximum number of events fetched by a search, to be ranked. Beyond this many matches, the
+    // events ranked are whichever the query yields first, so the best ones may be missed.
+    private static final int SEARCH_CANDIDATE_LIMIT = 500;
+
+    // Maximum number of events yielded by a search, after ranking.
+    private static final int SEARCH_LIMIT = 100;
+
+    private static final ContentionStats enrollContention = new ContentionStats();
+
+    // Maximum number of events kept in memory, and for how long each is trusted.
+    private static final int EVENT_CACHE_SIZE = 256;
+    private static final Duration EVENT_CACHE_TTL = Duration.ofMinutes(1);
+
+    private static final TtlCache<UUID, Event> eventCache =
+            new TtlCache<>(EVENT_CACHE_SIZE, EVENT_CACHE_TTL);
+
     private final FirebaseFirestore db;
     private final CollectionReference eventsRef;
     private final CollectionReference eventEntrantsRef;
@@ -87,28 +167,51 @@ private static Optional<Event> getEventFromSnapshot(DocumentSnapshot documentSna
                 documentSnapshot.getString("organizer"),
                 documentSnapshot.getLong("selectionLimit"),
                 optionalEntrantLimit,
-                Objects.requireNonNullElse(documentSnapshot.getBoolean("isFull"), false)));
+                Objects.requireNonNullElse(documentSnapshot.getBoolean("isFull"), false),
+                new EntrantCounts(
+                        getCountFromSnapshot(documentSnapshot, "enrolledCount"),
+                        getCountFromSnapshot(documentSnapshot, "selectedCount"),
+                        getCountFromSnapshot(documentSnapshot, "acceptedCount"),
+                        getCountFromSnapshot(documentSnapshot, "cancelledCount"))));
+    }
+
+    // Helper to read a count field, which may be missing on events stored before it was tracked.
+    // Events from before the counts were kept may have been decremented below 0, see
+    // backfillEntrantCounts within the cloud functions.
+    private static long getCountFromSnapshot(DocumentSnapshot documentSnapshot, String field) {
+        return Math.max(0, Objects.requireNonNullElse(documentSnapshot.getLong(field), 0L));
     }
 
     /**
-     * Gets an event from a DocumentSnapshot if able
-     * @param documentSnapshot DocumentSnapshot to retrieve EventEntrants from
-     * @return An optional with the retrieved event entrants struct if one was retrieved
-     * @throws NullPointerException When documentSnapshot has an incorrectly stored event entrants struct.
+     * Gets an entrant from a DocumentSnapshot if able
+     * @param documentSnapshot DocumentSnapshot to retrieve the entrant from
+     * @return An optional with the retrieved entrant if one was retrieved
+     * @throws NullPointerException When documentSnapshot has an incorrectly stored entrant.
      */
-    private static Optional<EventEntrants> getEventEntrantsFromSnapshot(
-            DocumentSnapshot documentSnapshot) throws NullPointerException {
+    private static Optional<Entrant> getEntrantFromSnapshot(DocumentSnapshot documentSnapshot)
+            throws NullPointerException {
 
         if (!documentSnapshot.exists()) return Optional.empty();
 
-        return Optional.of(new EventEntrants(
-                UUID.fromString(documentSnapshot.getId()),
-                (List<String>) documentSnapshot.get("enrolledEntrants"),
-                (List<String>) documentSnapshot.get("selectedEntrants"),
-                (List<String>) documentSnapshot.get("acceptedEntrants"),
-                (List<String>) documentSnapshot.get("cancelledEntrants"),
-                (HashMap<String, GeoPoint>) Objects.requireNonNullElse(
-                        documentSnapshot.get("entrantLocations"), new HashMap<>())));
+        return Optional.of(new Entrant(
+                UUID.fromString(documentSnapshot.getString("eventId")),
+                documentSnapshot.getString("email"),
+                EntrantStatus.valueOf(documentSnapshot.getString("status")),
+                Optional.ofNullable(documentSnapshot.getGeoPoint("location"))));
+    }
+
+    // The enrollment shard an entrant reserved their slot on, if any.
+    private static Optional<Integer> getShardFromSnapshot(DocumentSnapshot documentSnapshot) {
+        return Optional.ofNullable(documentSnapshot.getLong(SHARD_FIELD)).map(Long::intValue);
+    }
+
+    // The entrants of an event. Each entrant is a document keyed by their email.
+    private CollectionReference entrantsRef(UUID eventID) {
+        return eventEntrantsRef.document(eventID.toString()).collection(ENTRANTS_COLL);
+    }
+
+    private DocumentReference entrantRef(UUID eventID, String email) {
+        return entrantsRef(eventID).document(email);
     }
 
     /**
@@ -116,11 +219,13 @@ private static Optional<EventEntrants> getEventEntrantsFromSnapshot(
      * @param event event to be stored
      */
     public Promise<Void> storeEvent(Event event) {
+        final var span = Tracing.start("EventsDB.storeEvent");
         DocumentReference docRef = eventsRef.document(event.eventID().toString());
-        return promise(docRef.set(event.toHashMap())).then(x -> {
-            DocumentReference ref = eventEntrantsRef.document(event.eventID().toString());
-            return promise(ref.set(new EventEntrants(event.eventID()).toHashMap()));
-        });
+        final var eventMap = event.toHashMap();
+        // Kept alongside the details they're derived from, for full-text search.
+        eventMap.put(
+                SEARCH_TOKENS_FIELD, SearchTokens.indexTokens(event.name(), event.description()));
+        return span.end(invalidating(event.eventID(), promise(docRef.set(eventMap))));
     }
 
     /**
@@ -134,48 +239,230 @@ public Promise<Void> enroll(UUID eventID, String email) {
 
     /**
      * Add a user, alongside their current location, to the enrolled list of an event.
+     * <p>
+     * For events with an entrant limit, a slot is first reserved on one of the enrollment shards of
+     * the event. Concurrent enrollments thus mostly touch disjoint documents.
      * @param eventID Target event.
      * @param email Email of the user to enroll.
      * @param entrantLocation Location from where the entrant enrolled.
+     * @see #enrollContentionStats()
      */
     public Promise<Void> enroll(UUID eventID, String email, GeoPoint entrantLocation) {
-        final var eventIDStr = eventID.toString();
-        final var targetEventRef = eventsRef.document(eventIDStr);
-        final var targetEventEntrantsRef = eventEntrantsRef.document(eventIDStr);
-        return promise(FirebaseFirestore.getInstance().runTransaction(tx -> {
-            // We must verify some information and run two updates to enroll.
-            // All of these must pass at once in order for enroll to be successful.
-            // We must use a transaction to ensure no half success and no race condition from other
-            // people enrolling.
-            final var event = getEventFromSnapshot(tx.get(targetEventRef)).orElseThrow();
+        final var span = Tracing.start("EventsDB.enroll");
+        final var entrant = new Entrant(
+                eventID, email, EntrantStatus.Enrolled, Optional.ofNullable(entrantLocation));
+        // The event is read outside of the enrollment transaction. Its details rarely change, but
+        // its counts change with every single enrollment. Reading it within the transaction would
+        // have all concurrent enrollments contend on it.
+        // The cache is bypassed, a stale copy may not know the event got full or freed up.
+        final var enrolled = fetchEventUncached(eventID).map(Optional::orElseThrow).then(event -> {
             if (event.isFull()) {
                 throw new IllegalArgumentException("Event is full");
             }
             if (event.selectionTime().toInstant().isBefore(Instant.now())) {
                 throw new IllegalStateException("Event selection time has passed");
             }
-            final var eventEntrants =
-                    getEventEntrantsFromSnapshot(tx.get(targetEventEntrantsRef)).orElseThrow();
-
-            // Add the user to the enrolled list.
-            final var entrantUpdateMap = addEntrantUpdateObj(email, "enrolledEntrants");
-            // Add the location if provided.
-            if (entrantLocation != null) {
-                entrantUpdateMap.put(FieldPath.of("entrantLocations", email), entrantLocation);
+            if (event.optionalEntrantLimit().isEmpty()) {
+                // No capacity to check, the entrant document is all there is to contend on.
+                return enrollInShard(entrant, Optional.empty()).<Void>map(x -> null);
             }
-            fieldPathUpdate(tx, targetEventEntrantsRef, entrantUpdateMap);
-            // Mark the event full if we've hit the limit.
-            event.optionalEntrantLimit().ifPresent(limit -> {
-                if (eventEntrants.all().size() + 1 >= limit) {
-                    final var eventUpdateMap = new HashMap<String, Object>();
-                    eventUpdateMap.put("isFull", true);
-                    tx.update(targetEventRef, eventUpdateMap);
-                }
+            final var limit = event.optionalEntrantLimit().get();
+            final var counter = enrollShards(eventID);
+            // Start at a random shard, so that concurrent enrollments spread out.
+            final var start = ThreadLocalRandom.current().nextInt(counter.shardsFor(limit));
+            return reserveAndEnroll(entrant, limit, counter, start, 0);
+        });
+        return span.end(invalidating(eventID, enrolled));
+    }
+
+    // Outcome of a single attempt to enroll.
+    private enum EnrollOutcome {
+        Enrolled,
+        // Enrolled, and took the last slot of the shard.
+        FilledShard,
+        // The shard had no slot left, nothing was written.
+        ShardFull,
+        AlreadyEnrolled
+    }
+
+    // Helper to enroll into a limited event, moving on to the next shard whenever one is full.
+    private Promise<Void> reserveAndEnroll(
+            Entrant entrant, long limit, ShardedCounter counter, int start, int tried) {
+        final var shards = counter.shardsFor(limit);
+        if (tried >= shards) {
+            // Every shard is out of room.
+            return markFullIfNeeded(entrant.eventID(), counter, limit).<Void>map(x -> {
+                throw new IllegalArgumentException("Event is full");
             });
+        }
+        final var shard = (start + tried) % shards;
+        final var reservation =
+                new ShardReservation(counter, shard, counter.capacityOf(limit, shard));
+        return enrollInShard(entrant, Optional.of(reservation)).then(outcome -> switch (outcome) {
+            case ShardFull -> reserveAndEnroll(entrant, limit, counter, start, tried + 1);
+            case FilledShard -> markFullIfNeeded(entrant.eventID(), counter, limit);
+            case Enrolled, AlreadyEnrolled -> Promise.<Void>of(null);
+        });
+    }
 
-            // Success!
-            return null;
-        }));
+    // A slot to reserve on a single enrollment shard.
+    private record ShardReservation(ShardedCounter counter, int shard, long capacity) {}
+
+    // Enroll within a single transaction, reserving a slot on the given shard (if any).
+    // Only the entrant and a shard are touched. The event itself is left alone, or every
+    // enrollment would write the very same document. Its enrolled count is instead recounted by
+    // the aggregateEnrolledCounts cloud function, for the events whose shards changed.
+    private Promise<EnrollOutcome> enrollInShard(
+            Entrant entrant, Optional<ShardReservation> reservation) {
+        final var targetEntrantRef = entrantRef(entrant.eventID(), entrant.email());
+        final Transaction.Function<EnrollOutcome> enrollTx = tx -> {
+            if (tx.get(targetEntrantRef).exists()) {
+                // Already enrolled. Nothing to do.
+                return EnrollOutcome.AlreadyEnrolled;
+            }
+            var outcome = EnrollOutcome.Enrolled;
+            final var entrantMap = entrant.toHashMap();
+            if (reservation.isPresent()) {
+                final var res = reservation.get();
+                final var count = res.counter().get(tx, res.shard());
+                if (count >= res.capacity()) {
+                    return EnrollOutcome.ShardFull;
+                }
+                res.counter().increment(tx, res.shard(), 1);
+                // Remember the shard, to release the slot upon unenrolling.
+                entrantMap.put(SHARD_FIELD, res.shard());
+                if (count + 1 >= res.capacity()) {
+                    outcome = EnrollOutcome.FilledShard;
+                }
+            } else {
+                // No slot to reserve, but the enrolled count still needs a recount.
+                enrollShards(entrant.eventID()).touch(tx, randomShard());
+            }
+            tx.set(targetEntrantRef, entrantMap);
+            return outcome;
+        };
+        // Transactions are already retried upon contention. This covers the backend being
+        // overloaded or unreachable. The transaction is idempotent, so running it again is safe.
+        // Each run is tracked as a transaction of its own, so that only runs of the function within
+        // a single transaction count as retries due to contention.
+        return Promise.retry(
+                RetryPolicy.DEFAULT,
+                () -> promise(db.runTransaction(enrollContention.track(enrollTx))));
+    }
+
+    // Mark the event full if the shards, summed up, have hit the limit.
+    private Promise<Void> markFullIfNeeded(UUID eventID, ShardedCounter counter, long limit) {
+        return counter.sum().then(total -> total >= limit
+                ? invalidating(
+                        eventID,
+                        promise(eventsRef.document(eventID.toString()).update("isFull", true)))
+                : Promise.<Void>of(null));
+    }
+
+    // The enrollment shards of an event, sharing out its entrant limit.
+    private ShardedCounter enrollShards(UUID eventID) {
+        return new ShardedCounter(
+                eventsRef.document(eventID.toString()).collection(ENROLL_SHARDS_COLL),
+                NUM_ENROLL_SHARDS);
+    }
+
+    // Any of the enrollment shards, to flag that an entrant came or went. Spread out, so that
+    // concurrent writers mostly touch disjoint shards.
+    private static int randomShard() {
+        return ThreadLocalRandom.current().nextInt(NUM_ENROLL_SHARDS);
+    }
+
+    /**
+     * Counters of the enrollment transactions run by this app, and of their retries due to
+     * contention.
+     * <p>
+     * A transaction run again because the backend failed or was unreachable counts as another
+     * transaction, not as a retry.
+     * @return The current value of the counters.
+     */
+    public static ContentionStats.Snapshot enrollContentionStats() {
+        return enrollContention.snapshot();
+    }
+
+    /**
+     * Request to enroll a user, alongside their current location, into an event.
+     * <p>
+     * Unlike {@link #enroll(UUID, String, GeoPoint)}, this runs no transaction on the device. It only writes a
+     * small request, which is applied on the server alongside the other requests for the same event. The
+     * promise settles once the request has been applied.
+     * <p>
+     * Fails with {@link IllegalArgumentException} if the event is full, and {@link IllegalStateException} if
+     * the event is no longer open for enrollment. Same as {@link #enroll(UUID, String, GeoPoint)}. Fails with
+     * {@link java.util.concurrent.TimeoutException} if the server hasn't applied the request in time.
+     * @param eventID Target event.
+     * @param email Email of the user to enroll.
+     * @param entrantLocation Location from where the entrant enrolled.
+     */
+    public Promise<Void> requestEnroll(UUID eventID, String email, GeoPoint entrantLocation) {
+        return requestEnroll(
+                eventID, email, entrantLocation, new CancellationTokenSource().getToken());
+    }
+
+    /**
+     * Request to enroll a user, alongside their current location, into an event.
+     * <p>
+     * Same as {@link #requestEnroll(UUID, String, GeoPoint)}, except that waiting for the server may be
+     * given up early. The request itself is not withdrawn.
+     * @param eventID Target event.
+     * @param email Email of the user to enroll.
+     * @param entrantLocation Location from where the entrant enrolled.
+     * @param token Token to stop waiting for the request to be applied.
+     */
+    public Promise<Void> requestEnroll(
+            UUID eventID, String email, GeoPoint entrantLocation, CancellationToken token) {
+        final var span = Tracing.start("EventsDB.requestEnroll");
+        final var requestRef = enrollRequestsRef(eventID).document(email);
+        final var request = new HashMap<String, Object>();
+        request.put("eventId", eventID.toString());
+        request.put("email", email);
+        request.put("status", ENROLL_REQUEST_PENDING);
+        request.put("creationTime", FieldValue.serverTimestamp());
+        if (entrantLocation != null) {
+            request.put("location", entrantLocation);
+        }
+        final Promise<Void> requested = invalidating(
+                eventID,
+                promise(requestRef.set(request)).then(x -> awaitEnrollRequest(requestRef, token)));
+        return span.end(requested);
+    }
+
+    // Settle once the server has applied the enroll request, or once waiting is given up on.
+    private Promise<Void> awaitEnrollRequest(
+            DocumentReference requestRef, CancellationToken token) {
+        final var outcome = new TaskCompletionSource<Void>(token);
+        final var registration = requestRef.addSnapshotListener((snapshot, error) -> {
+            if (error != null) {
+                outcome.trySetException(error);
+            } else if (snapshot == null || !snapshot.exists()) {
+                outcome.trySetException(new IllegalStateException("Enroll request is gone"));
+            } else if (ENROLL_REQUEST_PENDING.equals(snapshot.getString("status"))) {
+                // Not applied yet. Keep waiting.
+            } else if (ENROLL_REQUEST_ENROLLED.equals(snapshot.getString("status"))) {
+                outcome.trySetResult(null);
+            } else if ("Full".equals(snapshot.getString("reason"))) {
+                outcome.trySetException(new IllegalArgumentException("Event is full"));
+            } else {
+                outcome.trySetException(
+                        new IllegalStateException("Event selection time has passed"));
+            }
+        });
+        // Only a single outcome is needed, however it was reached: applied, failed, timed out or
+        // cancelled.
+        outcome.getTask().addOnCompleteListener(t -> registration.remove());
+        return promise(outcome.getTask())
+                .timeout(ENROLL_REQUEST_TIMEOUT)
+                .catchE(outcome::trySetException)
+                .cancellable(token);
+    }
+
+    // Enroll requests of an event, each keyed by the email of the user.
+    private CollectionReference enrollRequestsRef(UUID eventID) {
+        return eventsRef.document(eventID.toString()).collection(ENROLL_REQUESTS_COLL);
     }
 
     /**
@@ -196,13 +483,14 @@ public Promise<Void> unsafeEnroll(UUID eventID, String email) {
      */
     @TestOnly
     public Promise<Void> unsafeEnroll(UUID eventID, String email, GeoPoint entrantLocation) {
-        // Add the user to the enrolled list.
-        final var entrantUpdateMap = addEntrantUpdateObj(email, "enrolledEntrants");
-        // Add the location if provided.
-        if (entrantLocation != null) {
-            entrantUpdateMap.put(FieldPath.of("entrantLocations", email), entrantLocation);
-        }
-        return fieldPathUpdate(eventEntrantsRef.document(eventID.toString()), entrantUpdateMap);
+        final var span = Tracing.start("EventsDB.unsafeEnroll");
+        final Promise<Void> moved = moveEntrant(
+                eventID,
+                email,
+                Optional.of(EntrantStatus.Enrolled),
+                Optional.ofNullable(entrantLocation),
+                Map.of());
+        return span.end(moved);
     }
 
     /**
@@ -212,18 +500,13 @@ public Promise<Void> unsafeEnroll(UUID eventID, String email, GeoPoint entrantLo
      * @return Promise.
      */
     public Promise<Void> unenroll(UUID eventID, String email) {
-        final var updateMap = removeEntrantUpdateObj(email, "enrolledEntrants");
-        // Remove their location as well.
-        updateMap.put(FieldPath.of("entrantLocations", email), FieldValue.delete());
-
-        // We need to do multiple collection updates.
-        final var eventIDStr = eventID.toString();
-        WriteBatch batch = db.batch();
-        // Update the eventEntrants.
-        fieldPathUpdate(batch, eventEntrantsRef.document(eventID.toString()), updateMap);
+        final var span = Tracing.start("EventsDB.unenroll");
         // Mark the event is "not full".
-        batch.update(eventsRef.document(eventIDStr), "isFull", false);
-        return promise(batch.commit());
+        final var extraEventUpdateMap = new HashMap<String, Object>();
+        extraEventUpdateMap.put("isFull", false);
+
+        return span.end(moveEntrant(
+                eventID, email, Optional.empty(), Optional.empty(), extraEventUpdateMap));
     }
 
     /**
@@ -232,7 +515,8 @@ public Promise<Void> unenroll(UUID eventID, String email) {
      * @param email Email of the user to enroll.
      */
     public Promise<Void> addSelected(UUID eventID, String email) {
-        return addEntrantToList(eventID, email, "selectedEntrants");
+        final var span = Tracing.start("EventsDB.addSelected");
+        return span.end(moveEntrant(eventID, email, EntrantStatus.Selected));
     }
 
     /**
@@ -242,10 +526,8 @@ public Promise<Void> addSelected(UUID eventID, String email) {
      * @return Promise.
      */
     public Promise<Void> cancelSelectedUser(UUID eventID, String email) {
-        final var updateMap = removeEntrantUpdateObj(email, "selectedEntrants");
-        final var additionUpdate = addEntrantUpdateObj(email, "cancelledEntrants");
-        updateMap.putAll(additionUpdate);
-        return fieldPathUpdate(eventEntrantsRef.document(eventID.toString()), updateMap);
+        final var span = Tracing.start("EventsDB.cancelSelectedUser");
+        return span.end(moveEntrant(eventID, email, EntrantStatus.Cancelled));
     }
 
     /**
@@ -254,7 +536,8 @@ public Promise<Void> cancelSelectedUser(UUID eventID, String email) {
      * @param email Email of the user to enroll.
      */
     public Promise<Void> addAccepted(UUID eventID, String email) {
-        return addEntrantToList(eventID, email, "acceptedEntrants");
+        final var span = Tracing.start("EventsDB.addAccepted");
+        return span.end(moveEntrant(eventID, email, EntrantStatus.Accepted));
     }
 
     /**
@@ -263,71 +546,354 @@ public Promise<Void> addAccepted(UUID eventID, String email) {
      * @param email Email of the user to enroll.
      */
     public Promise<Void> addCancelled(UUID eventID, String email) {
-        return addEntrantToList(eventID, email, "cancelledEntrants");
+        final var span = Tracing.start("EventsDB.addCancelled");
+        return span.end(moveEntrant(eventID, email, EntrantStatus.Cancelled));
     }
 
-    // Helper to add a user to one of the lists.
-    private Promise<Void> addEntrantToList(UUID eventID, String email, String field) {
-        final var updateMap = addEntrantUpdateObj(email, field);
-        return fieldPathUpdate(eventEntrantsRef.document(eventID.toString()), updateMap);
+    /**
+     * Move many selected users to the cancelled list of an event at once.
+     * @param eventID Target event.
+     * @param emails Target user emails.
+     * @return Promise.
+     * @see #moveEntrants(UUID, List, EntrantStatus)
+     */
+    public Promise<Void> cancelSelectedUsers(UUID eventID, List<String> emails) {
+        return moveEntrants(eventID, emails, EntrantStatus.Cancelled);
     }
 
-    private HashMap<FieldPath, Object> addEntrantUpdateObj(String email, String field) {
-        final var updateMap = new HashMap<FieldPath, Object>();
-        updateMap.put(FieldPath.of(field), FieldValue.arrayUnion(email));
-        return updateMap;
+    /**
+     * Add many users to the accepted list of an event at once.
+     * @param eventID Target event.
+     * @param emails Emails of the users.
+     * @return Promise.
+     * @see #moveEntrants(UUID, List, EntrantStatus)
+     */
+    public Promise<Void> addAccepted(UUID eventID, List<String> emails) {
+        return moveEntrants(eventID, emails, EntrantStatus.Accepted);
+    }
+
+    /**
+     * Add many users to the cancelled list of an event at once.
+     * @param eventID Target event.
+     * @param emails Emails of the users.
+     * @return Promise.
+     * @see #moveEntrants(UUID, List, EntrantStatus)
+     */
+    public Promise<Void> addCancelled(UUID eventID, List<String> emails) {
+        return moveEntrants(eventID, emails, EntrantStatus.Cancelled);
+    }
+
+    /**
+     * Change the status of many entrants of an event at once.
+     * <p>
+     * The current statuses are read up front, with one query per 30 entrants. Up to 499 entrants are
+     * then moved within a single batch, alongside a single update of the counts on the event. So
+     * the event is only updated (and the server only redraws) once per batch, rather than once per
+     * entrant.
+     * <p>
+     * The counts change by the statuses read up front. An entrant moved by someone else in between
+     * is counted off its old status, which {@code backfillEntrantCounts} corrects.
+     * @param eventID Target event.
+     * @param emails Emails of the entrants. Accounts that are not entrants of the event are skipped.
+     * @param to The new status of the entrants.
+     * @return Promise.
+     */
+    public Promise<Void> moveEntrants(UUID eventID, List<String> emails, EntrantStatus to) {
+        final var span = Tracing.start("EventsDB.moveEntrants");
+        final Promise<Void> moved = ChunkedQuery.fetchByIds(
+                        entrantsRef(eventID), emails, EventsDB::getEntrantFromSnapshot)
+                .then(entrants -> {
+                    final var toMove = entrants.stream()
+                            .filter(entrant -> entrant.status() != to)
+                            .collect(Collectors.toList());
+                    // Batches only write, blindly, so they never contend with one another.
+                    return Promise.mapConcurrent(
+                            ChunkedQuery.chunk(toMove, MAX_MOVES_PER_BATCH),
+                            ChunkedQuery.DEFAULT_CONCURRENCY,
+                            chunk -> moveEntrantsBatch(eventID, chunk, to));
+                })
+                .map(x -> null);
+        return span.end(invalidating(eventID, moved));
+    }
+
+    // Move the given entrants within a single batch, alongside the update of the counts they make.
+    // Entrants are updated rather than set, so the batch fails, rather than recreate them, if any
+    // were removed meanwhile.
+    private Promise<Void> moveEntrantsBatch(
+            UUID eventID, List<Entrant> entrants, EntrantStatus to) {
+        final var batch = db.batch();
+        final var deltas = new HashMap<String, Long>();
+        for (final var entrant : entrants) {
+            batch.update(entrantRef(eventID, entrant.email()), "status", to.name());
+            countDeltas(Optional.of(entrant.status()), Optional.of(to))
+                    .forEach((field, delta) -> deltas.merge(field, delta, Long::sum));
+        }
+        final var eventUpdateMap = new HashMap<String, Object>();
+        deltas.forEach((field, delta) -> {
+            if (delta != 0) eventUpdateMap.put(field, FieldValue.increment(delta));
+        });
+        if (!eventUpdateMap.isEmpty()) {
+            batch.update(eventsRef.document(eventID.toString()), eventUpdateMap);
+        }
+        return promise(batch.commit());
+    }
+
+    // Helper to change the status of an entrant.
+    // The counts on the event are kept in sync within the same transaction.
+    private Promise<Void> moveEntrant(UUID eventID, String email, EntrantStatus to) {
+        return moveEntrant(eventID, email, Optional.of(to), Optional.empty(), Map.of());
+    }
+
+    // Same as above, alongside any extra updates to the event itself.
+    // An empty status removes the entrant altogether. The location is only used for new entrants.
+    private Promise<Void> moveEntrant(
+            UUID eventID,
+            String email,
+            Optional<EntrantStatus> to,
+            Optional<GeoPoint> location,
+            Map<String, Object> extraEventUpdateMap) {
+        final var targetEventRef = eventsRef.document(eventID.toString());
+        final var targetEntrantRef = entrantRef(eventID, email);
+        return invalidating(eventID, promise(db.runTransaction(tx -> {
+            // We need the current status to know which counts actually change.
+            final var entrantSnapshot = tx.get(targetEntrantRef);
+            final var from = getEntrantFromSnapshot(entrantSnapshot).map(Entrant::status);
+            // Entrants coming or going flag a shard, for the enrolled count to be recounted.
+            final var shards = enrollShards(eventID);
+
+            if (to.isEmpty()) {
+                if (from.isPresent()) tx.delete(targetEntrantRef);
+                // Release the slot they had reserved, if any.
+                final var shard = getShardFromSnapshot(entrantSnapshot);
+                if (shard.isPresent()) {
+                    shards.increment(tx, shard.get(), -1);
+                } else if (from.isPresent()) {
+                    shards.touch(tx, randomShard());
+                }
+            } else if (from.isPresent()) {
+                tx.update(targetEntrantRef, "status", to.get().name());
+            } else {
+                final var entrant = new Entrant(eventID, email, to.get(), location);
+                tx.set(targetEntrantRef, entrant.toHashMap());
+                shards.touch(tx, randomShard());
+            }
+
+            final var eventUpdateMap = countUpdateObj(from, to);
+            eventUpdateMap.putAll(extraEventUpdateMap);
+            if (!eventUpdateMap.isEmpty()) {
+                tx.update(targetEventRef, eventUpdateMap);
+            }
+            return null;
+        })));
     }
 
-    private HashMap<FieldPath, Object> removeEntrantUpdateObj(String email, String field) {
-        final var updateMap = new HashMap<FieldPath, Object>();
-        updateMap.put(FieldPath.of(field), FieldValue.arrayRemove(email));
+    // Build the update for the counts on the event, as a result of an entrant moving from one
+    // status to another. An empty status means the entrant does not exist (before) or is removed
+    // (after).
+    private static HashMap<String, Object> countUpdateObj(
+            Optional<EntrantStatus> from, Optional<EntrantStatus> to) {
+        final var updateMap = new HashMap<String, Object>();
+        countDeltas(from, to)
+                .forEach((field, delta) -> updateMap.put(field, FieldValue.increment(delta)));
         return updateMap;
     }
 
+    // The change of each count field on the event, as a result of an entrant moving from one
+    // status to another. Fields that don't change are left out.
+    private static Map<String, Long> countDeltas(
+            Optional<EntrantStatus> from, Optional<EntrantStatus> to) {
+        final var before = from.map(EventsDB::countFields).orElse(List.of());
+        final var after = to.map(EventsDB::countFields).orElse(List.of());
+        final var deltas = new HashMap<String, Long>();
+        for (final var field : before) {
+            if (!after.contains(field)) {
+                deltas.put(field, -1L);
+            }
+        }
+        for (final var field : after) {
+            if (!before.contains(field)) {
+                deltas.put(field, 1L);
+            }
+        }
+        return deltas;
+    }
+
+    // The count fields on the event that an entrant with the given status is counted within.
+    // Accepted entrants still count as selected. Every entrant also counts as enrolled, but the
+    // enrolled count is only ever written by the aggregateEnrolledCounts cloud function.
+    private static List<String> countFields(EntrantStatus status) {
+        return switch (status) {
+            case Enrolled -> List.of();
+            case Selected -> List.of("selectedCount");
+            case Accepted -> List.of("selectedCount", "acceptedCount");
+            case Cancelled -> List.of("cancelledCount");
+        };
+    }
+
     /**
      * Fetch an event from database by UUID.
+     * <p>
+     * Recently fetched events are served from an in-memory cache, without any network reads.
      * @param eventID UUID of the event
+     * @see #eventCacheStats()
      */
     public PromiseOpt<Event> fetchEvent(UUID eventID) {
-        return promiseOpt(promise(eventsRef.document(eventID.toString()).get())
-                .map(EventsDB::getEventFromSnapshot));
+        final var cached = eventCache.get(eventID);
+        if (cached.isPresent()) {
+            // Hits are traced apart, so that they don't hide the latency of the reads.
+            return Tracing.start("EventsDB.fetchEvent.cached").end(promiseOpt(Promise.of(cached)));
+        }
+        return Tracing.start("EventsDB.fetchEvent").end(fetchEventUncached(eventID));
+    }
+
+    // Fetch an event from database, bypassing (but refreshing) the cache.
+    private PromiseOpt<Event> fetchEventUncached(UUID eventID) {
+        final var parse = cachingParser();
+        return promiseOpt(promise(eventsRef.document(eventID.toString()).get()).map(parse));
     }
 
     /**
-     * Fetch events whose names start with given search string.
-     * @param searchString Prefix to search with.
-     * @return List of matching events.
+     * Fetch events from database by UUID.
+     * <p>
+     * Recently fetched events are served from an in-memory cache. The rest are fetched with one query per
+     * 30 events.
+     * @param eventIDs UUIDs of the events
+     * @return The events, in the order of the given UUIDs. Missing events are skipped.
      */
-    public Promise<List<Event>> fetchEventsBySearchString(String searchString) {
-        if (searchString.isBlank()) {
-            return Promise.of(new ArrayList<>());
+    public Promise<List<Event>> fetchEvents(List<UUID> eventIDs) {
+        final var distinctIDs = eventIDs.stream().distinct().collect(Collectors.toList());
+        final var found = new HashMap<UUID, Event>();
+        final var misses = new ArrayList<String>();
+        for (final var eventID : distinctIDs) {
+            eventCache.get(eventID).ifPresentOrElse(
+                    event -> found.put(eventID, event), () -> misses.add(eventID.toString()));
         }
-        return parseQuerySnapShots(eventsRef
-                // https://stackoverflow.com/a/49230889/10305477
-                .orderBy("name")
-                .startAt(searchString)
-                .endAt(searchString + '\uf8ff')
-                .get());
+        // Lookups served entirely from the cache are traced apart, like those of fetchEvent.
+        final var span = Tracing.start(
+                misses.isEmpty() ? "EventsDB.fetchEvents.cached" : "EventsDB.fetchEvents");
+        final Promise<List<Event>> fetched = misses.isEmpty()
+                ? Promise.of(List.of())
+                : ChunkedQuery.fetchByIds(eventsRef, misses, cachingParser());
+        final Promise<List<Event>> ordered = fetched.map(events -> {
+            events.forEach(event -> found.put(event.eventID(), event));
+            return distinctIDs.stream()
+                    .flatMap(eventID -> Optional.ofNullable(found.get(eventID)).stream())
+                    .collect(Collectors.toList());
+        });
+        return span.end(ordered, List::size);
+    }
+
+    /**
+     * Counters of the in-memory event cache behind {@link #fetchEvent(UUID)} and
+     * {@link #fetchEvents(List)}.
+     * @return The current value of the counters.
+     */
+    public static TtlCache.Stats eventCacheStats() {
+        return eventCache.stats();
+    }
+
+    // Parse an event pushed by a listener, always its latest copy, and keep it in the cache.
+    private static Optional<Event> parseAndCacheEvent(DocumentSnapshot documentSnapshot) {
+        final var event = getEventFromSnapshot(documentSnapshot);
+        event.ifPresent(e -> eventCache.put(e.eventID(), e));
+        return event;
+    }
+
+    // A parser for events about to be read, keeping them in the cache for later lookups. Must be made
+    // before the read starts, so that events invalidated while it is in flight are not cached.
+    private static Function<DocumentSnapshot, Optional<Event>> cachingParser() {
+        final var since = eventCache.version();
+        return documentSnapshot -> {
+            final var event = getEventFromSnapshot(documentSnapshot);
+            event.ifPresent(e -> eventCache.putIfUnchanged(e.eventID(), e, since));
+            return event;
+        };
+    }
+
+    // Drop the cached copy of an event once a write touching it is done.
+    private static <T> Promise<T> invalidating(UUID eventID, Promise<T> write) {
+        return write.map(res -> {
+            eventCache.invalidate(eventID);
+            return res;
+        });
+    }
+
+    /**
+     * Fetch events whose name or description has words starting with the words of the search
+     * string, ignoring case and accents.
+     * <p>
+     * Yields the 100 most relevant events, out of the first 500 matching ones. Searches matching
+     * more than that are approximate.
+     * @param searchString Words to search with.
+     * @return List of matching events, most relevant first.
+     * @see SearchTokens
+     */
+    public Promise<List<Event>> fetchEventsBySearchString(String searchString) {
+        final var span = Tracing.start("EventsDB.fetchEventsBySearchString");
+        return span.end(search(eventsRef, searchString), List::size);
     }
 
     /**
-     * Fetch events by orgnaizer whose names start with given search string.
-     * @param searchString Prefix to search with.
-     * @return List of matching events.
+     * Fetch events by orgnaizer whose name or description has words starting with the words of the
+     * search string, ignoring case and accents.
+     * <p>
+     * Yields the 100 most relevant events, out of the first 500 matching ones. Searches matching
+     * more than that are approximate.
+     * @param searchString Words to search with.
+     * @return List of matching events, most relevant first.
+     * @see SearchTokens
      */
     public Promise<List<Event>> fetchOrganizerEventsBySearchString(
             String organizer, String searchString) {
+        final var span = Tracing.start("EventsDB.fetchOrganizerEventsBySearchString");
+        return span.end(
+                search(eventsRef.whereEqualTo("organizer", organizer), searchString),
+                List::size);
+    }
 
-        if (searchString.isBlank()) {
+    // Fetch the events matched by any word of the search string, and rank them by how many match.
+    private Promise<List<Event>> search(Query query, String searchString) {
+        final var queryTokens = SearchTokens.queryTokens(searchString);
+        if (queryTokens.isEmpty()) {
             return Promise.of(new ArrayList<>());
         }
-        return parseQuerySnapShots(eventsRef
-                .whereEqualTo("organizer", organizer)
-                // https://stackoverflow.com/a/49230889/10305477
-                .orderBy("name")
-                .startAt(searchString)
-                .endAt(searchString + '\uf8ff')
-                .get());
+        return parseQuerySnapShots(query.whereArrayContainsAny(SEARCH_TOKENS_FIELD, queryTokens)
+                        .limit(SEARCH_CANDIDATE_LIMIT))
+                .map(events -> rankBySearch(events, queryTokens).stream()
+                        .limit(SEARCH_LIMIT)
+                        .collect(Collectors.toList()));
+    }
+
+    /**
+     * Order events by relevance to a search string, the same way searches are.
+     * @param events Events matching the search string.
+     * @param searchString Words searched with.
+     * @return The events, most relevant first.
+     * @see #fetchEventsBySearchString(String)
+     */
+    public static List<Event> rankBySearch(List<Event> events, String searchString) {
+        return rankBySearch(events, SearchTokens.queryTokens(searchString));
+    }
+
+    // Order events by the number of query tokens they match, then by those matched by the name.
+    private static List<Event> rankBySearch(List<Event> events, List<String> queryTokens) {
+        record Ranked(Event event, int matches, int nameMatches) {}
+        return events.stream()
+                .map(event -> {
+                    final var nameTokens = new HashSet<>(SearchTokens.indexTokens(event.name()));
+                    final var allTokens = new HashSet<>(nameTokens);
+                    allTokens.addAll(SearchTokens.indexTokens(event.description()));
+                    return new Ranked(
+                            event,
+                            SearchTokens.matchCount(queryTokens, allTokens),
+                            SearchTokens.matchCount(queryTokens, nameTokens));
+                })
+                .sorted(Comparator.comparingInt(Ranked::matches)
+                        .thenComparingInt(Ranked::nameMatches)
+                        .reversed()
+                        .thenComparing(ranked -> ranked.event().name()))
+                .map(Ranked::event)
+                .collect(Collectors.toList());
     }
 
     /**
@@ -335,11 +901,9 @@ public Promise<List<Event>> fetchOrganizerEventsBySearchString(
      * @param organizer email of the event's organizer
      */
     public Promise<List<Event>> fetchEventsByOrganizers(String organizer) {
-        return promise(eventsRef.whereEqualTo("organizer", organizer).get())
-                .map(querySnapshot -> querySnapshot.getDocuments().stream()
-                        .map(EventsDB::getEventFromSnapshot)
-                        .flatMap(Optional::stream)
-                        .collect(Collectors.toList()));
+        final var span = Tracing.start("EventsDB.fetchEventsByOrganizers");
+        return span.end(
+                parseQuerySnapShots(eventsRef.whereEqualTo("organizer", organizer)), List::size);
     }
 
     /**
@@ -348,13 +912,32 @@ public Promise<List<Event>> fetchEventsByOrganizers(String organizer) {
      * @param isStart {@code true} for events after constraint, {@code false} for events before.
      */
     public Promise<List<Event>> fetchEventsByDate(Timestamp dateConstraint, boolean isStart) {
-        final Query query;
+        final var span = Tracing.start("EventsDB.fetchEventsByDate");
+        return span.end(parseQuerySnapShots(dateQuery(dateConstraint, isStart)), List::size);
+    }
+
+    /**
+     * Fetch a page of events before or after a given date, ordered by event time.
+     * @param dateConstraint date to constrain events by
+     * @param isStart {@code true} for events after constraint, {@code false} for events before.
+     * @param pageSize Maximum number of events within the page.
+     * @param after Token of the previous page, if any. Empty to fetch the first page.
+     */
+    public Promise<Page<Event>> fetchEventsByDate(
+            Timestamp dateConstraint, boolean isStart, int pageSize, Optional<Page.Token> after) {
+        final var span = Tracing.start("EventsDB.fetchEventsByDate");
+        final Promise<Page<Event>> fetched = fetchPage(
+                dateQuery(dateConstraint, isStart).orderBy("eventTime"), pageSize, after);
+        return span.end(fetched, page -> page.items().size());
+    }
+
+    // Helper to build the query for events before or after a given date.
+    private Query dateQuery(Timestamp dateConstraint, boolean isStart) {
         if (isStart) {
-            query = eventsRef.whereGreaterThan("eventTime", dateConstraint);
+            return eventsRef.whereGreaterThan("eventTime", dateConstraint);
         } else {
-            query = eventsRef.whereLessThan("eventTime", dateConstraint);
+            return eventsRef.whereLessThan("eventTime", dateConstraint);
         }
-        return parseQuerySnapShots(query.get());
     }
 
     /**
@@ -362,10 +945,21 @@ public Promise<List<Event>> fetchEventsByDate(Timestamp dateConstraint, boolean
      * @return A list of events
      */
     public Promise<List<Event>> fetchAllEvents() {
-        return promise(eventsRef.get()).map(querySnapshot -> querySnapshot.getDocuments().stream()
-                .map(EventsDB::getEventFromSnapshot)
-                .flatMap(Optional::stream)
-                .collect(Collectors.toList()));
+        final var span = Tracing.start("EventsDB.fetchAllEvents");
+        return span.end(parseQuerySnapShots(eventsRef), List::size);
+    }
+
+    /**
+     * Gets a page of all events for admin viewing purposes, ordered by event time.
+     * @param pageSize Maximum number of events within the page.
+     * @param after Token of the previous page, if any. Empty to fetch the first page.
+     * @return A page of events
+     */
+    public Promise<Page<Event>> fetchAllEvents(int pageSize, Optional<Page.Token> after) {
+        final var span = Tracing.start("EventsDB.fetchAllEvents");
+        return span.end(
+                fetchPage(eventsRef.orderBy("eventTime"), pageSize, after),
+                page -> page.items().size());
     }
 
     /**
@@ -373,6 +967,27 @@ public Promise<List<Event>> fetchAllEvents() {
      * @return All currently open (for enrollment) events as per given filters.
      */
     public Promise<List<Event>> fetchEventByFilters(EventFilter filters) {
+        final var span = Tracing.start("EventsDB.fetchEventByFilters");
+        return span.end(parseQuerySnapShots(filtersQuery(filters)), List::size);
+    }
+
+    /**
+     * Fetch a page of the currently open (for enrollment) events, ordered by selection time.
+     * @param filters Filters to apply on the events.
+     * @param pageSize Maximum number of events within the page.
+     * @param after Token of the previous page, if any. Empty to fetch the first page.
+     * @return A page of events as per given filters.
+     */
+    public Promise<Page<Event>> fetchEventByFilters(
+            EventFilter filters, int pageSize, Optional<Page.Token> after) {
+        final var span = Tracing.start("EventsDB.fetchEventByFilters");
+        return span.end(
+                fetchPage(filtersQuery(filters).orderBy("selectionTime"), pageSize, after),
+                page -> page.items().size());
+    }
+
+    // Helper to build the query for currently open events as per given filters.
+    private Query filtersQuery(EventFilter filters) {
         var query = eventsRef.whereGreaterThan("selectionTime", Timestamp.now());
         if (!filters.categories().isEmpty()) {
             final var categoriesList =
@@ -387,7 +1002,7 @@ public Promise<List<Event>> fetchEventByFilters(EventFilter filters) {
             final var endTime = filters.endTime().get();
             query = query.whereLessThan("eventTime", new Timestamp(endTime));
         }
-        return parseQuerySnapShots(query.get());
+        return query;
     }
 
     /**
@@ -396,57 +1011,216 @@ public Promise<List<Event>> fetchEventByFilters(EventFilter filters) {
      * @param endTime Date range end
      */
     public Promise<List<Event>> fetchEventsByDate(Timestamp startTime, Timestamp endTime) {
-        return parseQuerySnapShots(eventsRef
+        final var span = Tracing.start("EventsDB.fetchEventsByDate");
+        return span.end(parseQuerySnapShots(dateRangeQuery(startTime, endTime)), List::size);
+    }
+
+    /**
+     * Fetch a page of events in a date range, ordered by event time.
+     * @param startTime Date range start
+     * @param endTime Date range end
+     * @param pageSize Maximum number of events within the page.
+     * @param after Token of the previous page, if any. Empty to fetch the first page.
+     */
+    public Promise<Page<Event>> fetchEventsByDate(
+            Timestamp startTime, Timestamp endTime, int pageSize, Optional<Page.Token> after) {
+        final var span = Tracing.start("EventsDB.fetchEventsByDate");
+        final Promise<Page<Event>> fetched = fetchPage(
+                dateRangeQuery(startTime, endTime).orderBy("eventTime"), pageSize, after);
+        return span.end(fetched, page -> page.items().size());
+    }
+
+    // Helper to build the query for events in a date range.
+    private Query dateRangeQuery(Timestamp startTime, Timestamp endTime) {
+        return eventsRef
                 .whereGreaterThan("eventTime", startTime)
-                .whereLessThan("eventTime", endTime)
-                .get());
+                .whereLessThan("eventTime", endTime);
     }
 
+
     /**
      * Fetch events with an account enrolled.
      * @param enrollee email of enrolled account
      */
     public Promise<List<Event>> fetchEventsByEnrolled(String enrollee) {
-        return promise(eventEntrantsRef
-                        .whereArrayContains("enrolledEntrants", enrollee)
-                        .get())
-                .then(x -> {
-                    final var eventIds = x.getDocuments().stream().map(DocumentSnapshot::getId);
-                    // TODO: Maybe use ::whereIn (but it can only take 30 elements as match input).
-                    final var eventGetTasks = eventIds.map(
-                            entrantId -> promise(eventsRef.document(entrantId).get()));
-                    return Promise.all(eventGetTasks);
-                })
-                .map(x -> x.stream()
-                        .map(EventsDB::getEventFromSnapshot)
-                        .flatMap(Optional::stream)
-                        .collect(Collectors.toList()));
+        final var span = Tracing.start("EventsDB.fetchEventsByEnrolled");
+        final Promise<List<Event>> events = fetchEntrantsByEmail(enrollee).then(entrants -> {
+            final var eventIds = entrants.stream()
+                    .map(Entrant::eventID)
+                    .collect(Collectors.toList());
+            // One whereIn query per 30 events, rather than one read per event.
+            return fetchEvents(eventIds);
+        });
+        return span.end(events, List::size);
+    }
+
+    /**
+     * Fetch the entries of an account across all the events it is enrolled in.
+     * @param email email of the account
+     * @return One entrant per event the account is enrolled in.
+     */
+    public Promise<List<Entrant>> fetchEntrantsByEmail(String email) {
+        final var span = Tracing.start("EventsDB.fetchEntrantsByEmail");
+        return span.end(
+                promise(entrantsByEmailQuery(email).get()).map(EventsDB::parseEntrants),
+                List::size);
+    }
+
+    private Query entrantsByEmailQuery(String email) {
+        return db.collectionGroup(ENTRANTS_COLL).whereEqualTo("email", email);
     }
 
+    /**
+     * Fetch a single entrant of an event.
+     * @param eventID UUID of the event
+     * @param email email of the entrant
+     * @return The entrant, if the account is enrolled in the event.
+     */
+    public PromiseOpt<Entrant> fetchEntrant(UUID eventID, String email) {
+        final var span = Tracing.start("EventsDB.fetchEntrant");
+        final PromiseOpt<Entrant> entrant = promiseOpt(promise(entrantRef(eventID, email).get())
+                .map(EventsDB::getEntrantFromSnapshot));
+        return span.end(entrant);
+    }
+
+    /**
+     * Fetch a page of the entrants of an event, ordered by email.
+     * @param eventID UUID of the event
+     * @param pageSize Maximum number of entrants within the page.
+     * @param after Token of the previous page, if any. Empty to fetch the first page.
+     * @return A page of entrants.
+     */
+    public Promise<Page<Entrant>> fetchEntrants(
+            UUID eventID, int pageSize, Optional<Page.Token> after) {
+        final var span = Tracing.start("EventsDB.fetchEntrants");
+        return span.end(
+                Page.fetch(entrantsRef(eventID), pageSize, after, EventsDB::getEntrantFromSnapshot),
+                page -> page.items().size());
+    }
+
+    /**
+     * Fetch a page of the entrants of an event with the given status, ordered by email.
+     * @param eventID UUID of the event
+     * @param status Status of the entrants to fetch.
+     * @param pageSize Maximum number of entrants within the page.
+     * @param after Token of the previous page, if any. Empty to fetch the first page.
+     * @return A page of entrants.
+     */
+    public Promise<Page<Entrant>> fetchEntrants(
+            UUID eventID, EntrantStatus status, int pageSize, Optional<Page.Token> after) {
+        final var span = Tracing.start("EventsDB.fetchEntrants");
+        final Promise<Page<Entrant>> fetched = Page.fetch(
+                entrantsRef(eventID).whereEqualTo("status", status.name()),
+                pageSize,
+                after,
+                EventsDB::getEntrantFromSnapshot);
+        return span.end(fetched, page -> page.items().size());
+    }
+
+    /**
+     * Fetch all the entrants of an event, assembled into lists.
+     * <p>
+     * This reads every entrant of the event. For large events, prefer the paged
+     * {@link #fetchEntrants(UUID, EntrantStatus, int, Optional)}.
+     * @param eventId UUID of the event
+     * @return The lists of entrants, if the event exists. Empty lists if it has no entrants.
+     */
     public PromiseOpt<EventEntrants> fetchEventEntrants(UUID eventId) {
-        return promiseOpt(promise(eventEntrantsRef.document(eventId.toString()).get())
-                .map(EventsDB::getEventEntrantsFromSnapshot));
+        final var span = Tracing.start("EventsDB.fetchEventEntrants");
+        // Entrants have no parent document to tell whether the event exists, read it alongside.
+        final var eventDoc = promise(eventsRef.document(eventId.toString()).get());
+        final var entrants = promise(entrantsRef(eventId).get());
+        return span.end(promiseOpt(eventDoc.with(entrants).map(pair -> pair.first.exists()
+                ? Optional.of(EventEntrants.of(eventId, parseEntrants(pair.second)))
+                : Optional.empty())));
     }
 
-    public Promise<List<EventEntrants>> fetchEventsEntrants(List<UUID> eventIds) {
-        final var eventEntrantGetTasks = eventIds.stream()
-                .map(eventId ->
-                        promise(eventEntrantsRef.document(eventId.toString()).get()));
-        return Promise.all(eventEntrantGetTasks).map(x -> x.stream()
-                .map(EventsDB::getEventEntrantsFromSnapshot)
-                .flatMap(Optional::stream)
-                .collect(Collectors.toList()));
+    /**
+     * Listen to an event, in real time.
+     * <p>
+     * The listener is called once with the current event, and again on every change made to it,
+     * by anyone. Metadata only changes (e.g. a local write being acknowledged) are not reported.
+     * @param eventID UUID of the event
+     * @param onEvent Called with the latest event. Empty if the event does not exist.
+     * @return The registration, to be removed once the updates are no longer needed.
+     */
+    public ListenerRegistration listenEvent(UUID eventID, Consumer<Optional<Event>> onEvent) {
+        return eventsRef
+                .document(eventID.toString())
+                .addSnapshotListener(MetadataChanges.EXCLUDE, (snapshot, error) -> {
+                    if (error != null) {
+                        Log.w("EventsDB", "Event listener failed: " + error);
+                        return;
+                    }
+                    if (snapshot == null) return;
+                    final var event = parseAndCacheEvent(snapshot);
+                    if (event.isEmpty()) eventCache.invalidate(eventID);
+                    onEvent.accept(event);
+                });
+    }
+
+    /**
+     * Listen to all the entrants of an event, in real time.
+     * <p>
+     * The first call reads every entrant of the event. Afterwards, only the entrants that changed
+     * are read, and applied onto the previous lists. Metadata only changes are not reported.
+     * @param eventID UUID of the event
+     * @param onEntrants Called with the latest lists of entrants.
+     * @return The registration, to be removed once the updates are no longer needed.
+     */
+    public ListenerRegistration listenEventEntrants(
+            UUID eventID, Consumer<EventEntrants> onEntrants) {
+        // Kept ordered by email, like the results of a plain read.
+        final var entrants = new TreeMap<String, Entrant>();
+        return entrantsRef(eventID).addSnapshotListener(MetadataChanges.EXCLUDE, (qs, error) -> {
+            if (error != null) {
+                Log.w("EventsDB", "Entrants listener failed: " + error);
+                return;
+            }
+            if (qs == null) return;
+            final var changes = qs.getDocumentChanges();
+            // The very first snapshot is always reported, even for an event with no entrants.
+            if (changes.isEmpty() && !entrants.isEmpty()) return;
+            for (final var change : changes) {
+                final var doc = change.getDocument();
+                switch (change.getType()) {
+                    case ADDED, MODIFIED -> getEntrantFromSnapshot(doc)
+                            .ifPresent(entrant -> entrants.put(entrant.email(), entrant));
+                    case REMOVED -> entrants.remove(doc.getId());
+                }
+            }
+            onEntrants.accept(EventEntrants.of(eventID, new ArrayList<>(entrants.values())));
+        });
     }
 
     /**
      * Remove given event alongside its relevant information.
+     * <p>
+     * The event document itself goes last, so that a failed deletion leaves the event listed, and
+     * deleting it again picks up the rest.
      * @param eventID UUID of event
      */
     public Promise<Void> deleteEvent(UUID eventID) {
+        final var span = Tracing.start("EventsDB.deleteEvent");
         final var eventIDStr = eventID.toString();
-        return promise(eventsRef.document(eventIDStr).delete())
-                .alongside(promise(eventEntrantsRef.document(eventIDStr).delete()))
-                .alongside(deletePoster(eventID));
+        // Deleting a document does not delete its subcollections, go through those directly.
+        eventCache.invalidate(eventID);
+        final Promise<Void> deleted = promise(eventEntrantsRef.document(eventIDStr).delete())
+                .alongside(deleteAll(entrantsRef(eventID)))
+                .alongside(deleteAll(eventsRef.document(eventIDStr).collection(ENROLL_SHARDS_COLL)))
+                .alongside(deleteAll(enrollRequestsRef(eventID)))
+                .alongside(deletePoster(eventID))
+                .then(x -> promise(eventsRef.document(eventIDStr).delete()))
+                .map(x -> {
+                    eventCache.invalidate(eventID);
+                    return null;
+                });
+        return span.end(deleted);
+    }
+
+    // Delete all the documents matched by a query, a page at a time.
+    private Promise<Void> deleteAll(Query query) {
+        return PagedDelete.deleteAll(db, query).map(x -> null);
     }
 
     /**
@@ -454,26 +1228,89 @@ public Promise<Void> deleteEvent(UUID eventID) {
      * @param email email of user
      */
     public Promise<Void> removeUserFromEvents(String email) {
-        final var updateMap = new HashMap<FieldPath, Object>();
-        // Remove the user from the entrant arrays.
-        var arrayFields = new String[] {
-            "enrolledEntrants", "selectedEntrants", "acceptedEntrants", "cancelledEntrants"
-        };
-        for (String field : arrayFields) {
-            updateMap.put(FieldPath.of(field), FieldValue.arrayRemove(email));
+        return removeUserFromEvents(email, progress -> {});
+    }
+
+    /**
+     * Removes user with email from all lists of all events, reporting progress along the way.
+     * <p>
+     * Only the events the user is an entrant of are read and written. The writes are committed in
+     * batches, a few at a time, so there is no limit on how many events the user is part of.
+     * @param email email of user
+     * @param onProgress Called on the main thread with the number of events the user was removed
+     *                   from so far, out of all the events they are part of. Called once the events
+     *                   are found, and after every batch.
+     */
+    public Promise<Void> removeUserFromEvents(String email, Consumer<Progress> onProgress) {
+        final var span = Tracing.start("EventsDB.removeUserFromEvents");
+        final var done = new AtomicInteger();
+        final Promise<Void> removed = promise(entrantsByEmailQuery(email).get())
+                .thenRun(qs -> onProgress.accept(new Progress(0, qs.size())))
+                .then(qs -> {
+                    final var docs = qs.getDocuments();
+                    return Promise.mapConcurrent(
+                                    ChunkedQuery.chunk(docs, MAX_BATCH_WRITES / WRITES_PER_REMOVAL),
+                                    ChunkedQuery.DEFAULT_CONCURRENCY,
+                                    chunk -> removeEntrantsBatch(chunk)
+                                            .thenRun(x -> onProgress.accept(new Progress(
+                                                    done.addAndGet(chunk.size()), docs.size()))))
+                            .<Void>map(x -> null);
+                });
+        return span.end(removed);
+    }
+
+    // Remove the given entrants, within a single batch.
+    // Entrants may outlive their event, e.g. when its deletion failed midway. Those are only
+    // deleted, updating their event would fail the whole batch.
+    private Promise<Void> removeEntrantsBatch(List<DocumentSnapshot> entrantDocs) {
+        final var entrants = entrantDocs.stream()
+                .map(doc -> getEntrantFromSnapshot(doc).orElseThrow())
+                .collect(Collectors.toList());
+        final var eventIDs = entrants.stream()
+                .map(entrant -> entrant.eventID().toString())
+                .collect(Collectors.toList());
+        return ChunkedQuery.fetchByIds(eventsRef, eventIDs, doc -> Optional.of(doc.getId()))
+                .then(existing -> {
+                    final var existingIDs = new HashSet<>(existing);
+                    WriteBatch batch = db.batch();
+                    for (int i = 0; i < entrantDocs.size(); i++) {
+                        final var doc = entrantDocs.get(i);
+                        final var entrant = entrants.get(i);
+                        batch.delete(doc.getReference());
+                        if (existingIDs.contains(entrant.eventID().toString())) {
+                            updateEventForRemoval(batch, doc, entrant);
+                        }
+                    }
+                    return promise(batch.commit());
+                })
+                .map(x -> {
+                    entrants.forEach(entrant -> eventCache.invalidate(entrant.eventID()));
+                    return null;
+                });
+    }
+
+    // Within a batch, update the event of an entrant being removed from it.
+    private void updateEventForRemoval(WriteBatch batch, DocumentSnapshot doc, Entrant entrant) {
+        final var eventID = entrant.eventID();
+        final var eventUpdateMap = countUpdateObj(Optional.of(entrant.status()), Optional.empty());
+        // Release the slot they had reserved, if any. Either way, a shard is flagged for the
+        // enrolled count to be recounted.
+        final var shard = getShardFromSnapshot(doc);
+        if (shard.isPresent()) {
+            batch.set(
+                    enrollShards(eventID).shardRef(shard.get()),
+                    ShardedCounter.incrementObj(-1),
+                    SetOptions.merge());
+            eventUpdateMap.put("isFull", false);
+        } else {
+            batch.set(
+                    enrollShards(eventID).shardRef(randomShard()),
+                    ShardedCounter.touchObj(),
+                    SetOptions.merge());
+        }
+        if (!eventUpdateMap.isEmpty()) {
+            batch.update(eventsRef.document(eventID.toString()), eventUpdateMap);
         }
-        // Remove their location as well.
-        updateMap.put(FieldPath.of("entrantLocations", email), FieldValue.delete());
-
-        WriteBatch batch = db.batch();
-        // Why the hell does the Java firestore SDK not have `listDocuments`???
-        // There's no need to get the whole document for all of them...
-        return promise(eventEntrantsRef.get()).then(qs -> {
-            for (var doc : qs) {
-                fieldPathUpdate(batch, doc.getReference(), updateMap);
-            }
-            return promise(batch.commit());
-        });
     }
 
     /**
@@ -482,30 +1319,49 @@ public Promise<Void> removeUserFromEvents(String email) {
      */
     @TestOnly
     public Promise<Void> nuke() {
-        return promise(eventsRef.get())
-                .with(promise(eventEntrantsRef.get()))
-                .map(pair -> {
-                    final var eventDocs = pair.first;
-                    final var eventEntrantDocs = pair.second;
-                    return Stream.concat(
-                            eventDocs.getDocuments().stream(),
-                            eventEntrantDocs.getDocuments().stream());
-                })
-                .then(docs -> {
-                    WriteBatch batch = FirebaseFirestore.getInstance().batch();
-                    docs.forEach(doc -> batch.delete(doc.getReference()));
+        eventCache.invalidateAll();
+        final var events = promise(eventsRef.get());
+        final var eventEntrants = promise(eventEntrantsRef.get());
+        // Deleting a document does not delete its subcollections, go through those directly.
+        final var entrants = promise(db.collectionGroup(ENTRANTS_COLL).get());
+        final var enrollShards = promise(db.collectionGroup(ENROLL_SHARDS_COLL).get());
+        final var enrollRequests = promise(db.collectionGroup(ENROLL_REQUESTS_COLL).get());
+        return Promise.all(events, eventEntrants, entrants, enrollShards, enrollRequests)
+                .then(allDocs -> {
+                    WriteBatch batch = db.batch();
+                    for (var docs : allDocs) {
+                        for (var doc : docs) {
+                            batch.delete(doc.getReference());
+                        }
+                    }
                     return promise(batch.commit());
                 });
     }
 
-    // Helper for parsing a QuerySnapshot yielding task.
-    private Promise<List<Event>> parseQuerySnapShots(Task<QuerySnapshot> task) {
-        return promise(task).map(querySnapshot -> querySnapshot.getDocuments().stream()
-                .map(EventsDB::getEventFromSnapshot)
+    // Helper for parsing the entrants within a QuerySnapshot.
+    private static List<Entrant> parseEntrants(QuerySnapshot querySnapshot) {
+        return querySnapshot.getDocuments().stream()
+                .map(EventsDB::getEntrantFromSnapshot)
+                .flatMap(Optional::stream)
+                .collect(Collectors.toList());
+    }
+
+
+    // Helper for running a query and parsing the events it yields.
+    private Promise<List<Event>> parseQuerySnapShots(Query query) {
+        final var parse = cachingParser();
+        return promise(query.get()).map(querySnapshot -> querySnapshot.getDocuments().stream()
+                .map(parse)
                 .flatMap(Optional::stream)
                 .collect(Collectors.toList()));
     }
 
+    // Helper for fetching a single page of events off of an ordered query.
+    private Promise<Page<Event>> fetchPage(
+            Query orderedQuery, int pageSize, Optional<Page.Token> after) {
+        return Page.fetch(orderedQuery, pageSize, after, cachingParser());
+    }
+
     /**
      * Uploads a selected poster to firebase
      * @param eventID the eventID of the poster.
@@ -513,17 +1369,19 @@ private Promise<List<Event>> parseQuerySnapShots(Task<QuerySnapshot> task) {
      * @return a promise of the upload task
      */
     public Promise<Void> storePoster(UUID eventID, Uri uri) {
+        final var span = Tracing.start("EventsDB.storePoster");
         StorageReference imageRef = storageRef.child("posters/" + eventID.toString());
 
         // Stores the file in the database. Since the TaskSnapshot is not used, it is mapped to null
         // to return a Promise<Void>
         var posterStorageTask = imageRef.putFile(uri);
-        return promise(posterStorageTask).map(taskSnapshot -> null);
+        return span.end(promise(posterStorageTask).map(taskSnapshot -> null));
     }
 
     // Delete the event associated poster if it exists. Ignore otherwise.
     public Promise<Void> deletePoster(UUID eventID) {
-        return promise(getPosterStorageRef(eventID).delete().continueWith(res -> {
+        final var span = Tracing.start("EventsDB.deletePoster");
+        final Task<Void> deletion = getPosterStorageRef(eventID).delete().continueWith(res -> {
             final var exc = res.getException();
             if (exc == null) {
                 return null;
@@ -533,7 +1391,8 @@ public Promise<Void> deletePoster(UUID eventID) {
                 return null;
             }
             throw exc;
-        }));
+        });
+        return span.end(promise(deletion));
     }
 
     /**
@@ -541,9 +1400,11 @@ public Promise<Void> deletePoster(UUID eventID) {
      * @return A promise of a map of eventID's to posters.
      */
     public Promise<Map<UUID, StorageReference>> fetchAllPosters() {
+        final var span = Tracing.start("EventsDB.fetchAllPosters");
         StorageReference postersRef = storageRef.child("posters/");
 
-        return promise(postersRef.listAll()).map(listResult -> {
+        final var listing = promise(postersRef.listAll());
+        final Promise<Map<UUID, StorageReference>> posters = listing.map(listResult -> {
             // Creates map, and gets items from the list.
             Map<UUID, StorageReference> dict = new HashMap<>();
             List<StorageReference> imageRefs = listResult.getItems();
@@ -556,6 +1417,7 @@ public Promise<Map<UUID, StorageReference>> fetchAllPosters() {
 
             return dict;
         });
+        return span.end(posters, Map::size);
     }
 
     /**
@@ -568,62 +1430,4 @@ public StorageReference getPosterStorageRef(UUID eventID) {
         // https://firebase.google.com/docs/storage/android/download-files?_gl=1
         return storageRef.child("posters/" + eventID.toString());
     }
-
-    // Update using map of FieldPath to object.
-    // For some god forsaken reason, this doesn't already exist in firestore's Java SDK.
-    private static Promise<Void> fieldPathUpdate(
-            DocumentReference docRef, Map<FieldPath, Object> updater) {
-        if (updater.isEmpty()) {
-            return Promise.of(null);
-        }
-        final var arr = flattenMapEntries(updater);
-        // If there is at least one element in the map, the array length must be 2.
-        final var firstFieldPath = (FieldPath) arr[0];
-        final var firstFieldVal = arr[1];
-        return promise(docRef.update(
-                firstFieldPath, firstFieldVal, Arrays.copyOfRange(arr, 2, arr.length)));
-    }
-
-    // Like above, but for transactions.
-    // Yes this could easily be CSEd with lambdas but java lambdas suck.
-    private static Transaction fieldPathUpdate(
-            Transaction tx, DocumentReference doc, Map<FieldPath, Object> updater) {
-        if (updater.isEmpty()) {
-            return tx;
-        }
-        final var arr = flattenMapEntries(updater);
-        // If there is at least one element in the map, the array length must be 2.
-        final var firstFieldPath = (FieldPath) arr[0];
-        final var firstFieldVal = arr[1];
-        return tx.update(
-                doc, firstFieldPath, firstFieldVal, Arrays.copyOfRange(arr, 2, arr.length));
-    }
-
-    // Like above, but for batches.
-    // Yes this could easily be CSEd with lambdas but java lambdas suck.
-    private static WriteBatch fieldPathUpdate(
-            WriteBatch batch, DocumentReference doc, Map<FieldPath, Object> updater) {
-        if (updater.isEmpty()) {
-            return batch;
-        }
-        final var arr = flattenMapEntries(updater);
-        // If there is at least one element in the map, the array length must be 2.
-        final var firstFieldPath = (FieldPath) arr[0];
-        final var firstFieldVal = arr[1];
-        return batch.update(
-                doc, firstFieldPath, firstFieldVal, Arrays.copyOfRange(arr, 2, arr.length));
-    }
-
-    private static <T, V> Object[] flattenMapEntries(Map<T, V> m) {
-        final var entries = new ArrayList<>(m.entrySet());
-        // Two elements per entry (key and value).
-        final var res = new Object[entries.size() * 2];
-        for (int i = 0; i < entries.size(); i++) {
-            final var entry = entries.get(i);
-            final var arrayIx = i * 2;
-            res[arrayIx] = entry.getKey();
-            res[arrayIx + 1] = entry.getValue();
-        }
-        return res;
-    }
 }
@@ -3,12 +3,15 @@
 import static com.example.evently.data.generic.Promise.promise;
 import static com.example.evently.data.generic.PromiseOpt.promiseOpt;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -16,38 +19,55 @@
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
 import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
 import com.google.firebase.firestore.WriteBatch;
 import org.jetbrains.annotations.TestOnly;
 
+import com.example.evently.data.generic.ChunkedQuery;
+import com.example.evently.data.generic.Page;
+import com.example.evently.data.generic.PagedDelete;
 import com.example.evently.data.generic.Promise;
 import com.example.evently.data.generic.PromiseOpt;
+import com.example.evently.data.generic.RetryPolicy;
+import com.example.evently.data.generic.Tracing;
 import com.example.evently.data.model.Event;
-import com.example.evently.data.model.EventEntrants;
+import com.example.evently.data.model.EntrantStatus;
 import com.example.evently.data.model.Notification;
 
 public class NotificationDB {
     /**
-     * Helper for fetchUserNotifications down below.
-     * @param notifications Notifications obtained from DB.
-     * @param eventEntrants EventEntrants associated to the events.
-     * @param eventMap EventID to Event mapping.
+     * Default maximum number of notifications yielded by {@link #fetchUserNotifications(String)}.
      */
-    private record EventNotificationsInfo(
-            QuerySnapshot notifications,
-            List<EventEntrants> eventEntrants,
-            Map<String, Event> eventMap) {}
-    ;
+    public static final int DEFAULT_USER_NOTIFICATION_LIMIT = 100;
 
+    /**
+     * Default number of notifications within a page of the inbox.
+     */
+    public static final int DEFAULT_INBOX_PAGE_SIZE = 30;
+
+    // How long a single attempt at fetching a page of the inbox may take.
+    private static final Duration INBOX_PAGE_TIMEOUT = Duration.ofSeconds(10);
+
+    // Number of inbox items marked as seen within a single transaction.
+    private static final int MARK_SEEN_CHUNK_SIZE = 100;
+
+    // Number of inbox items deleted within a single transaction. Each may also update its inbox.
+    private static final int INBOX_DELETE_PAGE_SIZE = MARK_SEEN_CHUNK_SIZE;
+
+    private final FirebaseFirestore db;
     private final CollectionReference notificationsRef;
+    private final CollectionReference inboxesRef;
 
     public NotificationDB() {
-        FirebaseFirestore db = FirebaseFirestore.getInstance();
+        db = FirebaseFirestore.getInstance();
         notificationsRef = db.collection("notifications");
+        inboxesRef = db.collection("inboxes");
     }
 
     /**
@@ -56,32 +76,147 @@ public NotificationDB() {
      * @param notification The notification to be stored.
      */
     public Promise<Void> storeNotification(Notification notification) {
+        final var span = Tracing.start("NotificationDB.storeNotification");
         // Gets notification id
         String notification_id = notification.id().toString();
         DocumentReference docRef = notificationsRef.document(notification_id);
         // Stores the notification in the DB.
-        return promise(docRef.set(notification.toHashMap()));
+        return span.end(promise(docRef.set(notification.toHashMap())));
     }
 
     /**
      * Mark a notification as seen by given email.
+     * <p>
+     * The seen state lives within the user's own inbox, so this never contends with other users seeing
+     * the same notification. Does nothing if the notification is already seen, or not delivered yet.
      * @param notificationID Notification ID target.
      * @param email User target.
      * @return Promise.
      */
     public Promise<Void> markSeen(UUID notificationID, String email) {
-        final var updateMap = new HashMap<String, Object>();
-        updateMap.put("seenBy", FieldValue.arrayUnion(email));
-        return promise(notificationsRef.document(notificationID.toString()).update(updateMap));
+        final var span = Tracing.start("NotificationDB.markSeen");
+        return span.end(markSeen(email, List.of(inboxItemRef(email, notificationID))));
+    }
+
+    /**
+     * Mark all the notifications within the user's inbox as seen.
+     * <p>
+     * The notifications are marked a chunk at a time, one chunk after the other. As such, this is
+     * not atomic as a whole.
+     * @param email User target.
+     * @return Promise.
+     */
+    public Promise<Void> markAllSeen(String email) {
+        final var span = Tracing.start("NotificationDB.markAllSeen");
+        final var unseen = promise(inboxItemsRef(email).whereEqualTo("seen", false).get());
+        final Promise<Void> marked = unseen.then(qs -> {
+            final var itemRefs = qs.getDocuments().stream()
+                    .map(DocumentSnapshot::getReference)
+                    .collect(Collectors.toList());
+            // The chunks all update the same unread count. Run them in sequence to avoid contention.
+            Promise<Void> res = Promise.of(null);
+            for (final var chunk : ChunkedQuery.chunk(itemRefs, MARK_SEEN_CHUNK_SIZE)) {
+                res = res.then(x -> markSeen(email, chunk));
+            }
+            return res;
+        });
+        return span.end(marked);
+    }
+
+    // Mark the given inbox items as seen and update the unread count, in one transaction.
+    private Promise<Void> markSeen(String email, List<DocumentReference> itemRefs) {
+        final var inboxRef = inboxesRef.document(email);
+        return promise(db.runTransaction(tx -> {
+            final var unseenRefs = new ArrayList<DocumentReference>();
+            for (final var itemRef : itemRefs) {
+                final var item = tx.get(itemRef);
+                // Skip items not delivered yet or already seen.
+                if (item.exists() && !Objects.requireNonNullElse(item.getBoolean("seen"), false)) {
+                    unseenRefs.add(itemRef);
+                }
+            }
+            if (unseenRefs.isEmpty()) {
+                return null;
+            }
+
+            for (final var itemRef : unseenRefs) {
+                tx.update(itemRef, "seen", true);
+            }
+            final var inboxUpdateMap = new HashMap<String, Object>();
+            inboxUpdateMap.put("unreadCount", FieldValue.increment(-unseenRefs.size()));
+            tx.set(inboxRef, inboxUpdateMap, SetOptions.merge());
+            return null;
+        }));
     }
 
     /**
-     * Creates a notification from a QueryDocumentSnapshot
+     * Check whether a notification within the user's inbox has been seen.
+     * @param notificationID Notification ID target.
+     * @param email User target.
+     * @return Promise yielding false if the notification is unseen or not delivered yet.
+     */
+    public Promise<Boolean> hasSeen(UUID notificationID, String email) {
+        final var span = Tracing.start("NotificationDB.hasSeen");
+        final Promise<Boolean> seen = promise(inboxItemRef(email, notificationID).get())
+                .map(item -> Objects.requireNonNullElse(item.getBoolean("seen"), false));
+        return span.end(seen);
+    }
+
+    /**
+     * Fetch the number of unseen notifications within the user's inbox.
+     * This is maintained as notifications are delivered and seen, so it's a single document read.
+     * @param email User target.
+     * @return Promise yielding the unread count.
+     */
+    public Promise<Long> fetchUnreadCount(String email) {
+        final var span = Tracing.start("NotificationDB.fetchUnreadCount");
+        final Promise<Long> unreadCount = promise(inboxesRef.document(email).get())
+                .map(inbox -> Math.max(
+                        0L, Objects.requireNonNullElse(inbox.getLong("unreadCount"), 0L)));
+        return span.end(unreadCount);
+    }
+
+    /**
+     * Fetches a page of the user's inbox, newest first.
+     * <p>
+     * The inbox is materialized by the backend as each notification is sent, with channels already resolved.
+     * Thus, this is a single query regardless of how many events the user has joined.
+     * @param email The user's email
+     * @param pageSize Maximum number of notifications within the page.
+     * @param after Token of the previous page, or empty for the first page.
+     * @return The page of notifications.
+     */
+    public Promise<Page<Notification>> fetchInbox(
+            String email, int pageSize, Optional<Page.Token> after) {
+        final var span = Tracing.start("NotificationDB.fetchInbox");
+        // A slow or failing read is given up on and tried again, rather than left hanging.
+        final Promise<Page<Notification>> inboxPage = Promise.retry(
+                RetryPolicy.DEFAULT,
+                () -> Page.fetch(
+                                inboxItemsRef(email)
+                                        .orderBy("creationTime", Query.Direction.DESCENDING),
+                                pageSize,
+                                after,
+                                snapshot -> parseInboxItemSnapshot(snapshot, email))
+                        .timeout(INBOX_PAGE_TIMEOUT));
+        return span.end(inboxPage, page -> page.items().size());
+    }
+
+    private CollectionReference inboxItemsRef(String email) {
+        return inboxesRef.document(email).collection("items");
+    }
+
+    private DocumentReference inboxItemRef(String email, UUID notificationID) {
+        return inboxItemsRef(email).document(notificationID.toString());
+    }
+
+    /**
+     * Creates a notification from an existing DocumentSnapshot
      *
-     * @param snapshot The queryDocumentSnapshot for the notification
-     * @return A notification from the QueryDocumentSnapshot.
+     * @param snapshot The documentSnapshot for the notification
+     * @return A notification from the DocumentSnapshot.
      */
-    private static Notification notificationFromQuerySnapshot(QueryDocumentSnapshot snapshot) {
+    private static Notification notificationFromSnapshot(DocumentSnapshot snapshot) {
         ArrayList<String> seenByList = (ArrayList<String>) snapshot.get("seenBy");
 
         return new Notification(
@@ -100,13 +235,15 @@ private static Notification notificationFromQuerySnapshot(QueryDocumentSnapshot
      * a user's notifications.
      */
     public Promise<List<Notification>> fetchAllNotifications() {
+        final var span = Tracing.start("NotificationDB.fetchAllNotifications");
 
         // The following line of code is partially from the firebase query-data order-limit-data
         // docs: https://firebase.google.com/docs/firestore/query-data/order-limit-data
-        return promise(notificationsRef
+        final Promise<List<Notification>> notifications = promise(notificationsRef
                         .orderBy("creationTime", Query.Direction.DESCENDING)
                         .get())
                 .map(NotificationDB::parseQuerySnapshot);
+        return span.end(notifications, List::size);
     }
 
     /**
@@ -117,11 +254,13 @@ public Promise<List<Notification>> fetchAllNotifications() {
      */
     public Promise<List<Notification>> fetchEventNotifications(
             UUID eventID, Notification.Channel channel) {
-        return promise(notificationsRef
+        final var span = Tracing.start("NotificationDB.fetchEventNotifications");
+        final Promise<List<Notification>> notifications = promise(notificationsRef
                         .whereEqualTo("eventId", eventID.toString())
                         .whereEqualTo("channel", channel.toString())
                         .get())
                 .map(NotificationDB::parseQuerySnapshot);
+        return span.end(notifications, List::size);
     }
 
     /**
@@ -129,12 +268,14 @@ public Promise<List<Notification>> fetchEventNotifications(
      * @param eventID     The event being searched for notifications.
      */
     public Promise<List<Notification>> fetchEventNotifications(UUID eventID) {
+        final var span = Tracing.start("NotificationDB.fetchEventNotifications");
 
         // Gets the notifications for an event
-        return promise(notificationsRef
+        final Promise<List<Notification>> notifications = promise(notificationsRef
                         .whereEqualTo("eventId", eventID.toString())
                         .get())
                 .map(NotificationDB::parseQuerySnapshot);
+        return span.end(notifications, List::size);
     }
 
     /**
@@ -143,9 +284,11 @@ public Promise<List<Notification>> fetchEventNotifications(UUID eventID) {
      * @return Reference to the concurrent task yielding to an account (if found).
      */
     public PromiseOpt<Notification> fetchNotification(UUID notificationID) {
-        return promiseOpt(
+        final var span = Tracing.start("NotificationDB.fetchNotification");
+        final PromiseOpt<Notification> notification = promiseOpt(
                 promise(notificationsRef.document(notificationID.toString()).get())
                         .map(NotificationDB::parseDocumentSnapshot));
+        return span.end(notification);
     }
 
     /**
@@ -153,10 +296,12 @@ public PromiseOpt<Notification> fetchNotification(UUID notificationID) {
      * @param organizer The organizer of the events which have sent notifications
      */
     public Promise<List<Notification>> fetchNotificationsByOrganizer(String organizer) {
+        final var span = Tracing.start("NotificationDB.fetchNotificationsByOrganizer");
         EventsDB eventsDB = new EventsDB();
 
         // Fetches event by organizers
-        return eventsDB.fetchEventsByOrganizers(organizer)
+        final Promise<List<Notification>> notifications = eventsDB
+                .fetchEventsByOrganizers(organizer)
                 .then(eventCollection -> {
                     // Adds fetched eventID's to a list.
                     if (eventCollection.isEmpty()) {
@@ -171,97 +316,161 @@ public Promise<List<Notification>> fetchNotificationsByOrganizer(String organize
                     return promise(notificationsRef.whereIn("eventId", eventIDs).get());
                 })
                 .map(NotificationDB::parseQuerySnapshot);
+        return span.end(notifications, List::size);
     }
 
     /**
-     * Fetches user notifications
+     * Fetches the most recent user notifications, newest first.
      * @param email The user's email
+     * @see #fetchUserNotifications(String, int)
      */
     public Promise<List<Notification>> fetchUserNotifications(String email) {
+        return fetchUserNotifications(email, DEFAULT_USER_NOTIFICATION_LIMIT);
+    }
+
+    /**
+     * Fetches the most recent user notifications, newest first.
+     * <p>
+     * Notifications are queried in chunks of events, each yielding at most {@code limit} of its most recent
+     * notifications to the user, which are then merged.
+     * @param email The user's email
+     * @param limit Maximum number of notifications to yield.
+     */
+    public Promise<List<Notification>> fetchUserNotifications(String email, int limit) {
+        final var span = Tracing.start("NotificationDB.fetchUserNotifications");
         EventsDB eventsDB = new EventsDB();
 
-        return eventsDB.fetchEventsByEnrolled(email)
-                .thenWith(eventList -> eventsDB.fetchEventsEntrants(
-                        eventList.stream().map(Event::eventID).collect(Collectors.toList())))
+        final Promise<List<Notification>> notifications = eventsDB.fetchEventsByEnrolled(email)
+                .with(eventsDB.fetchEntrantsByEmail(email))
                 .then(pair -> {
                     final var events = pair.first;
-                    final var eventEntrantsList = pair.second;
+                    final var entrants = pair.second;
 
                     // Construct an eventID to event map for use later.
                     final Map<String, Event> eventMap = events.stream()
                             .collect(Collectors.toMap(x -> x.eventID().toString(), x -> x));
 
-                    if (events.isEmpty()) {
-                        // TRAP: There is unfortunately no way to return an empty list as query
-                        // snapshot....
-                        return Promise.of(
-                                new EventNotificationsInfo(null, eventEntrantsList, eventMap));
-                    }
-
-                    // Gets the notifications for the events a user has enrolled..
-                    // TODO (chase): Fix this whereIn. It only supports max 30 eventIds.
-                    return promise(notificationsRef
-                                    // Note: Must be a list of strings.
-                                    .whereIn("eventId", new ArrayList<>(eventMap.keySet()))
-                                    .get())
-                            .map(res ->
-                                    new EventNotificationsInfo(res, eventEntrantsList, eventMap));
-                })
-                .map(eventNotificationsInfo -> {
-                    final var allDocsSnapshot = eventNotificationsInfo.notifications;
-                    final var eventEntrantsList = eventNotificationsInfo.eventEntrants;
-                    final var eventMap = eventNotificationsInfo.eventMap;
-
-                    final var notifications = new ArrayList<Notification>();
-                    // This check is needed due to the scenario above.
-                    if (allDocsSnapshot == null) {
-                        return notifications;
-                    }
-
                     // Tracking which channel "state" an entrant satisfied for an event.
                     // Note: All entrants satisfy the "all" channel state. This is not
                     // tracked separately.
                     final var now = Instant.now();
                     HashMap<UUID, Notification.Channel> entrantChannelInEvent = new HashMap<>();
-                    for (final var eventEntrants : eventEntrantsList) {
-                        final var event = eventMap.get(eventEntrants.eventID().toString());
-                        assert event != null;
+                    for (final var entrant : entrants) {
+                        final var event = eventMap.get(entrant.eventID().toString());
+                        if (event == null) {
+                            // The event is gone, and so are its notifications.
+                            continue;
+                        }
                         final var selectionTime = event.selectionTime().toInstant();
 
-                        if (eventEntrants.selected().contains(email)) {
+                        if (entrant.status().isSelected()) {
                             entrantChannelInEvent.put(
-                                    eventEntrants.eventID(), Notification.Channel.Winners);
-                        } else if (selectionTime.isBefore(now)) {
+                                    entrant.eventID(), Notification.Channel.Winners);
+                        } else if (entrant.status() == EntrantStatus.Cancelled) {
                             entrantChannelInEvent.put(
-                                    eventEntrants.eventID(), Notification.Channel.Losers);
-                        }
-                        if (eventEntrants.cancelled().contains(email)) {
+                                    entrant.eventID(), Notification.Channel.Cancelled);
+                        } else if (selectionTime.isBefore(now)) {
                             entrantChannelInEvent.put(
-                                    eventEntrants.eventID(), Notification.Channel.Cancelled);
+                                    entrant.eventID(), Notification.Channel.Losers);
                         }
                     }
 
-                    // Adds each notification to the notifications list if
-                    // it is the
-                    // correct channel
-                    for (QueryDocumentSnapshot documentSnapshot : allDocsSnapshot) {
-                        if (documentSnapshot.exists()) {
-
-                            // Adds the notification list if the message is
-                            // to all event
-                            // participants or if the user is a member of a
-                            // certain
-                            // Channel.
-                            Notification n = notificationFromQuerySnapshot(documentSnapshot);
-                            if (n.channel() == Notification.Channel.All
-                                    || n.channel() == entrantChannelInEvent.get(n.eventId())) {
-                                notifications.add(n);
-                            }
-                        }
-                    }
+                    // Gets the most recent notifications for the events a user has enrolled,
+                    // 30 events at a time. Only those either to all event participants, or to a
+                    // channel the user is a member of, are kept. Each chunk is paged through
+                    // until it has kept enough of them.
+                    return ChunkedQuery.whereInMatching(
+                            notificationsRef.orderBy("creationTime", Query.Direction.DESCENDING),
+                            FieldPath.of("eventId"),
+                            // Note: Must be a list of strings.
+                            new ArrayList<>(eventMap.keySet()),
+                            ChunkedQuery.DEFAULT_CONCURRENCY,
+                            doc -> Optional.of(notificationFromSnapshot(doc))
+                                    .filter(n -> n.channel() == Notification.Channel.All
+                                            || n.channel()
+                                                    == entrantChannelInEvent.get(n.eventId())),
+                            limit);
+                })
+                // Each chunk is already sorted newest first.
+                .map(sortedChunks -> ChunkedQuery.mergeSorted(
+                        sortedChunks,
+                        Comparator.comparing(Notification::creationTime).reversed(),
+                        limit));
+        return span.end(notifications, List::size);
+    }
+
+    /**
+     * Delete the notifications of an event, alongside their deliveries within every inbox.
+     * <p>
+     * Everything is deleted a page at a time, and unread counts are kept consistent with the
+     * remaining inbox items, even while they are being marked as seen. Deleting the same event
+     * again resumes a previous, failed, deletion.
+     * @param eventID Event target.
+     * @return Promise.
+     */
+    public Promise<Void> deleteEventNotifications(UUID eventID) {
+        final var span = Tracing.start("NotificationDB.deleteEventNotifications");
+        final var eventIDStr = eventID.toString();
+        // Deliveries go first, so a failure never leaves inbox items without their notification.
+        final var inboxItems = db.collectionGroup("items").whereEqualTo("eventId", eventIDStr);
+        final Promise<Void> deleted = deleteInboxItems(inboxItems)
+                .then(x -> PagedDelete.deleteAll(
+                        db, notificationsRef.whereEqualTo("eventId", eventIDStr)))
+                .map(x -> null);
+        return span.end(deleted);
+    }
+
+    /**
+     * Delete the inbox of a user, alongside all of its items.
+     * @param email User target.
+     * @return Promise.
+     */
+    public Promise<Void> deleteInbox(String email) {
+        final var span = Tracing.start("NotificationDB.deleteInbox");
+        final Promise<Void> deleted = PagedDelete.deleteAll(db, inboxItemsRef(email))
+                .then(x -> promise(inboxesRef.document(email).delete()));
+        return span.end(deleted);
+    }
+
+    // Delete every inbox item matched by the query, a page at a time.
+    private Promise<Void> deleteInboxItems(Query items) {
+        return promise(items.limit(INBOX_DELETE_PAGE_SIZE).get()).then(qs -> {
+            if (qs.isEmpty()) {
+                return Promise.of(null);
+            }
+            final var itemRefs = qs.getDocuments().stream()
+                    .map(DocumentSnapshot::getReference)
+                    .collect(Collectors.toList());
+            return deleteInboxItems(itemRefs).then(x -> deleteInboxItems(items));
+        });
+    }
+
+    // Delete the given inbox items and drop the unseen ones from the unread counts of their inboxes,
+    // in one transaction. Whether an item is seen is read within the transaction, so an item being
+    // marked as seen meanwhile is never taken off the count twice.
+    private Promise<Void> deleteInboxItems(List<DocumentReference> itemRefs) {
+        return promise(db.runTransaction(tx -> {
+            final var deletedRefs = new ArrayList<DocumentReference>();
+            final var unseenPerInbox = new HashMap<DocumentReference, Long>();
+            for (final var itemRef : itemRefs) {
+                final var item = tx.get(itemRef);
+                // Skip items deleted in the meantime.
+                if (!item.exists()) continue;
+                deletedRefs.add(itemRef);
+                if (!Objects.requireNonNullElse(item.getBoolean("seen"), false)) {
+                    final var inboxRef = Objects.requireNonNull(itemRef.getParent().getParent());
+                    unseenPerInbox.merge(inboxRef, 1L, Long::sum);
+                }
+            }
 
-                    return notifications;
-                });
+            deletedRefs.forEach(tx::delete);
+            unseenPerInbox.forEach((inboxRef, unseen) -> {
+                final var inboxUpdateMap = new HashMap<String, Object>();
+                inboxUpdateMap.put("unreadCount", FieldValue.increment(-unseen));
+                tx.set(inboxRef, inboxUpdateMap, SetOptions.merge());
+            });
+            return null;
+        }));
     }
 
     /**
@@ -270,13 +479,19 @@ public Promise<List<Notification>> fetchUserNotifications(String email) {
      */
     @TestOnly
     public Promise<Void> nuke() {
-        return promise(notificationsRef.get().onSuccessTask(docs -> {
-            WriteBatch batch = FirebaseFirestore.getInstance().batch();
-            for (var doc : docs) {
-                batch.delete(doc.getReference());
+        final var notifications = promise(notificationsRef.get());
+        final var inboxes = promise(inboxesRef.get());
+        // Deleting an inbox document does not delete its subcollection, go through the items directly.
+        final var inboxItems = promise(db.collectionGroup("items").get());
+        return Promise.all(notifications, inboxes, inboxItems).then(allDocs -> {
+            WriteBatch batch = db.batch();
+            for (var docs : allDocs) {
+                for (var doc : docs) {
+                    batch.delete(doc.getReference());
+                }
             }
-            return batch.commit();
-        }));
+            return promise(batch.commit());
+        });
     }
 
     private static List<Notification> parseQuerySnapshot(QuerySnapshot snapshot) {
@@ -289,12 +504,34 @@ private static List<Notification> parseQuerySnapshot(QuerySnapshot snapshot) {
         // Adds each notification to the notifications list
         for (QueryDocumentSnapshot documentSnapshot : snapshot) {
             if (documentSnapshot.exists()) {
-                notifications.add(notificationFromQuerySnapshot(documentSnapshot));
+                notifications.add(notificationFromSnapshot(documentSnapshot));
             }
         }
         return notifications;
     }
 
+    // The inbox item only tracks whether its owner has seen it. Represent that with seenBy.
+    private static Optional<Notification> parseInboxItemSnapshot(
+            DocumentSnapshot snapshot, String email) {
+        if (!snapshot.exists()) {
+            return Optional.empty();
+        }
+        final var seenBy = new HashSet<String>();
+        if (Objects.requireNonNullElse(snapshot.getBoolean("seen"), false)) {
+            seenBy.add(email);
+        }
+
+        return Optional.of(new Notification(
+                UUID.fromString(snapshot.getId()),
+                UUID.fromString(snapshot.getString("eventId")),
+                // Converts the channel back to an ENUM.
+                Notification.Channel.valueOf(snapshot.getString("channel")),
+                snapshot.getString("title"),
+                snapshot.getString("description"),
+                snapshot.getTimestamp("creationTime").toInstant(),
+                seenBy));
+    }
+
     private static Optional<Notification> parseDocumentSnapshot(DocumentSnapshot snapshot) {
 
         if (!snapshot.exists()) {
@@ -0,0 +1,179 @@
+package com.example.evently.data.generic;
+
+import static com.example.evently.data.generic.Promise.promise;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+/**
+ * Helpers for running {@code whereIn} queries over arbitrarily many values.
+ * <p>
+ * Firestore caps {@link Query#whereIn} at {@value #MAX_WHERE_IN} values. These helpers split the values into
+ * chunks, run one query per chunk (a few at a time), and merge the results.
+ */
+public final class ChunkedQuery {
+    /**
+     * Maximum number of values firestore accepts within a single whereIn filter.
+     */
+    public static final int MAX_WHERE_IN = 30;
+
+    /**
+     * Default number of chunk queries allowed to be in flight at once.
+     */
+    public static final int DEFAULT_CONCURRENCY = 4;
+
+    private ChunkedQuery() {}
+
+    /**
+     * Split a list into consecutive sublists of at most the given size.
+     * @param items The list to split.
+     * @param size Maximum size of each chunk.
+     * @return The chunks, in order. Empty if there are no items.
+     * @param <T> Type of the items.
+     */
+    public static <T> List<List<T>> chunk(List<T> items, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + size);
+        }
+        final var chunks = new ArrayList<List<T>>();
+        for (int i = 0; i < items.size(); i += size) {
+            chunks.add(items.subList(i, Math.min(i + size, items.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * Run a query filtered by {@code field in values}, for any number of values.
+     * @param query Base query (may include other filters, ordering, or a limit applied per chunk).
+     * @param field The field to filter on. e.g {@link FieldPath#documentId()}.
+     * @param values Values to match. Duplicates should be removed beforehand.
+     * @param concurrency Maximum number of chunk queries in flight at once.
+     * @return Results of each chunk query, in chunk order.
+     */
+    public static Promise<List<List<DocumentSnapshot>>> whereIn(
+            Query query, FieldPath field, List<?> values, int concurrency) {
+        return Promise.mapConcurrent(
+                chunk(values, MAX_WHERE_IN),
+                concurrency,
+                chunk -> promise(query.whereIn(field, new ArrayList<>(chunk)).get())
+                        .map(QuerySnapshot::getDocuments));
+    }
+
+    /**
+     * Run a query filtered by {@code field in values}, for any number of values, keeping only the
+     * documents that pass a further filter firestore cannot apply itself.
+     * <p>
+     * Each chunk query is paged through until it has kept {@code limit} documents, or runs out. A
+     * chunk whose documents are mostly filtered out thus still yields all it can, up to the limit.
+     * @param query Base query, ordered. It must not have a limit of its own.
+     * @param field The field to filter on.
+     * @param values Values to match. Duplicates should be removed beforehand.
+     * @param concurrency Maximum number of chunk queries in flight at once.
+     * @param keep Parses a document, or yields empty to filter it out.
+     * @param limit Maximum number of documents to keep per chunk.
+     * @return Kept documents of each chunk query, in query order, in chunk order.
+     * @param <T> Type of the parsed documents.
+     */
+    public static <T> Promise<List<List<T>>> whereInMatching(
+            Query query,
+            FieldPath field,
+            List<?> values,
+            int concurrency,
+            Function<DocumentSnapshot, Optional<T>> keep,
+            int limit) {
+        return Promise.mapConcurrent(
+                chunk(values, MAX_WHERE_IN),
+                concurrency,
+                chunk -> fetchMatching(
+                        query.whereIn(field, new ArrayList<>(chunk)),
+                        keep,
+                        limit,
+                        Optional.empty(),
+                        new ArrayList<>()));
+    }
+
+    // Fetch the page following the given document, and carry on until enough documents are kept.
+    private static <T> Promise<List<T>> fetchMatching(
+            Query query,
+            Function<DocumentSnapshot, Optional<T>> keep,
+            int limit,
+            Optional<DocumentSnapshot> after,
+            List<T> kept) {
+        final var page = after.map(query::startAfter).orElse(query).limit(limit);
+        return promise(page.get()).then(snapshot -> {
+            final var docs = snapshot.getDocuments();
+            for (final var doc : docs) {
+                keep.apply(doc).ifPresent(kept::add);
+                if (kept.size() >= limit) return Promise.of(kept);
+            }
+            if (docs.size() < limit) {
+                // Nothing left to page through.
+                return Promise.of(kept);
+            }
+            return fetchMatching(query, keep, limit, Optional.of(docs.get(docs.size() - 1)), kept);
+        });
+    }
+
+    /**
+     * Fetch documents by ID, for any number of IDs.
+     * @param query Base query, usually a collection reference.
+     * @param ids Document IDs to fetch.
+     * @param parse Parser for the documents. Documents that fail to parse are skipped.
+     * @return The parsed documents, in the order of the given IDs. Missing documents are skipped.
+     * @param <T> Type of the parsed documents.
+     */
+    public static <T> Promise<List<T>> fetchByIds(
+            Query query, List<String> ids, Function<DocumentSnapshot, Optional<T>> parse) {
+        final var distinctIds = ids.stream().distinct().collect(Collectors.toList());
+        return whereIn(query, FieldPath.documentId(), distinctIds, DEFAULT_CONCURRENCY)
+                .map(chunks -> {
+                    // Chunk results come back in document ID order, restore the caller's order.
+                    final var byId = chunks.stream()
+                            .flatMap(List::stream)
+                            .collect(Collectors.toMap(DocumentSnapshot::getId, doc -> doc));
+                    return distinctIds.stream()
+                            .flatMap(id -> Optional.ofNullable(byId.get(id)).stream())
+                            .map(parse)
+                            .flatMap(Optional::stream)
+                            .collect(Collectors.toList());
+                });
+    }
+
+    /**
+     * Merge lists that are each sorted by the given order into one sorted list.
+     * @param sortedLists Lists to merge. Each must already be sorted by {@code order}.
+     * @param order Order of the items.
+     * @param limit Maximum number of items to yield.
+     * @return The first {@code limit} items of all the lists, in order.
+     * @param <T> Type of the items.
+     */
+    public static <T> List<T> mergeSorted(
+            List<List<T>> sortedLists, Comparator<T> order, int limit) {
+        // Each entry is a list index and a position within that list.
+        final var heads = new PriorityQueue<int[]>(Math.max(1, sortedLists.size()), (a, b) ->
+                order.compare(sortedLists.get(a[0]).get(a[1]), sortedLists.get(b[0]).get(b[1])));
+        for (int i = 0; i < sortedLists.size(); i++) {
+            if (!sortedLists.get(i).isEmpty()) heads.add(new int[] {i, 0});
+        }
+
+        final var merged = new ArrayList<T>();
+        while (!heads.isEmpty() && merged.size() < limit) {
+            final var head = heads.poll();
+            final var list = sortedLists.get(head[0]);
+            merged.add(list.get(head[1]));
+            if (head[1] + 1 < list.size()) heads.add(new int[] {head[0], head[1] + 1});
+        }
+        return Collections.unmodifiableList(merged);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.evently.data.generic;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.firebase.firestore.Transaction;
+
+/**
+ * Counters for how often transactions had to be retried due to contention.
+ * <p>
+ * Firestore re-runs a transaction function whenever a document it read was changed before it could commit.
+ * Wrapping the function with {@link #track(Transaction.Function)} counts every one of those runs.
+ */
+public final class ContentionStats {
+    /**
+     * A point in time view of the counters.
+     * @param transactions Number of transactions started.
+     * @param attempts Number of times the transaction functions were run, including retries.
+     */
+    public record Snapshot(long transactions, long attempts) {
+        /**
+         * @return Number of runs that were retries due to contention.
+         */
+        public long retries() {
+            return Math.max(0, attempts - transactions);
+        }
+    }
+
+    private final AtomicLong transactions = new AtomicLong();
+    private final AtomicLong attempts = new AtomicLong();
+
+    /**
+     * Count a transaction, and every run of its function.
+     * @param func The transaction function, as passed to {@code runTransaction}.
+     * @return The same function, counting its runs.
+     * @param <T> Result type of the transaction.
+     */
+    public <T> Transaction.Function<T> track(Transaction.Function<T> func) {
+        transactions.incrementAndGet();
+        return tx -> {
+            attempts.incrementAndGet();
+            return func.apply(tx);
+        };
+    }
+
+    /**
+     * @return The current value of the counters.
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(transactions.get(), attempts.get());
+    }
+}
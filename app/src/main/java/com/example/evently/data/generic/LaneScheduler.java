@@ -0,0 +1,257 @@
+package com.example.evently.data.generic;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs background work on separate lanes, so that work of one kind never waits behind another.
+ * <p>
+ * Each lane has its own threads, running at their own priority, and its own bounded queue. Work
+ * submitted to a full lane is rejected rather than queued without end. Every lane keeps track of
+ * how deep its queue gets and of how long work waits within it, see {@link #stats(Lane)}.
+ * <p>
+ * This is thread safe.
+ * @see Promise#launch(android.content.Context, Lane, Callable)
+ */
+public final class LaneScheduler {
+    /**
+     * The kinds of background work.
+     */
+    public enum Lane {
+        /**
+         * Latency sensitive work the UI is about to show, such as preparing the rows of a list.
+         */
+        PREFETCH,
+        /**
+         * Bulk work mostly waiting on the network or the disk, such as awaiting several promises.
+         */
+        IO,
+        /**
+         * Work keeping a core busy, such as rendering a QR code or decoding an image.
+         */
+        CPU
+    }
+
+    /**
+     * How a lane runs its work.
+     * @param threads Number of threads working through the lane.
+     * @param queueCapacity Maximum number of jobs waiting within the lane.
+     * @param priority Priority of the lane's threads, see {@link Thread#setPriority(int)}.
+     */
+    public record LaneConfig(int threads, int queueCapacity, int priority) {
+        public LaneConfig {
+            if (threads <= 0) {
+                throw new IllegalArgumentException("'threads' must be positive");
+            }
+            if (queueCapacity <= 0) {
+                throw new IllegalArgumentException("'queueCapacity' must be positive");
+            }
+            if (priority < Thread.MIN_PRIORITY || priority > Thread.MAX_PRIORITY) {
+                throw new IllegalArgumentException("'priority' is out of range");
+            }
+        }
+    }
+
+    /**
+     * A snapshot of how a lane is doing.
+     * @param queueDepth Number of jobs currently waiting.
+     * @param maxQueueDepth Largest number of jobs that were ever waiting at once.
+     * @param submitted Number of jobs accepted so far.
+     * @param started Number of jobs that left the queue to run.
+     * @param completed Number of jobs that ran to completion, successfully or not.
+     * @param rejected Number of jobs turned away because the lane was full.
+     * @param totalWait Time the started jobs spent waiting, in total.
+     * @param maxWait Longest time a started job spent waiting.
+     */
+    public record LaneStats(
+            int queueDepth,
+            int maxQueueDepth,
+            long submitted,
+            long started,
+            long completed,
+            long rejected,
+            Duration totalWait,
+            Duration maxWait) {
+        /**
+         * @return Average time the started jobs spent waiting.
+         */
+        public Duration averageWait() {
+            return started == 0 ? Duration.ZERO : totalWait.dividedBy(started);
+        }
+    }
+
+    /**
+     * Configuration of the lanes in the shared scheduler.
+     * <p>
+     * Prefetching is favoured by priority, bulk IO gets the most threads as they mostly wait, and
+     * CPU work gets a thread per core, leaving one to the main thread.
+     */
+    public static final Map<Lane, LaneConfig> DEFAULT_CONFIGS = Map.of(
+            Lane.PREFETCH,
+            new LaneConfig(2, 32, Thread.NORM_PRIORITY),
+            Lane.IO,
+            new LaneConfig(4, 128, Thread.NORM_PRIORITY - 1),
+            Lane.CPU,
+            new LaneConfig(
+                    Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+                    64,
+                    Thread.MIN_PRIORITY + 1));
+
+    // How long a thread may stay idle before it is let go.
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final Map<Lane, LaneExecutor> lanes = new EnumMap<>(Lane.class);
+
+    /**
+     * @param configs Configuration of every lane.
+     */
+    public LaneScheduler(Map<Lane, LaneConfig> configs) {
+        for (final var lane : Lane.values()) {
+            final var config = configs.get(lane);
+            if (config == null) {
+                throw new IllegalArgumentException("Missing configuration of lane " + lane);
+            }
+            lanes.put(lane, new LaneExecutor(lane, config));
+        }
+    }
+
+    /**
+     * Run some work on a lane.
+     * @param lane The lane to run the work on.
+     * @param action The work.
+     * @return A future resolving to the result of the work. It fails with a
+     *         {@link RejectedExecutionException} if the lane is full.
+     * @param <R> Type of the result.
+     */
+    public <R> CompletableFuture<R> submit(Lane lane, Callable<R> action) {
+        return lanes.get(lane).submit(action);
+    }
+
+    /**
+     * @param lane The lane.
+     * @return How the lane is doing, as of now.
+     */
+    public LaneStats stats(Lane lane) {
+        return lanes.get(lane).stats();
+    }
+
+    /**
+     * Stop accepting work. Work already submitted still runs.
+     */
+    public void shutdown() {
+        lanes.values().forEach(lane -> lane.pool.shutdown());
+    }
+
+    /**
+     * A single piece of work, remembering when it was submitted.
+     * @param <R> Type of the result.
+     */
+    private static final class Job<R> implements Runnable {
+        private final LaneExecutor lane;
+        private final Callable<R> work;
+        private final CompletableFuture<R> future = new CompletableFuture<>();
+        private final long submittedAt = System.nanoTime();
+
+        Job(LaneExecutor lane, Callable<R> work) {
+            this.lane = lane;
+            this.work = work;
+        }
+
+        @Override
+        public void run() {
+            lane.recordWait(System.nanoTime() - submittedAt);
+            final R result;
+            try {
+                result = work.call();
+            } catch (Exception e) {
+                lane.completed.incrementAndGet();
+                future.completeExceptionally(e);
+                return;
+            }
+            // Counted first, so that whoever waits on the future sees the job as completed.
+            lane.completed.incrementAndGet();
+            future.complete(result);
+        }
+    }
+
+    /**
+     * The threads, queue and metrics of a lane.
+     */
+    private static final class LaneExecutor {
+        private final Lane lane;
+        private final ThreadPoolExecutor pool;
+
+        private final AtomicInteger maxQueueDepth = new AtomicInteger();
+        private final AtomicLong submitted = new AtomicLong();
+        private final AtomicLong started = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong totalWaitNanos = new AtomicLong();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        LaneExecutor(Lane lane, LaneConfig config) {
+            this.lane = lane;
+            final var threadCount = new AtomicInteger();
+            pool = new ThreadPoolExecutor(
+                    config.threads(),
+                    config.threads(),
+                    KEEP_ALIVE_SECONDS,
+                    TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(config.queueCapacity()),
+                    r -> {
+                        final var name = "lane-" + lane.name().toLowerCase(Locale.ROOT) + "-"
+                                + threadCount.incrementAndGet();
+                        final var thread = new Thread(r, name);
+                        thread.setDaemon(true);
+                        thread.setPriority(config.priority());
+                        return thread;
+                    });
+            pool.allowCoreThreadTimeOut(true);
+        }
+
+        <R> CompletableFuture<R> submit(Callable<R> work) {
+            final var job = new Job<>(this, work);
+            // Counted ahead, as the job may well be done before execute returns.
+            submitted.incrementAndGet();
+            try {
+                pool.execute(job);
+            } catch (RejectedExecutionException e) {
+                submitted.decrementAndGet();
+                rejected.incrementAndGet();
+                job.future.completeExceptionally(
+                        new RejectedExecutionException("Lane " + lane + " is full", e));
+                return job.future;
+            }
+            maxQueueDepth.accumulateAndGet(pool.getQueue().size(), Math::max);
+            return job.future;
+        }
+
+        void recordWait(long waitNanos) {
+            started.incrementAndGet();
+            totalWaitNanos.addAndGet(waitNanos);
+            maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        }
+
+        LaneStats stats() {
+            return new LaneStats(
+                    pool.getQueue().size(),
+                    maxQueueDepth.get(),
+                    submitted.get(),
+                    started.get(),
+                    completed.get(),
+                    rejected.get(),
+                    Duration.ofNanos(totalWaitNanos.get()),
+                    Duration.ofNanos(maxWaitNanos.get()));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.evently.data.generic;
+
+import java.util.Optional;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.google.android.gms.tasks.CancellationToken;
+import com.google.android.gms.tasks.CancellationTokenSource;
+import com.google.android.gms.tasks.Task;
+
+import com.example.evently.BuildConfig;
+
+/**
+ * Cancels a pending task once the owner of a lifecycle is destroyed, see
+ * {@link Promise#bindTo(LifecycleOwner)}.
+ * <p>
+ * A task still pending at that point is expected, such as a fetch outliving a screen the user
+ * navigated away from. It is cancelled, so that its listeners never run.
+ * <p>
+ * In debug builds, such a task is still reported at debug level, alongside where it was bound, to
+ * help track down listeners that would otherwise have outlived their screen.
+ */
+final class LifecycleBinding implements DefaultLifecycleObserver {
+    private static final String TAG = "LifecycleBinding";
+
+    private final Task<?> task;
+    private final CancellationTokenSource cancelSource = new CancellationTokenSource();
+    // Where the binding was made, only recorded in debug builds.
+    private final Optional<Throwable> boundAt;
+
+    private LifecycleBinding(Task<?> task) {
+        this.task = task;
+        this.boundAt = BuildConfig.DEBUG
+                ? Optional.of(new Throwable("Promise bound here"))
+                : Optional.empty();
+    }
+
+    /**
+     * Bind a task to a lifecycle. Must be called on the main thread.
+     * @param owner Owner of the lifecycle.
+     * @param task The task.
+     * @return Token cancelled once the owner is destroyed, unless the task completed first.
+     */
+    static CancellationToken bind(LifecycleOwner owner, Task<?> task) {
+        final var binding = new LifecycleBinding(task);
+        final var lifecycle = owner.getLifecycle();
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            binding.cancelSource.cancel();
+        } else {
+            lifecycle.addObserver(binding);
+            // Once the task completes there is nothing left to drop, stop holding on to it.
+            task.addOnCompleteListener(t -> lifecycle.removeObserver(binding));
+        }
+        return binding.cancelSource.getToken();
+    }
+
+    @Override
+    public void onDestroy(@NonNull LifecycleOwner owner) {
+        owner.getLifecycle().removeObserver(this);
+        if (task.isComplete()) return;
+        boundAt.ifPresent(
+                where -> Log.d(TAG, "Promise still pending at the end of " + owner, where));
+        cancelSource.cancel();
+    }
+}
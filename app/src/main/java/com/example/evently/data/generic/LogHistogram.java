@@ -0,0 +1,112 @@
+package com.example.evently.data.generic;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * A histogram of non negative values, with buckets growing exponentially in width.
+ * <p>
+ * Every power of two is split into {@link #SUB_BUCKETS} buckets of equal width, so that a value is
+ * known within an eighth of itself, regardless of its magnitude. Small values, below the number of
+ * sub buckets, are known exactly. A few hundred counters thus cover the whole range of longs.
+ * <p>
+ * This is thread safe, and lock free. Recording a value is a couple of atomic increments.
+ */
+public final class LogHistogram {
+    /**
+     * Number of buckets every power of two is split into.
+     */
+    public static final int SUB_BUCKETS = 8;
+
+    private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+
+    // Enough buckets for the largest long: 62 is its highest bit.
+    private static final int BUCKETS = bucketOf(Long.MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Record a value.
+     * @param value The value. Negative values are recorded as 0.
+     */
+    public void record(long value) {
+        final var clamped = Math.max(0, value);
+        counts.incrementAndGet(bucketOf(clamped));
+        max.accumulate(clamped);
+    }
+
+    /**
+     * @return Number of values recorded.
+     */
+    public long count() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @return Largest value recorded, or 0 if there is none.
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Find the value below which the given percentage of the recorded values fall.
+     * @param percentile The percentage, between 0 and 100.
+     * @return The highest value of the bucket holding the percentile, but no more than the largest
+     *         value recorded. 0 if there are no values.
+     */
+    public long percentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("'percentile' must be between 0 and 100");
+        }
+        // Values may be recorded while we look, so work off a single read of the counts.
+        final var snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) return 0;
+
+        final var rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return Math.min(highestValueIn(i), max());
+        }
+        return max();
+    }
+
+    /**
+     * Forget every value recorded so far.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        max.reset();
+    }
+
+    // Index of the bucket a non negative value falls in.
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        final var highestBit = 63 - Long.numberOfLeadingZeros(value);
+        final var shift = highestBit - SUB_BUCKET_BITS;
+        final var subBucket = (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    // Highest value falling within the bucket of the given index.
+    static long highestValueIn(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        final var shift = bucket / SUB_BUCKETS - 1;
+        final var subBucket = bucket % SUB_BUCKETS;
+        final var lowest = (long) (SUB_BUCKETS + subBucket) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
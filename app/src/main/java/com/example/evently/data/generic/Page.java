@@ -0,0 +1,82 @@
+package com.example.evently.data.generic;
+
+import static com.example.evently.data.generic.Promise.promise;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.Query;
+
+/**
+ * A single page of results yielded by a paginated query.
+ * @param items The items within this page, in query order.
+ * @param next Token to fetch the page right after this one. Empty if this is the last page.
+ * @param <T> Type of the items within the page.
+ */
+public record Page<T>(List<T> items, Optional<Page.Token> next) {
+    /**
+     * Cursor pointing right after the last item of a page.
+     * <p>
+     * This is meant to be opaque. Callers should only ever hand it back to the same query that produced it.
+     * @param lastSnapshot The last document of the page. The next page starts after it.
+     */
+    public record Token(DocumentSnapshot lastSnapshot) {}
+
+    /**
+     * Wrap a complete (non paginated) result as the one and only page.
+     * @param items All the items.
+     * @return A page with no next page.
+     * @param <T> Type of the items.
+     */
+    public static <T> Page<T> last(List<T> items) {
+        return new Page<>(items, Optional.empty());
+    }
+
+    /**
+     * Fetch a single page off of an ordered query.
+     * <p>
+     * The document ID is used as the final ordering to keep the order stable among equal fields.
+     * @param orderedQuery The query, with its ordering already applied.
+     * @param pageSize Maximum number of documents within the page.
+     * @param after Token of the previous page, or empty for the first page.
+     * @param parse Parser for the documents. Documents that fail to parse are skipped.
+     * @return The page.
+     * @param <T> Type of the parsed documents.
+     */
+    public static <T> Promise<Page<T>> fetch(
+            Query orderedQuery,
+            int pageSize,
+            Optional<Token> after,
+            Function<DocumentSnapshot, Optional<T>> parse) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("'pageSize' must be positive");
+        }
+        var query = orderedQuery.orderBy(FieldPath.documentId());
+        if (after.isPresent()) {
+            query = query.startAfter(after.get().lastSnapshot());
+        }
+        return promise(query.limit(pageSize).get()).map(querySnapshot -> {
+            final var docs = querySnapshot.getDocuments();
+            final var items = docs.stream()
+                    .map(parse)
+                    .flatMap(Optional::stream)
+                    .collect(Collectors.toList());
+            // A short page means we've reached the end of the query.
+            final Optional<Token> next = docs.size() < pageSize
+                    ? Optional.empty()
+                    : Optional.of(new Token(docs.get(docs.size() - 1)));
+            return new Page<>(items, next);
+        });
+    }
+
+    /**
+     * @return Whether or not there are more pages after this one.
+     */
+    public boolean hasNext() {
+        return next.isPresent();
+    }
+}
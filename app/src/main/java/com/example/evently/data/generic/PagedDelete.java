@@ -0,0 +1,71 @@
+package com.example.evently.data.generic;
+
+import static com.example.evently.data.generic.Promise.promise;
+
+import java.util.function.BiConsumer;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.WriteBatch;
+
+/**
+ * Helpers for deleting every document matched by a query, however many there are.
+ * <p>
+ * Documents are read a page at a time, and each page is deleted within a single batch before the
+ * next one is read. Only one page is ever held in memory. Since deleted documents no longer match,
+ * running the same deletion again simply picks up wherever a previous (failed) run stopped.
+ */
+public final class PagedDelete {
+    /**
+     * Maximum number of writes firestore allows within a single batch.
+     */
+    public static final int MAX_BATCH_WRITES = 500;
+
+    private PagedDelete() {}
+
+    /**
+     * Delete every document matched by a query.
+     * @param db The database.
+     * @param query Query matching the documents to delete.
+     * @return Promise yielding the number of documents deleted.
+     */
+    public static Promise<Integer> deleteAll(FirebaseFirestore db, Query query) {
+        return deleteAll(db, query, MAX_BATCH_WRITES, (batch, doc) -> {});
+    }
+
+    /**
+     * Delete every document matched by a query, alongside other writes for each of them.
+     * @param db The database.
+     * @param query Query matching the documents to delete.
+     * @param pageSize Number of documents deleted per batch. Must leave room for the extra writes.
+     * @param alsoWrite Adds the extra writes for a deleted document onto its batch.
+     * @return Promise yielding the number of documents deleted.
+     */
+    public static Promise<Integer> deleteAll(
+            FirebaseFirestore db,
+            Query query,
+            int pageSize,
+            BiConsumer<WriteBatch, DocumentSnapshot> alsoWrite) {
+        return deletePages(db, query.limit(pageSize), alsoWrite, 0);
+    }
+
+    private static Promise<Integer> deletePages(
+            FirebaseFirestore db,
+            Query pageQuery,
+            BiConsumer<WriteBatch, DocumentSnapshot> alsoWrite,
+            int deleted) {
+        return promise(pageQuery.get()).then(qs -> {
+            if (qs.isEmpty()) {
+                return Promise.of(deleted);
+            }
+            WriteBatch batch = db.batch();
+            for (final var doc : qs.getDocuments()) {
+                batch.delete(doc.getReference());
+                alsoWrite.accept(batch, doc);
+            }
+            return promise(batch.commit())
+                    .then(x -> deletePages(db, pageQuery, alsoWrite, deleted + qs.size()));
+        });
+    }
+}
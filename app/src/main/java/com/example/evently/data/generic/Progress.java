@@ -0,0 +1,22 @@
+package com.example.evently.data.generic;
+
+/**
+ * How far along a long running operation is.
+ * @param done Number of units of work done so far.
+ * @param total Total number of units of work.
+ */
+public record Progress(int done, int total) {
+    /**
+     * @return Fraction of the work done, between 0 and 1. An operation with no work is done.
+     */
+    public double fraction() {
+        return total == 0 ? 1 : (double) done / total;
+    }
+
+    /**
+     * @return Whether all the work is done.
+     */
+    public boolean isDone() {
+        return done >= total;
+    }
+}
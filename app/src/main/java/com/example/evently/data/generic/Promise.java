@@ -1,30 +1,57 @@
 package com.example.evently.data.generic;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import android.content.Context;
 import android.util.Pair;
+import androidx.lifecycle.LifecycleOwner;
 
+import com.google.android.gms.tasks.CancellationToken;
+import com.google.android.gms.tasks.CancellationTokenSource;
 import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
 import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.annotations.concurrent.Background;
 import org.jetbrains.annotations.ApiStatus;
 
 /**
  * A fluent API for working with firestore concurrent tasks.
+ * <p>
+ * Mappings and chained promises run on a shared pool of background threads, see
+ * {@link #decodeExecutor()}, so that decoding large snapshots never holds up the UI. Only the
+ * listeners, {@link #thenRun(Consumer)} and {@link #catchE(Consumer)}, run on the main thread, and
+ * those alone may touch the UI. Listeners touching a view should be bound to its lifecycle, see
+ * {@link #bindTo(LifecycleOwner)}.
+ * <p>
+ * A promise may be made cancellable, see {@link #cancellable(CancellationToken)}. Once its token is
+ * cancelled, the promise and everything chained after it is cancelled as well: pending mappings and
+ * chained promises don't run, and neither do success or failure listeners.
  * @param <T> Type of value the promise resolves to.
  */
 public sealed class Promise<T> permits PromiseOpt {
@@ -34,22 +61,107 @@
          * Attach a listener to invoke when the background task is complete.
          * The listener action will be run on the main UI thread.
          * @param act Action to run in the UI thread.
+         * @return The same background task, to attach a failure listener to.
          */
         @ApiStatus.Experimental
-        public void onSuccess(Consumer<R> act) {
+        public InBackground<R> onSuccess(Consumer<R> act) {
             future.thenApplyAsync(
                     x -> {
                         act.accept(x);
                         return null;
                     },
                     onSuccessExecutor);
+            return this;
+        }
+
+        /**
+         * Attach a listener to invoke when the background task fails, run on the main UI thread.
+         * <p>
+         * The task fails with a {@link java.util.concurrent.RejectedExecutionException} if its lane
+         * was full, or with whatever the action threw.
+         * @param handler Exception handler.
+         * @return The same background task.
+         */
+        @ApiStatus.Experimental
+        public InBackground<R> onFailure(Consumer<Exception> handler) {
+            future.whenCompleteAsync(
+                    (x, e) -> {
+                        if (e == null) return;
+                        final var cause = e instanceof CompletionException ? e.getCause() : e;
+                        handler.accept(
+                                cause instanceof Exception ex
+                                        ? ex
+                                        : new ExecutionException(cause));
+                    },
+                    onSuccessExecutor);
+            return this;
         }
     }
 
-    private static final ExecutorService backgroundExecutor = Executors.newSingleThreadExecutor();
+    // Runs listeners right on the thread completing the task, for bookkeeping that must not wait.
+    private static final Executor DIRECT = Runnable::run;
+
+    // Runs the work launched in the background, each kind of work on its own lane.
+    private static final LaneScheduler backgroundLanes =
+            new LaneScheduler(LaneScheduler.DEFAULT_CONFIGS);
+
+    // Runs mappings and chained promises. Sized to the cores, leaving one to the main thread.
+    private static final ExecutorService decodePool = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors() - 1), new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    final var thread = new Thread(r, "promise-decode-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    // Fires timeouts and retry delays. The work itself is never run on this thread.
+    private static final ScheduledExecutorService timer =
+            Executors.newSingleThreadScheduledExecutor();
 
     protected final Task<T> task;
 
+    // Cancelling this stops the continuations chained after this promise from running.
+    protected final Optional<CancellationToken> cancellation;
+
+    /**
+     * A task completed by whichever of its outcomes is settled first: following another task,
+     * failing, or being cancelled.
+     * @param <T> Type of value the task resolves to.
+     */
+    private static final class Race<T> {
+        private final CancellationTokenSource cancelSource = new CancellationTokenSource();
+        private final TaskCompletionSource<T> source =
+                new TaskCompletionSource<>(cancelSource.getToken());
+
+        void follow(Task<T> other) {
+            other.addOnCompleteListener(DIRECT, t -> {
+                if (t.isSuccessful()) {
+                    source.trySetResult(t.getResult());
+                } else if (t.isCanceled()) {
+                    cancel();
+                } else {
+                    source.trySetException(Objects.requireNonNull(t.getException()));
+                }
+            });
+        }
+
+        void fail(Exception e) {
+            source.trySetException(e);
+        }
+
+        void cancel() {
+            cancelSource.cancel();
+        }
+
+        Task<T> task() {
+            return source.getTask();
+        }
+    }
+
     /**
      * Convert a firestore {@link Task} into a Promise, blessing it with a fluent API.
      * @param task The firestore task at hand.
@@ -77,6 +189,7 @@ public static <T> Promise<T> of(T pure) {
      * @param promises Stream of promises.
      * @return A promise that resolves when all given promises succeed.
      * @param <T> Return type.
+     * @see #allLimited(Stream, int)
      */
     public static <T> Promise<List<T>> all(Stream<Promise<T>> promises) {
         final var tasks = promises.map(x -> x.task).collect(Collectors.toList());
@@ -95,6 +208,179 @@ public static <T> Promise<List<T>> all(Promise<T>... promises) {
         return all(Arrays.stream(promises));
     }
 
+    /**
+     * Compose a stream of promises into one, keeping at most a fixed number of them in flight.
+     * <p>
+     * A new promise is started as soon as one in flight succeeds. Upon the first failure, no more
+     * promises are started and those still in flight are cancelled.
+     * @param promises Suppliers of the promises, each only called once its promise is started.
+     * @param maxInFlight Maximum number of promises in flight at once.
+     * @return A promise that resolves when all given promises succeed, to their results in the order
+     *         of the suppliers.
+     * @param <T> Return type.
+     */
+    public static <T> Promise<List<T>> allLimited(
+            Stream<Supplier<Promise<T>>> promises, int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("'maxInFlight' must be positive");
+        }
+        final var window = new Window<>(promises.collect(Collectors.toList()));
+        window.start(maxInFlight);
+        return promise(window.result.getTask());
+    }
+
+    /**
+     * Apply a concurrent function over each item, keeping at most a fixed number of them in flight.
+     * @param items Items to apply the function on.
+     * @param maxInFlight Maximum number of promises in flight at once.
+     * @param func Concurrent function to apply on each item.
+     * @return A promise that resolves to the results, in the order of the items.
+     * @param <T> Type of the items.
+     * @param <R> Return type.
+     * @see #allLimited(Stream, int)
+     */
+    public static <T, R> Promise<List<R>> mapConcurrent(
+            List<T> items, int maxInFlight, Function<T, Promise<R>> func) {
+        return allLimited(
+                items.stream().<Supplier<Promise<R>>>map(item -> () -> func.apply(item)),
+                maxInFlight);
+    }
+
+    /**
+     * State of {@link #allLimited(Stream, int)}: which promises are started, and their results.
+     * @param <T> Type of the results.
+     */
+    private static final class Window<T> {
+        private final List<Supplier<Promise<T>>> suppliers;
+        // Filled in as the promises succeed, and only read once every slot is set.
+        private final AtomicReferenceArray<T> results;
+        // Cancels the promises in flight, once one of them failed.
+        private final CancellationTokenSource cancelSource = new CancellationTokenSource();
+        private final TaskCompletionSource<List<T>> result = new TaskCompletionSource<>();
+
+        private int started = 0;
+        private int succeeded = 0;
+        private boolean failed = false;
+
+        Window(List<Supplier<Promise<T>>> suppliers) {
+            this.suppliers = suppliers;
+            this.results = new AtomicReferenceArray<>(suppliers.size());
+        }
+
+        void start(int maxInFlight) {
+            if (suppliers.isEmpty()) {
+                result.setResult(new ArrayList<>());
+                return;
+            }
+            for (int i = 0; i < maxInFlight; i++) {
+                startNext();
+            }
+        }
+
+        private void startNext() {
+            final int index;
+            synchronized (this) {
+                if (failed || started >= suppliers.size()) return;
+                index = started++;
+            }
+            final Task<T> task;
+            try {
+                task = suppliers.get(index).get().cancellable(cancelSource.getToken()).task;
+            } catch (RuntimeException e) {
+                fail(e);
+                return;
+            }
+            task.addOnCompleteListener(decodePool, t -> {
+                if (t.isSuccessful()) {
+                    onSuccess(index, t.getResult());
+                } else if (t.isCanceled()) {
+                    fail(new CancellationException("Promise " + index + " was cancelled"));
+                } else {
+                    fail(Objects.requireNonNull(t.getException()));
+                }
+            });
+        }
+
+        private void onSuccess(int index, T value) {
+            final boolean allDone;
+            synchronized (this) {
+                if (failed) return;
+                results.set(index, value);
+                allDone = ++succeeded == suppliers.size();
+            }
+            if (allDone) {
+                result.trySetResult(IntStream.range(0, results.length())
+                        .mapToObj(results::get)
+                        .collect(Collectors.toList()));
+            } else {
+                startNext();
+            }
+        }
+
+        private void fail(Exception e) {
+            synchronized (this) {
+                if (failed) return;
+                failed = true;
+            }
+            result.trySetException(e);
+            cancelSource.cancel();
+        }
+    }
+
+    /**
+     * Run an operation, running it again with some backoff whenever it fails with an exception the
+     * policy deems transient.
+     * @param policy Retry policy, saying how many attempts to make and how long to wait in between.
+     * @param attempt Starts a single attempt of the operation. It must be safe to run again.
+     * @return A promise resolving to the result of the first successful attempt, or failing with the
+     *         exception of the last attempt.
+     * @param <T> Return type.
+     * @see RetryPolicy#DEFAULT
+     */
+    public static <T> Promise<T> retry(RetryPolicy policy, Supplier<Promise<T>> attempt) {
+        return retry(policy, attempt, 1);
+    }
+
+    private static <T> Promise<T> retry(
+            RetryPolicy policy, Supplier<Promise<T>> attempt, int attemptNumber) {
+        final var current = attempt.get();
+        return new Promise<>(
+                current.task.continueWithTask(decodePool, t -> {
+                    if (t.isSuccessful()
+                            || t.isCanceled()
+                            || !policy.shouldRetry(t.getException(), attemptNumber)) {
+                        return t;
+                    }
+                    final var next = attemptNumber + 1;
+                    return delay(policy.backoff(attemptNumber))
+                            .continueWithTask(decodePool, x -> retry(policy, attempt, next).task);
+                }),
+                current.cancellation);
+    }
+
+    // A task resolving once the given duration has passed.
+    private static Task<Void> delay(Duration duration) {
+        final var source = new TaskCompletionSource<Void>();
+        timer.schedule(() -> source.trySetResult(null), duration.toMillis(), TimeUnit.MILLISECONDS);
+        return source.getTask();
+    }
+
+    /**
+     * @return The pool of background threads running mappings and chained promises by default.
+     *         It is sized to the number of cores, so work submitted to it must never block.
+     */
+    public static Executor decodeExecutor() {
+        return decodePool;
+    }
+
+    /**
+     * @return The scheduler running the work launched in the background, to look at its lanes.
+     * @see #launch(Context, LaneScheduler.Lane, Callable)
+     */
+    public static LaneScheduler backgroundLanes() {
+        return backgroundLanes;
+    }
+
     /**
      * Perform some expensive IO operations in a background thread.
      * <p>
@@ -109,53 +395,159 @@ public static <T> Promise<List<T>> all(Promise<T>... promises) {
      *      var notifs = notificationsDB.fetchUserNotifications(email).await();
      *      return foo(event, user, notifs);
      * });
-     * task.onSuccess(res -> doSomethingOnUI(res));
+     * task.onSuccess(res -> doSomethingOnUI(res)).onFailure(e -> showErrorOnUI(e));
      * }
      * </pre>
      * @param context The context we're running in.
      * @param action The expensive action to perform in background.
      * @return An {@link InBackground} which will resolve once the task is completed in background.
-     *         Remember to use .onSuccess on it to attach a listener!
+     *         Remember to use .onSuccess and .onFailure on it to attach listeners!
      * @param <R> Type of the return value the action yields to.
      * @see InBackground
+     * @see #launch(Context, LaneScheduler.Lane, Callable)
      */
     @ApiStatus.Experimental
     public static <R> InBackground<R> launch(Context context, Callable<R> action) {
-        final var fut = CompletableFuture.supplyAsync(
-                () -> {
-                    try {
-                        return action.call();
-                    } catch (Exception e) {
-                        throw new CompletionException(e);
-                    }
-                },
-                backgroundExecutor);
-        return new InBackground<>(context.getMainExecutor(), fut);
+        return launch(context, LaneScheduler.Lane.IO, action);
+    }
+
+    /**
+     * Perform some expensive operations in a background thread, on the lane fit for their kind.
+     * <p>
+     * The supplied action MUST NOT access the UI. If the lane is full, the action is dropped and
+     * only the failure listener fires, see {@link InBackground#onFailure(Consumer)}.
+     * @param context The context we're running in.
+     * @param lane The kind of work the action is, see {@link LaneScheduler.Lane}.
+     * @param action The expensive action to perform in background.
+     * @return An {@link InBackground} which will resolve once the task is completed in background.
+     * @param <R> Type of the return value the action yields to.
+     */
+    @ApiStatus.Experimental
+    public static <R> InBackground<R> launch(
+            Context context, LaneScheduler.Lane lane, Callable<R> action) {
+        return new InBackground<>(
+                context.getMainExecutor(), backgroundLanes.submit(lane, action));
     }
 
     protected Promise(Task<T> task) {
+        this(task, Optional.empty());
+    }
+
+    protected Promise(Task<T> task, Optional<CancellationToken> cancellation) {
         this.task = task;
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * Make this promise, and everything chained after it, cancellable.
+     * @param token Token cancelling the promise. Once cancelled, the promise is cancelled right away,
+     *              even if the underlying task is still running.
+     * @return A promise that resolves like this one, unless cancelled first.
+     */
+    public Promise<T> cancellable(CancellationToken token) {
+        return new Promise<>(cancelledBy(task, token), Optional.of(token));
+    }
+
+    /**
+     * Tie this promise, and everything chained after it, to the lifecycle of a UI component.
+     * <p>
+     * Once the owner is destroyed, the promise is cancelled: listeners chained after it never fire,
+     * and let go of whatever they captured, such as view bindings. The underlying work is not
+     * stopped. Must be called on the main thread.
+     * @param owner Owner of the lifecycle, usually the view lifecycle owner of a fragment.
+     * @return A promise that resolves like this one, unless its owner is destroyed first.
+     */
+    public Promise<T> bindTo(LifecycleOwner owner) {
+        return cancellable(LifecycleBinding.bind(owner, task));
+    }
+
+    /**
+     * Fail this promise with a {@link TimeoutException} if it does not complete in time.
+     * <p>
+     * The underlying work is not stopped, only its result is ignored.
+     * @param timeout How long to wait for the promise.
+     * @return A promise that resolves like this one, unless it times out first.
+     */
+    public Promise<T> timeout(Duration timeout) {
+        final var race = new Race<T>();
+        final var timeoutFuture = timer.schedule(
+                () -> race.fail(new TimeoutException("Timed out after " + timeout)),
+                timeout.toMillis(),
+                TimeUnit.MILLISECONDS);
+        task.addOnCompleteListener(DIRECT, t -> timeoutFuture.cancel(false));
+        race.follow(task);
+        return derive(race.task());
+    }
+
+    // A task that resolves like the given one, unless the token is cancelled first.
+    private static <T> Task<T> cancelledBy(Task<T> task, CancellationToken token) {
+        final var race = new Race<T>();
+        race.follow(task);
+        token.onCanceledRequested(race::cancel);
+        return race.task();
+    }
+
+    // Wrap a task continuing this promise, carrying over its cancellation.
+    private <R> Promise<R> derive(Task<R> next) {
+        return new Promise<>(
+                cancellation.map(token -> cancelledBy(next, token)).orElse(next), cancellation);
+    }
+
+    // Whether the continuations of this promise should no longer run.
+    private boolean isCancelled() {
+        return cancellation.map(CancellationToken::isCancellationRequested).orElse(false);
     }
 
     /**
      * Apply a non concurrent mapping function over the result of this promise, manipulating it at will.
+     * <p>
+     * The function runs in the background, see {@link #decodeExecutor()}.
+     * It MUST NOT access the UI.
      * @param func Mapper function to apply to the result of the promise.
      * @return The same promise, except it will now resolve to the result of the mapping.
      * @param <R> Type indicating the result of the map.
      */
     public <R> Promise<R> map(Function<T, R> func) {
-        return promise(task.onSuccessTask(x -> Tasks.forResult(func.apply(x))));
+        return map(decodePool, func);
+    }
+
+    /**
+     * Apply a non concurrent mapping function over the result of this promise, on an executor.
+     * @param executor Executor to run the function on.
+     * @param func Mapper function to apply to the result of the promise.
+     * @return The same promise, except it will now resolve to the result of the mapping.
+     * @param <R> Type indicating the result of the map.
+     */
+    public <R> Promise<R> map(Executor executor, Function<T, R> func) {
+        return derive(task.onSuccessTask(
+                executor,
+                x -> isCancelled() ? Tasks.<R>forCanceled() : Tasks.forResult(func.apply(x))));
     }
 
     /**
      * Chain another concurrent task (promise) to this one.
+     * <p>
+     * The action runs in the background, see {@link #decodeExecutor()}.
+     * It MUST NOT access the UI.
      * @param act Concurrent task to invoke once the current one is complete, with its result.
      * @return A new promise that will resolve successfully once both promises are completed.
      * @param <R> Return value of the second promise.
      * @apiNote For the functional programmers, indeed this is the monadic bind function.
      */
     public <R> Promise<R> then(Function<T, Promise<R>> act) {
-        return promise(task.onSuccessTask(x -> act.apply(x).task));
+        return then(decodePool, act);
+    }
+
+    /**
+     * Chain another concurrent task (promise) to this one, starting it on the given executor.
+     * @param executor Executor to run the action on.
+     * @param act Concurrent task to invoke once the current one is complete, with its result.
+     * @return A new promise that will resolve successfully once both promises are completed.
+     * @param <R> Return value of the second promise.
+     */
+    public <R> Promise<R> then(Executor executor, Function<T, Promise<R>> act) {
+        return derive(task.onSuccessTask(
+                executor, x -> isCancelled() ? Tasks.<R>forCanceled() : act.apply(x).task));
     }
 
     /**
@@ -167,7 +559,8 @@ public <R> Promise<R> then(Function<T, Promise<R>> act) {
      */
     public <U> Promise<Pair<T, U>> with(Promise<U> other) {
         final var tasks = Tasks.whenAllSuccess(task, other.task);
-        return promise(tasks.onSuccessTask(results -> {
+        // Pairing up the results is cheap, don't bother hopping threads for it.
+        return derive(tasks.onSuccessTask(DIRECT, results -> {
             final var thisRes = (T) results.get(0);
             final var otherRes = (U) results.get(1);
             return Tasks.forResult(new Pair<>(thisRes, otherRes));
@@ -195,7 +588,7 @@ public <U, R> Promise<R> with(Promise<U> other, BiFunction<T, U, Promise<R>> act
      */
     public <R> Promise<R> alongside(Promise<R> other) {
         final var tasks = Tasks.whenAllSuccess(task, other.task);
-        return promise(tasks.onSuccessTask(results -> {
+        return derive(tasks.onSuccessTask(DIRECT, results -> {
             // The second task's result is all that matters and its type is U.
             final var otherRes = (R) results.get(1);
             return Tasks.forResult(otherRes);
@@ -210,30 +603,34 @@ public <R> Promise<R> alongside(Promise<R> other) {
      * @apiNote For the functional programmers, indeed this is the bind function nested.
      */
     public <U> Promise<Pair<T, U>> thenWith(Function<T, Promise<U>> otherFunc) {
-        return promise(task.onSuccessTask(x ->
-                otherFunc.apply(x).task.onSuccessTask(y -> Tasks.forResult(new Pair<>(x, y)))));
+        return derive(task.onSuccessTask(decodePool, x -> isCancelled()
+                ? Tasks.<Pair<T, U>>forCanceled()
+                : otherFunc
+                        .apply(x)
+                        .task
+                        .onSuccessTask(DIRECT, y -> Tasks.forResult(new Pair<>(x, y)))));
     }
 
     /**
-     * Run an action once this promise succeeds.
+     * Run an action once this promise succeeds, on the main thread.
      * @apiNote Meant to be called once at the end of a promise chain.
      *          Using this multiple times will attach several consumers that will all be fired.
      * @return The same promise we started with, but now there's a success listener.
      * @param act Consumer to invoke with result.
      */
     public Promise<T> thenRun(Consumer<T> act) {
-        return promise(task.addOnSuccessListener(act::accept));
+        return new Promise<>(task.addOnSuccessListener(act::accept), cancellation);
     }
 
     /**
-     * Attach an exception handler to the promise.
+     * Attach an exception handler to the promise, run on the main thread.
      * @apiNote Meant to be called once at the end of a promise chain.
      *          Using this multiple times will attach several handlers that will all be fired.
      * @return The same promise we started with, but now there's a failure listener.
      * @param handler Exception handler.
      */
     public Promise<T> catchE(Consumer<Exception> handler) {
-        return promise(task.addOnFailureListener(handler::accept));
+        return new Promise<>(task.addOnFailureListener(handler::accept), cancellation);
     }
 
     /**
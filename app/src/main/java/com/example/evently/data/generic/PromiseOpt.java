@@ -3,6 +3,7 @@
 import java.util.Optional;
 import java.util.function.Consumer;
 
+import com.google.android.gms.tasks.CancellationToken;
 import com.google.android.gms.tasks.Task;
 
 /**
@@ -17,6 +18,10 @@
         super(task);
     }
 
+    PromiseOpt(Task<Optional<T>> task, Optional<CancellationToken> cancellation) {
+        super(task, cancellation);
+    }
+
     /**
      * Construct from a plain old promise.
      * @param prom Promise that must yield to an optional value.
@@ -24,7 +29,7 @@
      * @param <T> Type of the optional value.
      */
     public static <T> PromiseOpt<T> promiseOpt(Promise<Optional<T>> prom) {
-        return new PromiseOpt<>(prom.task);
+        return new PromiseOpt<>(prom.task, prom.cancellation);
     }
 
     /**
@@ -44,9 +49,11 @@ public static <T> PromiseOpt<T> promiseOpt(Task<Optional<T>> task) {
      * @return The same promise, but now with a success listener attached (that reacts to present optional).
      */
     public PromiseOpt<T> optionally(Consumer<T> consumer) {
-        return promiseOpt(task.addOnSuccessListener(resOpt -> {
-            resOpt.ifPresent(consumer);
-        }));
+        return new PromiseOpt<>(
+                task.addOnSuccessListener(resOpt -> {
+                    resOpt.ifPresent(consumer);
+                }),
+                cancellation);
     }
 
     /**
@@ -56,8 +63,10 @@ public PromiseOpt<T> optionally(Consumer<T> consumer) {
      * @return The same promise, but now with a success listener attached (that reacts to empty optional).
      */
     public PromiseOpt<T> orElse(Runnable runnable) {
-        return promiseOpt(task.addOnSuccessListener(resOpt -> {
-            if (resOpt.isEmpty()) runnable.run();
-        }));
+        return new PromiseOpt<>(
+                task.addOnSuccessListener(resOpt -> {
+                    if (resOpt.isEmpty()) runnable.run();
+                }),
+                cancellation);
     }
 }
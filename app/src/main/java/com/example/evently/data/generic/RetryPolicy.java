@@ -0,0 +1,87 @@
+package com.example.evently.data.generic;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+
+import com.google.firebase.firestore.FirebaseFirestoreException;
+
+/**
+ * How to retry an operation that failed, see {@link Promise#retry}.
+ * <p>
+ * Delays grow exponentially with each attempt, up to a maximum. Half of each delay is random
+ * (jitter), so that clients failing together don't all retry at the same time.
+ * @param maxAttempts Maximum number of attempts, including the first one.
+ * @param initialBackoff Delay before the first retry, jitter aside.
+ * @param maxBackoff Maximum delay between attempts.
+ * @param isRetryable Whether an attempt failing with the given exception may be retried.
+ */
+public record RetryPolicy(
+        int maxAttempts,
+        Duration initialBackoff,
+        Duration maxBackoff,
+        Predicate<Exception> isRetryable) {
+    /**
+     * Retries transient failures a few times, waiting up to a few seconds in total.
+     * @see #isTransient(Exception)
+     */
+    public static final RetryPolicy DEFAULT = new RetryPolicy(
+            4, Duration.ofMillis(200), Duration.ofSeconds(2), RetryPolicy::isTransient);
+
+    // Firestore failures that may well succeed when tried again.
+    private static final Set<FirebaseFirestoreException.Code> TRANSIENT_CODES = EnumSet.of(
+            FirebaseFirestoreException.Code.ABORTED,
+            FirebaseFirestoreException.Code.DEADLINE_EXCEEDED,
+            FirebaseFirestoreException.Code.RESOURCE_EXHAUSTED,
+            FirebaseFirestoreException.Code.UNAVAILABLE);
+
+    public RetryPolicy {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("'maxAttempts' must be positive");
+        }
+    }
+
+    /**
+     * @param e Exception an attempt failed with.
+     * @return Whether the exception is a firestore failure due to load or connectivity, or a
+     *         timeout.
+     * @see Promise#timeout(Duration)
+     */
+    public static boolean isTransient(Exception e) {
+        if (e instanceof TimeoutException) return true;
+        return e instanceof FirebaseFirestoreException firestoreException
+                && TRANSIENT_CODES.contains(firestoreException.getCode());
+    }
+
+    /**
+     * @param e Exception the attempt failed with.
+     * @param attempt Number of the attempt that failed, starting at 1.
+     * @return Whether to make another attempt.
+     */
+    public boolean shouldRetry(Exception e, int attempt) {
+        return attempt < maxAttempts && isRetryable.test(e);
+    }
+
+    /**
+     * @param attempt Number of the attempt that failed, starting at 1.
+     * @return How long to wait before the next attempt.
+     */
+    public Duration backoff(int attempt) {
+        return backoff(attempt, ThreadLocalRandom.current().nextDouble());
+    }
+
+    /**
+     * @param attempt Number of the attempt that failed, starting at 1.
+     * @param random Random value between 0 (inclusive) and 1 (exclusive), picking the jitter.
+     * @return How long to wait before the next attempt.
+     */
+    public Duration backoff(int attempt, double random) {
+        // Doubling more than 30 times is way past any sensible maximum, and could overflow.
+        final var ceiling = Math.min(
+                initialBackoff.toMillis() << Math.min(attempt - 1, 30), maxBackoff.toMillis());
+        return Duration.ofMillis(ceiling / 2 + (long) (random * (ceiling - ceiling / 2)));
+    }
+}
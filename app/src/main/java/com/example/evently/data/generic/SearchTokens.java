@@ -0,0 +1,108 @@
+package com.example.evently.data.generic;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Normalized search tokens of free text, for full-text search through array membership queries.
+ * <p>
+ * Text is lowercased, stripped of accents and split into words. A document is indexed under each of
+ * its words, and each prefix of those words, so that a query word matches any word it starts. For
+ * example, "Yoga Class" is indexed as "y", "yo", "yog", "yoga", "c", "cl", "cla", "clas" and
+ * "class".
+ */
+public final class SearchTokens {
+    /**
+     * Shortest prefix of a word indexed. Single characters are kept, for search as you type.
+     */
+    public static final int MIN_PREFIX_LENGTH = 1;
+
+    /**
+     * Longest token. Longer words are truncated, both when indexed and when queried.
+     */
+    public static final int MAX_TOKEN_LENGTH = 20;
+
+    /**
+     * Maximum number of tokens indexed per document, to bound its size.
+     */
+    public static final int MAX_INDEX_TOKENS = 1000;
+
+    /**
+     * Maximum number of tokens within a query, as allowed by an array-contains-any query.
+     */
+    public static final int MAX_QUERY_TOKENS = 30;
+
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private SearchTokens() {}
+
+    /**
+     * Split text into its normalized words.
+     * @param text The text.
+     * @return The words, in order of appearance, truncated to {@link #MAX_TOKEN_LENGTH}.
+     */
+    public static List<String> words(String text) {
+        final var normalized = ACCENTS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        final var words = new ArrayList<String>();
+        for (final var word : SEPARATORS.split(normalized)) {
+            if (word.isEmpty()) continue;
+            words.add(word.length() > MAX_TOKEN_LENGTH ? word.substring(0, MAX_TOKEN_LENGTH) : word);
+        }
+        return words;
+    }
+
+    /**
+     * Build the tokens to index a document under.
+     * @param texts The texts of the document, most important first. Tokens of the earlier texts are
+     *              kept first when there are too many.
+     * @return The distinct tokens: every prefix of every word, the whole word included.
+     */
+    public static List<String> indexTokens(String... texts) {
+        final var tokens = new LinkedHashSet<String>();
+        for (final var text : texts) {
+            for (final var word : words(text)) {
+                for (int end = MIN_PREFIX_LENGTH; end <= word.length(); end++) {
+                    if (tokens.size() >= MAX_INDEX_TOKENS) return new ArrayList<>(tokens);
+                    tokens.add(word.substring(0, end));
+                }
+            }
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    /**
+     * Build the tokens to query the index with.
+     * @param query The search query.
+     * @return The distinct words of the query, at most {@link #MAX_QUERY_TOKENS} of them.
+     */
+    public static List<String> queryTokens(String query) {
+        return words(query).stream()
+                .distinct()
+                .limit(MAX_QUERY_TOKENS)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Count the query tokens matched by a document.
+     * @param queryTokens Tokens of the query, see {@link #queryTokens(String)}.
+     * @param indexTokens Tokens of the document, see {@link #indexTokens(String...)}.
+     * @return Number of query tokens within the document's tokens.
+     */
+    public static int matchCount(Collection<String> queryTokens, Set<String> indexTokens) {
+        int count = 0;
+        for (final var token : queryTokens) {
+            if (indexTokens.contains(token)) count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.evently.data.generic;
+
+import static com.example.evently.data.generic.Promise.promise;
+
+import java.util.Map;
+import java.util.Objects;
+
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
+
+/**
+ * A counter split across a number of shard documents, with a capacity shared out between the shards.
+ * <p>
+ * Firestore only sustains about one write per second on a single document. Spreading the count lets concurrent
+ * writers mostly touch disjoint documents. Each shard reserves its own share of the total capacity. So a writer
+ * only needs its own shard to know whether there is room, and never reads the others.
+ * <p>
+ * Shard documents are created lazily, a missing shard counts as zero.
+ * <p>
+ * Every write flags its shard as changed, so that totals derived from what the counter tracks can be refreshed
+ * later on, only for the counters that changed. Clearing the flags is up to whoever refreshes them.
+ */
+public final class ShardedCounter {
+    private static final String COUNT_FIELD = "count";
+    private static final String CHANGED_FIELD = "changed";
+
+    private final CollectionReference shardsRef;
+    private final int numShards;
+
+    /**
+     * @param shardsRef Collection holding the shard documents.
+     * @param numShards Maximum number of shards to spread the count across.
+     */
+    public ShardedCounter(CollectionReference shardsRef, int numShards) {
+        if (numShards <= 0) {
+            throw new IllegalArgumentException("'numShards' must be positive");
+        }
+        this.shardsRef = shardsRef;
+        this.numShards = numShards;
+    }
+
+    /**
+     * Number of shards actually in use for a given capacity.
+     * <p>
+     * No shard is left with a share of zero, so small capacities use fewer shards.
+     * @param capacity Total capacity of the counter.
+     * @return Number of shards in use.
+     */
+    public int shardsFor(long capacity) {
+        return (int) Math.max(1, Math.min(numShards, capacity));
+    }
+
+    /**
+     * The share of the total capacity reserved for a given shard.
+     * @param capacity Total capacity of the counter.
+     * @param shard Index of the shard, less than {@link #shardsFor(long)}.
+     * @return Capacity of the shard. The shares add up to the total capacity.
+     */
+    public long capacityOf(long capacity, int shard) {
+        final var shards = shardsFor(capacity);
+        return capacity / shards + (shard < capacity % shards ? 1 : 0);
+    }
+
+    /**
+     * Read the count of a single shard within a transaction.
+     * @param tx The transaction.
+     * @param shard Index of the shard.
+     * @return Count of the shard.
+     */
+    public long get(Transaction tx, int shard) throws FirebaseFirestoreException {
+        return countOf(tx.get(shardRef(shard)));
+    }
+
+    /**
+     * Bump the count of a single shard within a transaction.
+     * @param tx The transaction.
+     * @param shard Index of the shard.
+     * @param delta Amount to bump the count by.
+     */
+    public void increment(Transaction tx, int shard, long delta) {
+        tx.set(shardRef(shard), incrementObj(delta), SetOptions.merge());
+    }
+
+    /**
+     * Flag a single shard as changed within a transaction, without bumping its count. The shard is
+     * written blindly, so this never makes the transaction contend on it.
+     * @param tx The transaction.
+     * @param shard Index of the shard.
+     */
+    public void touch(Transaction tx, int shard) {
+        tx.set(shardRef(shard), touchObj(), SetOptions.merge());
+    }
+
+    /**
+     * Reference to the document of a single shard, for writes outside of transactions.
+     * @param shard Index of the shard.
+     * @return The shard document.
+     */
+    public DocumentReference shardRef(int shard) {
+        return shardsRef.document(String.valueOf(shard));
+    }
+
+    /**
+     * The update to merge into a shard document to bump its count.
+     * @param delta Amount to bump the count by.
+     * @return The update.
+     */
+    public static Map<String, Object> incrementObj(long delta) {
+        return Map.of(COUNT_FIELD, FieldValue.increment(delta), CHANGED_FIELD, true);
+    }
+
+    /**
+     * The update to merge into a shard document to flag it as changed, without bumping its count.
+     * @return The update.
+     */
+    public static Map<String, Object> touchObj() {
+        return Map.of(CHANGED_FIELD, true);
+    }
+
+    /**
+     * Sum the counts of all the shards.
+     * @return The total count.
+     */
+    public Promise<Long> sum() {
+        return promise(shardsRef.get()).map(qs -> qs.getDocuments().stream()
+                .mapToLong(ShardedCounter::countOf)
+                .sum());
+    }
+
+    private static long countOf(DocumentSnapshot shard) {
+        return Objects.requireNonNullElse(shard.getLong(COUNT_FIELD), 0L);
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.evently.data.generic;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+import android.util.Log;
+
+import com.example.evently.BuildConfig;
+
+/**
+ * Latency tracing of database operations.
+ * <p>
+ * A span is started when an operation is called, and ends once the promise it yields completes.
+ * Its duration, and the number of documents it yielded, are recorded into the histograms of the
+ * operation, see {@link #summaries()} and {@link #dump()}.
+ * <pre>
+ * {@code
+ * final var span = Tracing.start("fetchEvents");
+ * return span.end(promise(query.get()).map(...), List::size);
+ * }
+ * </pre>
+ * Tracing is on in debug builds only, unless turned on. When off, starting a span yields a shared
+ * span that records nothing, so tracing costs next to nothing.
+ * <p>
+ * This is thread safe.
+ */
+public final class Tracing {
+    private static final String TAG = "Tracing";
+
+    // Records right away on the thread completing the promise, it only bumps a few counters.
+    private static final Executor DIRECT = Runnable::run;
+
+    private static final Map<String, Operation> operations = new ConcurrentHashMap<>();
+
+    private static volatile boolean enabled = BuildConfig.DEBUG;
+
+    private Tracing() {}
+
+    /**
+     * How an operation performed, since tracing started or was last reset.
+     * @param operation Name of the operation.
+     * @param calls Number of calls completed.
+     * @param failures Number of calls that failed or were cancelled.
+     * @param p50 Latency half of the calls stayed within.
+     * @param p99 Latency all calls but one in a hundred stayed within.
+     * @param max Latency of the slowest call.
+     * @param documents Number of documents yielded, over all calls.
+     */
+    public record Summary(
+            String operation,
+            long calls,
+            long failures,
+            Duration p50,
+            Duration p99,
+            Duration max,
+            long documents) {
+        @Override
+        public String toString() {
+            return operation + ": calls=" + calls + " failures=" + failures + " p50="
+                    + p50.toMillis() + "ms p99=" + p99.toMillis() + "ms max=" + max.toMillis()
+                    + "ms documents=" + documents;
+        }
+    }
+
+    /**
+     * The recorded calls of an operation.
+     */
+    private static final class Operation {
+        // Latencies, in microseconds.
+        private final LogHistogram latencies = new LogHistogram();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong documents = new AtomicLong();
+
+        Summary summarize(String name) {
+            return new Summary(
+                    name,
+                    latencies.count(),
+                    failures.get(),
+                    Duration.ofNanos(latencies.percentile(50) * 1000),
+                    Duration.ofNanos(latencies.percentile(99) * 1000),
+                    Duration.ofNanos(latencies.max() * 1000),
+                    documents.get());
+        }
+    }
+
+    /**
+     * A call of an operation, in flight.
+     */
+    public static final class Span {
+        // Recording nothing, handed out while tracing is off.
+        private static final Span DISABLED = new Span(null, 0);
+
+        private final Operation operation;
+        private final long startNanos;
+
+        private Span(Operation operation, long startNanos) {
+            this.operation = operation;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * End the span once the promise completes.
+         * @param promise Promise yielded by the operation.
+         * @return The same promise.
+         * @param <T> Type the promise resolves to.
+         * @param <P> Type of the promise.
+         */
+        public <T, P extends Promise<T>> P end(P promise) {
+            return end(promise, result -> 0);
+        }
+
+        /**
+         * End the span once the promise completes, counting the documents it yields.
+         * @param promise Promise yielded by the operation.
+         * @param documents Counts the documents within the result of the promise.
+         * @return The same promise.
+         * @param <T> Type the promise resolves to.
+         * @param <P> Type of the promise.
+         */
+        public <T, P extends Promise<T>> P end(P promise, ToIntFunction<T> documents) {
+            if (operation == null) return promise;
+            promise.task.addOnCompleteListener(DIRECT, t -> {
+                operation.latencies.record((System.nanoTime() - startNanos) / 1000);
+                if (t.isSuccessful()) {
+                    operation.documents.addAndGet(documents.applyAsInt(t.getResult()));
+                } else {
+                    operation.failures.incrementAndGet();
+                }
+            });
+            return promise;
+        }
+    }
+
+    /**
+     * @param on Whether to trace operations from now on.
+     */
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    /**
+     * @return Whether operations are traced.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start a span, to end once the operation yields its promise.
+     * @param operation Name of the operation, the same for every call of it.
+     * @return The span.
+     */
+    public static Span start(String operation) {
+        if (!enabled) return Span.DISABLED;
+        final var stats = operations.computeIfAbsent(operation, x -> new Operation());
+        return new Span(stats, System.nanoTime());
+    }
+
+    /**
+     * @return How every operation called so far performed, by name.
+     */
+    public static List<Summary> summaries() {
+        final var summaries = new ArrayList<Summary>();
+        operations.forEach((name, operation) -> summaries.add(operation.summarize(name)));
+        summaries.sort(Comparator.comparing(Summary::operation));
+        return summaries;
+    }
+
+    /**
+     * Log how every operation called so far performed. Debug builds call this whenever the app goes
+     * into the background.
+     */
+    public static void dump() {
+        for (final var summary : summaries()) {
+            Log.i(TAG, summary.toString());
+        }
+    }
+
+    /**
+     * Forget every call recorded so far.
+     */
+    public static void reset() {
+        operations.clear();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.evently.data.generic;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An in-memory inverted index from words to keys, looked up by word prefix.
+ * <p>
+ * Words are held within a trie. Every node knows the keys having a word that passes through it, so
+ * a prefix lookup only walks the characters of the prefix, regardless of how many keys there are.
+ * <p>
+ * This is not thread safe.
+ * @param <K> Type of the keys.
+ */
+public final class TrieIndex<K> {
+    private static final class Node<K> {
+        private final Map<Character, Node<K>> children = new HashMap<>();
+        // Keys with a word starting with the characters leading to this node.
+        private final Set<K> keys = new HashSet<>();
+    }
+
+    private final Node<K> root = new Node<>();
+    private final Map<K, Set<String>> wordsOf = new HashMap<>();
+
+    /**
+     * Index a key under the given words, replacing the words it was indexed under before.
+     * @param key The key.
+     * @param words Words of the key, already normalized. See {@link SearchTokens#words(String)}.
+     */
+    public void put(K key, Collection<String> words) {
+        remove(key);
+        final var distinctWords = Set.copyOf(words);
+        wordsOf.put(key, distinctWords);
+        for (final var word : distinctWords) {
+            var node = root;
+            for (int i = 0; i < word.length(); i++) {
+                node = node.children.computeIfAbsent(word.charAt(i), c -> new Node<>());
+                node.keys.add(key);
+            }
+        }
+    }
+
+    /**
+     * Drop a key from the index. Does nothing if the key is not indexed.
+     * @param key The key.
+     */
+    public void remove(K key) {
+        final var words = wordsOf.remove(key);
+        if (words == null) return;
+        for (final var word : words) {
+            var node = root;
+            for (int i = 0; i < word.length(); i++) {
+                final var child = node.children.get(word.charAt(i));
+                if (child == null) break;
+                child.keys.remove(key);
+                // Nothing is left under an empty node, prune it.
+                if (child.keys.isEmpty()) {
+                    node.children.remove(word.charAt(i));
+                    break;
+                }
+                node = child;
+            }
+        }
+    }
+
+    /**
+     * @return Number of keys indexed.
+     */
+    public int size() {
+        return wordsOf.size();
+    }
+
+    /**
+     * Find the keys having a word starting with the given prefix.
+     * @param prefix The prefix, already normalized.
+     * @return The matching keys. Empty for an empty prefix.
+     */
+    public Set<K> lookup(String prefix) {
+        if (prefix.isEmpty()) return Set.of();
+        var node = root;
+        for (int i = 0; i < prefix.length(); i++) {
+            node = node.children.get(prefix.charAt(i));
+            if (node == null) return Set.of();
+        }
+        return Collections.unmodifiableSet(node.keys);
+    }
+
+    /**
+     * Find the keys having a word starting with any of the given prefixes.
+     * @param prefixes The prefixes, already normalized, see {@link SearchTokens#queryTokens}.
+     * @return The matching keys.
+     */
+    public Set<K> lookupAny(List<String> prefixes) {
+        final var keys = new HashSet<K>();
+        for (final var prefix : prefixes) {
+            keys.addAll(lookup(prefix));
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.evently.data.generic;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * A size bounded, least recently used cache whose entries expire after a fixed time to live.
+ * <p>
+ * This is thread safe. All operations are constant time.
+ * <p>
+ * A value read from its source while the key is being invalidated may already be stale. To avoid
+ * caching it again, take a {@link #version()} before the read, and cache its result with
+ * {@link #putIfUnchanged(Object, Object, long)}.
+ * @param <K> Type of the keys.
+ * @param <V> Type of the cached values.
+ */
+public final class TtlCache<K, V> {
+    /**
+     * A point in time view of the cache counters.
+     * @param hits Number of lookups that found a live entry.
+     * @param misses Number of lookups that found no entry, or an expired one.
+     * @param size Number of entries currently held, including any expired ones not yet evicted.
+     */
+    public record Stats(long hits, long misses, int size) {}
+
+    private record Entry<V>(V value, long expiresAtNanos) {}
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    // Bumped by every invalidation.
+    private long version = 0;
+    // Version at which each key was last invalidated, for the keys invalidated since forgottenAt.
+    private final HashMap<K, Long> invalidatedAt = new HashMap<>();
+    // Version at which invalidatedAt was last cleared. Every key counts as invalidated then.
+    private long forgottenAt = 0;
+
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * @param maxSize Maximum number of entries. The least recently used entry is evicted beyond this.
+     * @param ttl How long an entry stays live after being put.
+     */
+    public TtlCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, System::nanoTime);
+    }
+
+    /**
+     * @param maxSize Maximum number of entries. The least recently used entry is evicted beyond this.
+     * @param ttl How long an entry stays live after being put.
+     * @param nanoClock Source of the current time, in nanoseconds. Only meant to be replaced in tests.
+     */
+    public TtlCache(int maxSize, Duration ttl, LongSupplier nanoClock) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("'maxSize' must be positive");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+        // Access ordered, so that the eldest entry is the least recently used one.
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Look up a live entry.
+     * @param key Key of the entry.
+     * @return The cached value, if it is there and has not expired.
+     */
+    public synchronized Optional<V> get(K key) {
+        final var entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return Optional.empty();
+        }
+        if (nanoClock.getAsLong() - entry.expiresAtNanos() >= 0) {
+            entries.remove(key);
+            misses++;
+            return Optional.empty();
+        }
+        hits++;
+        return Optional.of(entry.value());
+    }
+
+    /**
+     * Cache a value, replacing any previous entry for the key.
+     * @param key Key of the entry.
+     * @param value Value to cache.
+     */
+    public synchronized void put(K key, V value) {
+        entries.put(key, new Entry<>(value, nanoClock.getAsLong() + ttlNanos));
+    }
+
+    /**
+     * Cache a value read from its source, unless the key was invalidated while it was being read.
+     * @param key Key of the entry.
+     * @param value Value to cache.
+     * @param since {@link #version()} taken before the value was read.
+     * @return Whether the value was cached.
+     */
+    public synchronized boolean putIfUnchanged(K key, V value, long since) {
+        final long lastInvalidated = invalidatedAt.getOrDefault(key, forgottenAt);
+        if (lastInvalidated > since) return false;
+        put(key, value);
+        return true;
+    }
+
+    /**
+     * @return The current version of the cache, bumped by every invalidation. To be taken before
+     *         reading a value to cache with {@link #putIfUnchanged(Object, Object, long)}.
+     */
+    public synchronized long version() {
+        return version;
+    }
+
+    /**
+     * Drop the entry for a key, if any. Values of the key being read in the meantime are not cached.
+     * @param key Key of the entry.
+     */
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+        version++;
+        // Only as many keys as the cache holds are remembered. Beyond that, forget them all at once
+        // by treating every key as just invalidated.
+        if (invalidatedAt.size() >= maxSize && !invalidatedAt.containsKey(key)) {
+            invalidatedAt.clear();
+            forgottenAt = version;
+        } else {
+            invalidatedAt.put(key, version);
+        }
+    }
+
+    /**
+     * Drop all the entries. Values being read in the meantime are not cached.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        version++;
+        invalidatedAt.clear();
+        forgottenAt = version;
+    }
+
+    /**
+     * @return The current value of the cache counters.
+     */
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, entries.size());
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.evently.data.model;
+
+import java.util.HashMap;
+import java.util.Optional;
+import java.util.UUID;
+
+import com.google.firebase.firestore.GeoPoint;
+
+/**
+ * A single entrant of an event.
+ * <p>
+ * Each entrant is stored as its own document, keyed by email, under the event. This keeps the size of
+ * any one document constant no matter how many entrants an event has.
+ * @param eventID The ID of the event in question.
+ * @param email Email of the entrant.
+ * @param status Where the entrant currently stands within the event.
+ * @param location Location from where the entrant enrolled, if it was provided.
+ */
+public record Entrant(
+        UUID eventID, String email, EntrantStatus status, Optional<GeoPoint> location) {
+
+    /**
+     * Converts the entrant to a hashMap for storing in the DB.
+     * @return A hashmap with the entrant contents.
+     */
+    public HashMap<String, Object> toHashMap() {
+        HashMap<String, Object> hashMap = new HashMap<>();
+
+        hashMap.put("eventId", this.eventID.toString());
+        hashMap.put("email", this.email);
+        hashMap.put("status", this.status.name());
+        this.location.ifPresent(loc -> hashMap.put("location", loc));
+
+        return hashMap;
+    }
+}
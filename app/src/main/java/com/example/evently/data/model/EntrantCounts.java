@@ -0,0 +1,40 @@
+package com.example.evently.data.model;
+
+import java.io.Serializable;
+import java.util.HashMap;
+
+/**
+ * Number of entrants within each of the entrant lists of an event.
+ * <p>
+ * These are kept up to date on the event itself, so that listing events requires no additional reads.
+ * The enrolled count may lag behind enrollments for up to a minute, as a cloud function recounts it periodically.
+ * @param enrolled Number of entrants enrolled in the event.
+ * @param selected Number of entrants selected via lottery.
+ * @param accepted Number of selected entrants who have accepted the invitation.
+ * @param cancelled Number of selected entrants who have declined or been cancelled.
+ * @see EventEntrants
+ */
+public record EntrantCounts(long enrolled, long selected, long accepted, long cancelled)
+        implements Serializable {
+    /**
+     * Counts for an event with no entrants whatsoever.
+     */
+    public EntrantCounts() {
+        this(0, 0, 0, 0);
+    }
+
+    /**
+     * Converts the counts to a hashMap for storing in the DB, alongside the rest of the event.
+     * @return A hashmap with the count fields.
+     */
+    public HashMap<String, Object> toHashMap() {
+        HashMap<String, Object> hashMap = new HashMap<>();
+
+        hashMap.put("enrolledCount", this.enrolled);
+        hashMap.put("selectedCount", this.selected);
+        hashMap.put("acceptedCount", this.accepted);
+        hashMap.put("cancelledCount", this.cancelled);
+
+        return hashMap;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.evently.data.model;
+
+/**
+ * Where an entrant currently stands within an event.
+ */
+public enum EntrantStatus {
+    /** On the waiting list, and not (yet) selected via lottery */
+    Enrolled,
+    /** Selected via lottery, and yet to respond to the invitation */
+    Selected,
+    /** Selected via lottery, and accepted the invitation */
+    Accepted,
+    /** Selected via lottery, and then either declined or got cancelled by the organizer */
+    Cancelled;
+
+    /**
+     * @return Whether or not an entrant with this status is one of the current winners.
+     */
+    public boolean isSelected() {
+        return this == Selected || this == Accepted;
+    }
+}
@@ -24,6 +24,8 @@
  * @param organizer email for the organizer. This should correspond with the database.
  * @param selectionLimit Event capacity. This is the total number of enlisted entrants that may be selected.
  * @param optionalEntrantLimit Optional limit to the total number of entrants that may enlist before selection.
+ * @param isFull Whether or not the entrant limit has been hit.
+ * @param entrantCounts Number of entrants within each of the entrant lists of this event.
  */
 public record Event(
         UUID eventID,
@@ -36,7 +38,8 @@ public record Event(
         String organizer,
         long selectionLimit,
         Optional<Long> optionalEntrantLimit,
-        boolean isFull)
+        boolean isFull,
+        EntrantCounts entrantCounts)
         implements Serializable {
     public Event {
         if (name.isBlank()) {
@@ -87,7 +90,8 @@ public Event(
                 organizer,
                 selectionLimit,
                 Optional.ofNullable(entrantLimit),
-                false);
+                false,
+                new EntrantCounts());
     }
 
     public Event(
@@ -110,7 +114,8 @@ public Event(
                 organizer,
                 selectionLimit,
                 Optional.empty(),
-                false);
+                false,
+                new EntrantCounts());
     }
 
     /**
@@ -131,6 +136,7 @@ public HashMap<String, Object> toHashMap() {
         hashMap.put("selectionLimit", this.selectionLimit);
         hashMap.put("entrantLimit", this.optionalEntrantLimit.orElse(null));
         hashMap.put("isFull", this.isFull);
+        hashMap.putAll(this.entrantCounts.toHashMap());
 
         return hashMap;
     }
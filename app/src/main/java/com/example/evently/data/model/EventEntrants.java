@@ -9,6 +9,9 @@
 
 /**
  * Lists of entrants associated with an event.
+ * <p>
+ * This is a view assembled out of all the {@link Entrant}s of an event. For large events, prefer the paged
+ * queries within {@link com.example.evently.data.EventsDB}.
  * @param eventID The ID of the event in question.
  * @param all List of all the entrants enrolled in said event.
  * @param selected List of the entrants selected via lottery to participate in the event.
@@ -34,19 +37,21 @@ public EventEntrants(UUID eventID) {
     }
 
     /**
-     * Converts the event entrants object to a hashMap for storing in the DB.
-     * @implNote The eventID is used as the document path and is not added to the hashmap.
-     * @return A hashmap with the event entrant contents.
+     * Assemble the lists out of the individual entrants of an event.
+     * @param eventID The ID of the event in question.
+     * @param entrants All the entrants of said event.
+     * @return The lists of entrants.
      */
-    public HashMap<String, Object> toHashMap() {
-        HashMap<String, Object> hashMap = new HashMap<>();
-
-        hashMap.put("enrolledEntrants", this.all);
-        hashMap.put("selectedEntrants", this.selected);
-        hashMap.put("acceptedEntrants", this.accepted);
-        hashMap.put("cancelledEntrants", this.cancelled);
-        hashMap.put("entrantLocations", this.locations);
-
-        return hashMap;
+    public static EventEntrants of(UUID eventID, List<Entrant> entrants) {
+        final var res = new EventEntrants(eventID);
+        for (final var entrant : entrants) {
+            final var email = entrant.email();
+            res.all.add(email);
+            if (entrant.status().isSelected()) res.selected.add(email);
+            if (entrant.status() == EntrantStatus.Accepted) res.accepted.add(email);
+            if (entrant.status() == EntrantStatus.Cancelled) res.cancelled.add(email);
+            entrant.location().ifPresent(loc -> res.locations.put(email, loc));
+        }
+        return res;
     }
 }
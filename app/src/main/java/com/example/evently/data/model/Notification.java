@@ -29,6 +29,9 @@
  * @param description Description of the notification. This goes into the notification payload.
  * @param creationTime Time this notification was initially created (i.e stored in the database).
  * @param seenBy Tracker of all the intended entrants who have "seen" this notification (clicked on).
+ *               Only the initial state is stored on the notification itself. As entrants see it, this is
+ *               tracked within their own inbox instead.
+ * @see com.example.evently.data.NotificationDB#markSeen
  */
 public record Notification(
         UUID id,
@@ -1,6 +1,6 @@
 package com.example.evently.ui.admin;
 
-import java.util.List;
+import java.util.Optional;
 import java.util.function.Consumer;
 
 import android.util.Log;
@@ -9,6 +9,7 @@
 import androidx.navigation.fragment.NavHostFragment;
 
 import com.example.evently.data.EventsDB;
+import com.example.evently.data.generic.Page;
 import com.example.evently.data.model.Event;
 import com.example.evently.ui.common.EventsFragment;
 
@@ -33,16 +34,24 @@ protected void onEventClick(Event event) {
     }
 
     /**
-     * Supplies the Browse list with all events open and closed.
+     * Supplies the Browse list with all events open and closed, one page at a time.
+     * @param after Token of the previously loaded page, or empty for the first page.
      * @param callback Callback that will be passed the events into.
+     * @param onFailure Called if the events could not be fetched.
      */
     @Override
-    protected void initEvents(Consumer<List<Event>> callback) {
+    protected void initEvents(
+            Optional<Page.Token> after, Consumer<Page<Event>> callback, Runnable onFailure) {
 
-        new EventsDB().fetchAllEvents().thenRun(callback).catchE(e -> {
-            Log.e("Admin Events", e.toString());
-            Toast.makeText(requireContext(), "Something went wrong...", Toast.LENGTH_SHORT)
-                    .show();
-        });
+        new EventsDB()
+                .fetchAllEvents(EventsDB.DEFAULT_PAGE_SIZE, after)
+                .bindTo(getViewLifecycleOwner())
+                .thenRun(callback)
+                .catchE(e -> {
+                    Log.e("Admin Events", e.toString());
+                    onFailure.run();
+                    Toast.makeText(requireContext(), "Something went wrong...", Toast.LENGTH_SHORT)
+                            .show();
+                });
     }
 }
@@ -60,11 +60,15 @@ protected void onImageClick(UUID eventID) {
      * @param callback Callback that will be passed the dictionary of eventID and its poster storage reference.
      */
     protected void initImages(Consumer<Map<UUID, StorageReference>> callback) {
-        eventsDB.fetchAllPosters().thenRun(callback).catchE(e -> {
-            Log.e("BrowseImages", e.toString());
-            Toast.makeText(requireContext(), "Something went wrong...", Toast.LENGTH_SHORT)
-                    .show();
-        });
+        eventsDB
+                .fetchAllPosters()
+                .bindTo(getViewLifecycleOwner())
+                .thenRun(callback)
+                .catchE(e -> {
+                    Log.e("BrowseImages", e.toString());
+                    Toast.makeText(requireContext(), "Something went wrong...", Toast.LENGTH_SHORT)
+                            .show();
+                });
     }
 
     @Nullable @Override
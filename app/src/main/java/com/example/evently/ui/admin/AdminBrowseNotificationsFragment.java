@@ -1,11 +1,12 @@
 package com.example.evently.ui.admin;
 
-import java.util.List;
+import java.util.Optional;
 import java.util.function.Consumer;
 
 import android.util.Log;
 import android.widget.Toast;
 
+import com.example.evently.data.generic.Page;
 import com.example.evently.data.model.Notification;
 import com.example.evently.ui.common.NotificationsFragment;
 
@@ -24,14 +25,21 @@ protected void onNotificationClick(Notification notif) {}
 
     /**
      * Supplies the Browse list with all notifications.
+     * @param after Token of the previous page. Unused, as everything is yielded at once.
      * @param callback Callback that will be passed the notifications into.
      */
     @Override
-    protected void initNotifications(Consumer<List<Notification>> callback) {
-        notificationDB.fetchAllNotifications().thenRun(callback).catchE(e -> {
-            Log.e("AdminBrowseNotificationsFragment", e.toString());
-            Toast.makeText(requireContext(), "Something went wrong...", Toast.LENGTH_SHORT)
-                    .show();
-        });
+    protected void initNotifications(
+            Optional<Page.Token> after, Consumer<Page<Notification>> callback) {
+        notificationDB
+                .fetchAllNotifications()
+                .map(Page::last)
+                .bindTo(getViewLifecycleOwner())
+                .thenRun(callback)
+                .catchE(e -> {
+                    Log.e("AdminBrowseNotificationsFragment", e.toString());
+                    Toast.makeText(requireContext(), "Something went wrong...", Toast.LENGTH_SHORT)
+                            .show();
+                });
     }
 }
@@ -13,7 +13,7 @@
 import androidx.navigation.fragment.NavHostFragment;
 
 import com.example.evently.R;
-import com.example.evently.data.EventsDB;
+import com.example.evently.data.CascadingDelete;
 import com.example.evently.databinding.FragmentAdminEventActionsBinding;
 import com.example.evently.ui.common.ConfirmFragmentNoInput;
 import com.example.evently.ui.model.EventViewModel;
@@ -58,15 +58,14 @@ public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceStat
 
     /**
      * The dialog closed with a confirm click.
-     * Delete the event from the eventsDB and navigate back to the event list
+     * Delete the event, alongside everything that refers to it, and navigate back to the event list
      * @param requestKey key of request in bundle
      * @param result confirmation result
      */
     public void onDialogConfirmClick(String requestKey, Bundle result) {
         if (!result.getBoolean(ConfirmFragmentNoInput.inputKey)) return;
         // Delete event
-        final EventsDB eventDB = new EventsDB();
-        eventDB.deleteEvent(eventViewModel.eventID);
+        new CascadingDelete().deleteEvent(eventViewModel.eventID);
 
         Toast.makeText(requireContext(), R.string.Event_deleted_toast, Toast.LENGTH_SHORT)
                 .show();
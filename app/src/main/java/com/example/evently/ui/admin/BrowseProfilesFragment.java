@@ -1,5 +1,6 @@
 package com.example.evently.ui.admin;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -16,19 +17,26 @@
 import androidx.navigation.NavController;
 import androidx.navigation.fragment.NavHostFragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
-import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.evently.R;
 import com.example.evently.data.AccountDB;
+import com.example.evently.data.CascadingDelete;
 import com.example.evently.data.model.Account;
+import com.example.evently.databinding.FragmentAdminProfilesBinding;
+import com.example.evently.ui.common.ConfirmFragmentNoInput;
 
 /**
  * A fragment representing a list of accounts that the admin can browse and interact with.
+ * <p>
+ * Several accounts may be selected, and deleted at once.
  */
 public class BrowseProfilesFragment extends Fragment {
+    private FragmentAdminProfilesBinding binding;
+
     private ProfileRecyclerViewAdapter adapter;
 
-    private RecyclerView recyclerView;
+    // Emails of the accounts selected for deletion.
+    private List<String> selectedEmails = List.of();
 
     /**
      * Handles clicks on a profile row in the Admin Browse list.
@@ -51,11 +59,15 @@ protected void onProfileClick(Account account) {
      * @param callback Callback that will be passed the accounts into.
      */
     protected void initAccounts(Consumer<List<Account>> callback) {
-        new AccountDB().fetchAllAccounts().thenRun(callback).catchE(e -> {
-            Log.e("ViewProfiles", e.toString());
-            Toast.makeText(requireContext(), "Something went wrong...", Toast.LENGTH_SHORT)
-                    .show();
-        });
+        new AccountDB()
+                .fetchAllAccounts()
+                .bindTo(getViewLifecycleOwner())
+                .thenRun(callback)
+                .catchE(e -> {
+                    Log.e("ViewProfiles", e.toString());
+                    Toast.makeText(requireContext(), "Something went wrong...", Toast.LENGTH_SHORT)
+                            .show();
+                });
     }
 
     @Nullable @Override
@@ -63,22 +75,86 @@ public View onCreateView(
             @NonNull LayoutInflater inflater,
             @Nullable ViewGroup container,
             @Nullable Bundle savedInstanceState) {
-        recyclerView =
-                (RecyclerView) inflater.inflate(R.layout.fragment_admin_profiles, container, false);
+        binding = FragmentAdminProfilesBinding.inflate(inflater, container, false);
+
+        Context context = binding.profileList.getContext();
+        binding.profileList.setLayoutManager(new LinearLayoutManager(context));
 
-        if (recyclerView == null) {
-            throw new AssertionError("ViewProfilesFragment called with non recyclerview.");
-        }
+        binding.deleteSelectedProfiles.setOnClickListener(v -> {
+            ConfirmFragmentNoInput confirmFragment = ConfirmFragmentNoInput.newInstance(
+                    "Delete Accounts",
+                    "Are you sure you want to delete " + selectedEmails.size() + " accounts");
+            confirmFragment.show(getParentFragmentManager(), "confirmNoInput");
+            getParentFragmentManager()
+                    .setFragmentResultListener(
+                            ConfirmFragmentNoInput.requestKey, this, this::onDialogConfirmClick);
+        });
+
+        showAccounts();
 
-        Context context = recyclerView.getContext();
-        recyclerView.setLayoutManager(new LinearLayoutManager(context));
+        return binding.getRoot();
+    }
 
-        // Set up the recycler view adapter with all accounts in the database
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        binding = null;
+    }
+
+    // Set up the recycler view adapter with all accounts in the database
+    private void showAccounts() {
         initAccounts(accounts -> {
+            if (binding == null) return;
             adapter = new ProfileRecyclerViewAdapter(accounts, this::onProfileClick);
-            recyclerView.setAdapter(adapter);
+            adapter.enableSelection(requireContext(), selection -> {
+                selectedEmails = new ArrayList<>(selection);
+                binding.deleteSelectedProfiles.setVisibility(
+                        selection.isEmpty() ? View.GONE : View.VISIBLE);
+                binding.deleteSelectedProfiles.setText(
+                        getString(R.string.delete_selected_profiles, selection.size()));
+            });
+            selectedEmails = List.of();
+            binding.deleteSelectedProfiles.setVisibility(View.GONE);
+            binding.profileList.setAdapter(adapter);
         });
+    }
 
-        return recyclerView;
+    /**
+     * The dialog closed with a confirm click.
+     * Delete the selected accounts, alongside everything that refers to them, showing the progress
+     * on the delete button. Deleting them again after a failure resumes where it stopped.
+     * @param requestKey key of request in bundle
+     * @param result confirmation result
+     */
+    public void onDialogConfirmClick(String requestKey, Bundle result) {
+        if (!result.getBoolean(ConfirmFragmentNoInput.inputKey)) return;
+        final var deleteSelected = binding.deleteSelectedProfiles;
+        deleteSelected.setEnabled(false);
+        new CascadingDelete()
+                .deleteAccounts(
+                        selectedEmails,
+                        progress -> {
+                            if (binding == null) return;
+                            deleteSelected.setText(getString(
+                                    R.string.deleting_profiles, progress.done(), progress.total()));
+                        })
+                .bindTo(getViewLifecycleOwner())
+                .thenRun(x -> {
+                    deleteSelected.setEnabled(true);
+                    Toast.makeText(
+                                    requireContext(),
+                                    R.string.Profiles_deleted_toast,
+                                    Toast.LENGTH_SHORT)
+                            .show();
+                    showAccounts();
+                })
+                .catchE(e -> {
+                    Log.e("ViewProfiles", e.toString());
+                    deleteSelected.setEnabled(true);
+                    Toast.makeText(requireContext(), "Something went wrong...", Toast.LENGTH_SHORT)
+                            .show();
+                    // Some accounts may be gone already, show the ones left to retry with.
+                    showAccounts();
+                });
     }
 }
@@ -1,18 +1,27 @@
 package com.example.evently.ui.admin;
 
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
+import android.content.Context;
+import android.content.res.ColorStateList;
 import android.view.LayoutInflater;
 import android.view.ViewGroup;
 import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.evently.R;
 import com.example.evently.data.model.Account;
 import com.example.evently.databinding.FragmentProfileRowBinding;
 
 /**
  * {@link RecyclerView.Adapter} that can display a {@link Account}.
  * <p>
+ * Rows may be made selectable, see {@link #enableSelection(Context, Consumer)}. A long press on a
+ * row starts the selection, after which a tap toggles a row.
  */
 public class ProfileRecyclerViewAdapter
         extends RecyclerView.Adapter<ProfileRecyclerViewAdapter.ProfileViewHolder> {
@@ -27,6 +36,12 @@ public interface ProfileOnClickListener {
     private final List<Account> profiles;
     private final ProfileOnClickListener onProfileClick;
 
+    // Emails of the selected profiles, in the order they were selected.
+    private final Set<String> selection = new LinkedHashSet<>();
+    private boolean selectable = false;
+    private ColorStateList selectionColor;
+    private Consumer<Set<String>> onSelectionChanged = ignored -> {};
+
     /**
      * Constructor for the profile recycler adapter
      * @param profiles An array of accounts representing the profiles to be displayed
@@ -38,10 +53,46 @@ public ProfileRecyclerViewAdapter(
         this.onProfileClick = onProfileClick;
     }
 
+    /**
+     * Let the user select rows.
+     * @param context Context the rows are displayed in.
+     * @param onSelectionChanged Called with the emails of the selected profiles, whenever the
+     *                           selection changes.
+     */
+    public void enableSelection(Context context, Consumer<Set<String>> onSelectionChanged) {
+        this.selectable = true;
+        this.selectionColor = ColorStateList.valueOf(
+                ContextCompat.getColor(context, R.color.selection_highlight));
+        this.onSelectionChanged = onSelectionChanged;
+    }
+
+    // Select or unselect the profile at the given position.
+    private void toggleSelection(int position) {
+        final var email = profiles.get(position).email();
+        if (!selection.remove(email)) selection.add(email);
+        onSelectionChanged.accept(Set.copyOf(selection));
+        notifyItemChanged(position);
+    }
+
     @NonNull @Override
     public ProfileViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        return new ProfileRecyclerViewAdapter.ProfileViewHolder(FragmentProfileRowBinding.inflate(
-                LayoutInflater.from(parent.getContext()), parent, false));
+        final var holder =
+                new ProfileRecyclerViewAdapter.ProfileViewHolder(FragmentProfileRowBinding.inflate(
+                        LayoutInflater.from(parent.getContext()), parent, false));
+
+        holder.binding.getRoot().setOnLongClickListener(v -> {
+            final var position = holder.getBindingAdapterPosition();
+            if (!selectable || position == RecyclerView.NO_POSITION) return false;
+            toggleSelection(position);
+            return true;
+        });
+        holder.binding.getRoot().setOnClickListener(v -> {
+            final var position = holder.getBindingAdapterPosition();
+            // Taps only select once the selection has been started by a long press.
+            if (selection.isEmpty() || position == RecyclerView.NO_POSITION) return;
+            toggleSelection(position);
+        });
+        return holder;
     }
 
     @Override
@@ -59,6 +110,12 @@ public void onBindViewHolder(@NonNull ProfileViewHolder holder, int position) {
 
         // Set the profile details button click listener
         binding.btnDetails.setOnClickListener(v -> onProfileClick.accept(holder.acc));
+
+        binding.getRoot()
+                .setCardBackgroundColor(
+                        selection.contains(holder.acc.email())
+                                ? selectionColor
+                                : holder.defaultBackground);
     }
 
     @Override
@@ -72,11 +129,14 @@ public int getItemCount() {
     public static class ProfileViewHolder extends RecyclerView.ViewHolder {
         public final FragmentProfileRowBinding binding;
         public Account acc;
+        // Background of the row while unselected.
+        private final ColorStateList defaultBackground;
 
         public ProfileViewHolder(FragmentProfileRowBinding binding) {
             super(binding.getRoot());
             // Can define click listeners here
             this.binding = binding;
+            this.defaultBackground = binding.getRoot().getCardBackgroundColor();
         }
     }
 }
@@ -13,6 +13,7 @@
 
 import com.example.evently.R;
 import com.example.evently.data.AccountDB;
+import com.example.evently.data.CascadingDelete;
 import com.example.evently.databinding.FragmentAdminProfileBinding;
 import com.example.evently.ui.common.ConfirmFragmentNoInput;
 
@@ -48,12 +49,15 @@ public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceStat
         super.onViewCreated(view, savedInstanceState);
 
         // Fetch the account information and define the information
-        accountDB.fetchAccount(accountEmail).thenRun(accountData -> {
-            String name = "Name: " + accountData.get().name();
-            String email = "Email: " + accountData.get().email();
-            binding.accountEmail.setText(email);
-            binding.accountName.setText(name);
-        });
+        accountDB
+                .fetchAccount(accountEmail)
+                .bindTo(getViewLifecycleOwner())
+                .thenRun(accountData -> {
+                    String name = "Name: " + accountData.get().name();
+                    String email = "Email: " + accountData.get().email();
+                    binding.accountEmail.setText(email);
+                    binding.accountName.setText(name);
+                });
 
         // Define the delete button click listener to open a dialog
         binding.delete.setOnClickListener(v -> {
@@ -68,13 +72,14 @@ public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceStat
 
     /**
      * The dialog closed with a confirm click.
-     * Delete the Account from the AccountDB and navigate the user back to the profile list.
+     * Delete the Account, alongside everything that refers to it, and navigate the user back to the
+     * profile list.
      * @param requestKey key of request in bundle
      * @param result confirmation result
      */
     public void onDialogConfirmClick(String requestKey, Bundle result) {
         if (!result.getBoolean(ConfirmFragmentNoInput.inputKey)) return;
-        accountDB.deleteAccount(accountEmail);
+        new CascadingDelete().deleteAccount(accountEmail);
 
         Toast.makeText(requireContext(), R.string.Profile_deleted_toast, Toast.LENGTH_SHORT)
                 .show();
@@ -25,8 +25,10 @@
 import androidx.navigation.fragment.NavHostFragment;
 import androidx.navigation.ui.NavigationUI;
 
+import com.example.evently.BuildConfig;
 import com.example.evently.R;
 import com.example.evently.data.AccountDB;
+import com.example.evently.data.generic.Tracing;
 import com.example.evently.data.model.Role;
 import com.example.evently.databinding.ActivityArchitectureBinding;
 import com.example.evently.ui.admin.AdminActivity;
@@ -164,6 +166,21 @@ public void onCreate(Bundle savedInstanceState) {
                         });
     }
 
+    /**
+     * Show the number of unseen notifications on the notifications tab of the navbar.
+     * @param unreadCount Number of unseen notifications. The badge is hidden if there are none.
+     */
+    protected void showNotificationBadge(long unreadCount) {
+        final var navBar = binding.navbar;
+        if (unreadCount > 0) {
+            final var badge = navBar.getOrCreateBadge(R.id.nav_notifs);
+            badge.setNumber((int) Math.min(unreadCount, Integer.MAX_VALUE));
+            badge.setVisible(true);
+        } else {
+            navBar.removeBadge(R.id.nav_notifs);
+        }
+    }
+
     /**
      * Handles the Action Bar "Up" button press.
      * <p>
@@ -178,6 +195,19 @@ public boolean onSupportNavigateUp() {
         return navController.navigateUp() || super.onSupportNavigateUp();
     }
 
+    /**
+     * In debug builds, logs the traced database operations once the UI is hidden, so that their
+     * latencies can be read from logcat after a session. See {@link Tracing#dump()}.
+     * @param level the memory trim level.
+     */
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (BuildConfig.DEBUG && level == TRIM_MEMORY_UI_HIDDEN) {
+            Tracing.dump();
+        }
+    }
+
     /**
      * Set up notification permission request for the user to approve.
      */
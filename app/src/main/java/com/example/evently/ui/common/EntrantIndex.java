@@ -0,0 +1,184 @@
+package com.example.evently.ui.common;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import com.example.evently.data.generic.ChunkedQuery;
+
+/**
+ * A sorted list of entrant emails, with their account names resolved a page at a time.
+ * <p>
+ * Entrants are ordered by email, so that rows keep their order as entrants come and go, and can be
+ * looked up by position in constant time. Names are only known once resolved, see
+ * {@link #claimPageOf(String)}. Resolved names are indexed for prefix search.
+ * <p>
+ * This is not thread safe, it is meant to be used from the main thread.
+ */
+public final class EntrantIndex {
+    /**
+     * Number of entrants whose names are resolved together, one whereIn query's worth.
+     */
+    public static final int PAGE_SIZE = ChunkedQuery.MAX_WHERE_IN;
+
+    // Separates the name from the email within the search keys. Sorts before any other character.
+    private static final char KEY_SEPARATOR = '\0';
+
+    private final List<String> emails;
+    private final Map<String, String> names = new HashMap<>();
+    private final Set<String> claimed = new HashSet<>();
+    // Lowercase name, then the email, of every resolved entrant.
+    private final TreeSet<String> searchKeys = new TreeSet<>();
+
+    /**
+     * @param emails Emails of the entrants, in any order. Duplicates are dropped.
+     */
+    public EntrantIndex(Collection<String> emails) {
+        this.emails = emails.stream().distinct().sorted().collect(Collectors.toList());
+    }
+
+    /**
+     * Build an index over a new list of entrants, keeping the names already resolved by this one,
+     * and the entrants already claimed, whose names are to be recorded into the new index.
+     * @param emails Emails of the entrants, in any order.
+     * @return The new index.
+     */
+    public EntrantIndex withEntrants(Collection<String> emails) {
+        final var index = new EntrantIndex(emails);
+        for (final var email : index.emails) {
+            final var name = names.get(email);
+            if (name != null) index.putName(email, name);
+            if (claimed.contains(email)) index.claimed.add(email);
+        }
+        return index;
+    }
+
+    /**
+     * @return Number of entrants.
+     */
+    public int size() {
+        return emails.size();
+    }
+
+    /**
+     * @return Emails of all the entrants, sorted.
+     */
+    public List<String> emails() {
+        return Collections.unmodifiableList(emails);
+    }
+
+    /**
+     * @param position Position of the entrant.
+     * @return Email of the entrant at the given position.
+     */
+    public String emailAt(int position) {
+        return emails.get(position);
+    }
+
+    /**
+     * @param email Email of the entrant.
+     * @return Position of the entrant, or a negative value if they are not within the index.
+     */
+    public int indexOf(String email) {
+        return Collections.binarySearch(emails, email);
+    }
+
+    /**
+     * @param email Email of the entrant.
+     * @return Account name of the entrant, if it has been resolved.
+     */
+    public Optional<String> nameOf(String email) {
+        return Optional.ofNullable(names.get(email));
+    }
+
+    /**
+     * @param email Email of the entrant.
+     * @return Account name of the entrant, or their email while the name is not yet resolved.
+     */
+    public String displayNameOf(String email) {
+        return names.getOrDefault(email, email);
+    }
+
+    /**
+     * Claim the unresolved entrants of the page holding an entrant, for the caller to resolve.
+     * <p>
+     * Claimed entrants are not handed out again, unless released.
+     * @param email Email of an entrant within the page.
+     * @return Emails to resolve. Empty if the whole page is resolved, or already claimed.
+     */
+    public List<String> claimPageOf(String email) {
+        final var position = indexOf(email);
+        if (position < 0) return List.of();
+        final var from = position / PAGE_SIZE * PAGE_SIZE;
+        return claim(emails.subList(from, Math.min(from + PAGE_SIZE, emails.size())));
+    }
+
+    /**
+     * Claim every unresolved entrant, for the caller to resolve.
+     * @return Emails to resolve. Empty if every entrant is resolved, or already claimed.
+     */
+    public List<String> claimAll() {
+        return claim(emails);
+    }
+
+    /**
+     * Release claimed entrants whose names could not be resolved, so that they may be claimed again.
+     * @param emails Emails of the entrants.
+     */
+    public void release(Collection<String> emails) {
+        claimed.removeAll(emails);
+    }
+
+    /**
+     * Record the resolved account name of an entrant. Entrants no longer within the index are
+     * ignored.
+     * @param email Email of the entrant.
+     * @param name Account name of the entrant.
+     */
+    public void putName(String email, String name) {
+        if (indexOf(email) < 0) return;
+        final var previous = names.put(email, name);
+        if (previous != null) searchKeys.remove(searchKey(previous, email));
+        searchKeys.add(searchKey(name, email));
+    }
+
+    /**
+     * Find the entrants whose names start with the given prefix, ignoring case.
+     * <p>
+     * Only the resolved names are searched.
+     * @param prefix Prefix of the names.
+     * @return Emails of the matching entrants, ordered by name.
+     */
+    public List<String> searchByNamePrefix(String prefix) {
+        final var lower = prefix.toLowerCase(Locale.ROOT);
+        final var matches = new ArrayList<String>();
+        for (final var key : searchKeys.tailSet(lower)) {
+            if (!key.startsWith(lower)) break;
+            final var separator = key.indexOf(KEY_SEPARATOR);
+            // The prefix must match the name, not run on into the email.
+            if (separator >= lower.length()) matches.add(key.substring(separator + 1));
+        }
+        return matches;
+    }
+
+    private List<String> claim(List<String> candidates) {
+        final var unresolved = new ArrayList<String>();
+        for (final var email : candidates) {
+            if (!names.containsKey(email) && claimed.add(email)) unresolved.add(email);
+        }
+        return unresolved;
+    }
+
+    private static String searchKey(String name, String email) {
+        return name.toLowerCase(Locale.ROOT) + KEY_SEPARATOR + email;
+    }
+}
@@ -1,22 +1,35 @@
 package com.example.evently.ui.common;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
+import android.content.Context;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.evently.R;
 import com.example.evently.databinding.FragmentEntrantBinding;
 
 /**
  * Recycler view that displays each entrant as a row with their profile picture and name
+ * <p>
+ * Rows are looked up by position in constant time, and named through an {@link EntrantIndex}.
+ * Entrants whose names are not yet resolved are shown by email, and reported as they are bound, so
+ * that their page can be resolved.
+ * <p>
+ * Rows may be made selectable, see {@link #enableSelection(Context, Consumer)}. A long press on a
+ * row starts the selection, after which a tap toggles a row.
  */
 public class EntrantRecyclerViewAdapter
-        extends RecyclerView.Adapter<EntrantRecyclerViewAdapter.EntrantViewHolder> {
+        extends ListAdapter<String, EntrantRecyclerViewAdapter.EntrantViewHolder> {
 
     /**
      * Listener to set on the "remove entrant" button active during cancelled entrants list.
@@ -26,25 +39,44 @@ public interface OnRemoveButtonClickListener {
         void onRemoveButtonClick(String email);
     }
 
-    private final Map<String, String> entrants;
-    private boolean showRemoveButton = false;
-    private OnRemoveButtonClickListener removeButtonListener = ignored -> {};
-
-    public EntrantRecyclerViewAdapter() {
-        this.entrants = new HashMap<>();
-    }
-
-    public EntrantRecyclerViewAdapter(Map<String, String> entrants) {
-        this.entrants = entrants;
-    }
+    private static final DiffUtil.ItemCallback<String> EMAIL_DIFF =
+            new DiffUtil.ItemCallback<>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull String oldEmail, @NonNull String newEmail) {
+                    return oldEmail.equals(newEmail);
+                }
+
+                @Override
+                public boolean areContentsTheSame(
+                        @NonNull String oldEmail, @NonNull String newEmail) {
+                    // Name changes are notified separately, see onNamesResolved.
+                    return oldEmail.equals(newEmail);
+                }
+            };
+
+    private final boolean showRemoveButton;
+    private final OnRemoveButtonClickListener removeButtonListener;
+    private final Consumer<String> onEntrantBound;
+    private EntrantIndex index = new EntrantIndex(List.of());
+
+    private final Set<String> selection = new LinkedHashSet<>();
+    private boolean selectable = false;
+    private int selectionColor;
+    private Consumer<Set<String>> onSelectionChanged = ignored -> {};
 
+    /**
+     * @param showRemoveButton Whether to show the remove button on each row.
+     * @param listener Called when the remove button of a row is clicked.
+     * @param onEntrantBound Called with the email of every entrant bound to a row.
+     */
     public EntrantRecyclerViewAdapter(
-            Map<String, String> entrants,
             boolean showRemoveButton,
-            OnRemoveButtonClickListener listener) {
-        this.entrants = entrants;
+            OnRemoveButtonClickListener listener,
+            Consumer<String> onEntrantBound) {
+        super(EMAIL_DIFF);
         this.showRemoveButton = showRemoveButton;
         this.removeButtonListener = listener;
+        this.onEntrantBound = onEntrantBound;
     }
 
     public static class EntrantViewHolder extends RecyclerView.ViewHolder {
@@ -57,39 +89,102 @@ public EntrantViewHolder(FragmentEntrantBinding binding) {
         }
     }
 
-    @NonNull @Override
-    public EntrantViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        return new EntrantViewHolder(FragmentEntrantBinding.inflate(
-                LayoutInflater.from(parent.getContext()), parent, false));
+    /**
+     * Display the given entrants.
+     * @param index Index holding the names of the entrants.
+     * @param emails Emails of the entrants to display, in display order.
+     */
+    public void submitEntrants(EntrantIndex index, List<String> emails) {
+        this.index = index;
+        // Entrants that left the list can no longer be selected. Those hidden by a search stay.
+        if (selection.removeIf(email -> index.indexOf(email) < 0)) {
+            onSelectionChanged.accept(Set.copyOf(selection));
+        }
+        submitList(emails);
     }
 
-    @Override
-    public void onBindViewHolder(@NonNull final EntrantViewHolder holder, int position) {
-        // Only set the names if the entrant list is not empty
-        if (entrants.isEmpty()) {
-            return;
-        }
-        var binding = holder.binding;
+    /**
+     * Let the user select rows.
+     * @param context Context the rows are displayed in.
+     * @param onSelectionChanged Called with the emails of the selected entrants, whenever the
+     *                           selection changes.
+     */
+    public void enableSelection(Context context, Consumer<Set<String>> onSelectionChanged) {
+        this.selectable = true;
+        this.selectionColor = ContextCompat.getColor(context, R.color.selection_highlight);
+        this.onSelectionChanged = onSelectionChanged;
+    }
 
-        // Define the names
-        String email = entrants.keySet().stream().collect(Collectors.toList()).get(position);
-        String name = entrants.get(email);
+    /**
+     * Unselect every row.
+     */
+    public void clearSelection() {
+        if (selection.isEmpty()) return;
+        selection.clear();
+        onSelectionChanged.accept(Set.of());
+        notifyItemRangeChanged(0, getItemCount());
+    }
 
-        // Set the name of each person
-        binding.entrantName.setText(name);
+    // Select or unselect the entrant at the given position.
+    private void toggleSelection(int position) {
+        final var email = getItem(position);
+        if (!selection.remove(email)) selection.add(email);
+        onSelectionChanged.accept(Set.copyOf(selection));
+        notifyItemChanged(position);
+    }
+
+    /**
+     * Refresh the rows after more names were resolved within the index.
+     */
+    public void onNamesResolved() {
+        // Only the rows currently on screen are actually rebound.
+        notifyItemRangeChanged(0, getItemCount());
+    }
+
+    @NonNull @Override
+    public EntrantViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        final var holder = new EntrantViewHolder(FragmentEntrantBinding.inflate(
+                LayoutInflater.from(parent.getContext()), parent, false));
 
         // If we need to have the remove button, it is shown
         if (showRemoveButton) {
-            binding.removeButton.setVisibility(View.VISIBLE);
+            holder.binding.removeButton.setVisibility(View.VISIBLE);
         }
 
-        // Sets Onclick listener for the remove button
-        binding.removeButton.setOnClickListener(
-                v -> removeButtonListener.onRemoveButtonClick(email));
+        // Sets Onclick listener for the remove button, on whichever entrant the row is bound to.
+        holder.binding.removeButton.setOnClickListener(v -> {
+            final var position = holder.getBindingAdapterPosition();
+            if (position != RecyclerView.NO_POSITION) {
+                removeButtonListener.onRemoveButtonClick(getItem(position));
+            }
+        });
+
+        holder.binding.getRoot().setOnLongClickListener(v -> {
+            final var position = holder.getBindingAdapterPosition();
+            if (!selectable || position == RecyclerView.NO_POSITION) return false;
+            toggleSelection(position);
+            return true;
+        });
+        holder.binding.getRoot().setOnClickListener(v -> {
+            final var position = holder.getBindingAdapterPosition();
+            // Taps only select once the selection has been started by a long press.
+            if (selection.isEmpty() || position == RecyclerView.NO_POSITION) return;
+            toggleSelection(position);
+        });
+        return holder;
     }
 
     @Override
-    public int getItemCount() {
-        return entrants.size();
+    public void onBindViewHolder(@NonNull final EntrantViewHolder holder, int position) {
+        final var email = getItem(position);
+
+        // Set the name of each person
+        holder.binding.entrantName.setText(index.displayNameOf(email));
+        if (selection.contains(email)) {
+            holder.binding.getRoot().setBackgroundColor(selectionColor);
+        } else {
+            holder.binding.getRoot().setBackground(null);
+        }
+        onEntrantBound.accept(email);
     }
 }
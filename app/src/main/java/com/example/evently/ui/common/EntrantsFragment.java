@@ -1,23 +1,26 @@
 package com.example.evently.ui.common;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 import android.content.Context;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.SearchView;
+import android.widget.Toast;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
-import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.evently.R;
 import com.example.evently.data.AccountDB;
 import com.example.evently.data.EventsDB;
+import com.example.evently.data.generic.Promise;
 import com.example.evently.data.model.EventEntrants;
+import com.example.evently.databinding.FragmentEntrantListBinding;
 import com.example.evently.ui.model.EventViewModel;
 
 /**
@@ -38,6 +41,11 @@ public abstract sealed class EntrantsFragment extends Fragment
     protected EventViewModel eventViewModel;
     protected boolean showRemoveButton = false;
 
+    private final AccountDB accountDB = new AccountDB();
+    private EntrantRecyclerViewAdapter adapter;
+    private EntrantIndex index = new EntrantIndex(List.of());
+    private String searchPrefix = "";
+
     /**
      * Select the type of entrants we aim to display.
      * <p>
@@ -50,33 +58,102 @@ public abstract sealed class EntrantsFragment extends Fragment
     @Override
     public View onCreateView(
             LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
-        View view = inflater.inflate(R.layout.fragment_entrant_list, container, false);
+        final var binding = FragmentEntrantListBinding.inflate(inflater, container, false);
 
         eventViewModel = new ViewModelProvider(requireParentFragment()).get(EventViewModel.class);
 
-        if (!(view instanceof RecyclerView recyclerView))
-            throw new AssertionError("EntrantsFragment.onCreateView called with non RecyclerView");
-
+        final var recyclerView = binding.entrantList;
         Context context = recyclerView.getContext();
         recyclerView.setLayoutManager(new LinearLayoutManager(context));
 
-        // We set up an initial empty adapter, to allow the usage of swapAdapter later.
-        recyclerView.setAdapter(new EntrantRecyclerViewAdapter());
+        // Names are resolved a page at a time, as their rows come into view.
+        adapter = new EntrantRecyclerViewAdapter(
+                showRemoveButton, this::cancelEntrant, email -> resolve(index.claimPageOf(email)));
+        recyclerView.setAdapter(adapter);
+
+        // Entrants that can be removed one at a time can also be removed many at a time.
+        if (showRemoveButton) {
+            final var cancelSelected = binding.cancelSelectedEntrants;
+            adapter.enableSelection(context, selection -> {
+                cancelSelected.setVisibility(selection.isEmpty() ? View.GONE : View.VISIBLE);
+                cancelSelected.setText(
+                        getString(R.string.cancel_selected_entrants, selection.size()));
+                cancelSelected.setOnClickListener(v -> {
+                    cancelSelected.setEnabled(false);
+                    cancelEntrants(new ArrayList<>(selection))
+                            .bindTo(getViewLifecycleOwner())
+                            .thenRun(x -> {
+                                cancelSelected.setEnabled(true);
+                                adapter.clearSelection();
+                            })
+                            .catchE(e -> {
+                                Log.e("EntrantsFragment", e.toString());
+                                Toast.makeText(
+                                                requireContext(),
+                                                "Something went wrong...",
+                                                Toast.LENGTH_SHORT)
+                                        .show();
+                                cancelSelected.setEnabled(true);
+                            });
+                });
+            });
+        }
 
         // Set up an observer to update the event entrants as they change.
         eventViewModel.getEventEntrantsLive().observe(getViewLifecycleOwner(), eventEntrants -> {
-            final var selectedEntrantList = selectEntrantList(eventEntrants);
-            new AccountDB().fetchAccounts(selectedEntrantList).thenRun(accounts -> {
-                final var accountNames = accounts.stream()
-                        .map(acc -> Map.entry(acc.email(), acc.name()))
-                        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-                final var adapter = new EntrantRecyclerViewAdapter(
-                        accountNames, showRemoveButton, this::cancelEntrant);
-                recyclerView.swapAdapter(adapter, false);
-            });
+            // Names resolved so far carry over, only new entrants need to be looked up.
+            index = index.withEntrants(selectEntrantList(eventEntrants));
+            showEntrants();
+        });
+
+        binding.entrantSearch.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextChange(String newText) {
+                searchPrefix = newText.trim();
+                // Searching goes through every name, so resolve all of them.
+                if (!searchPrefix.isEmpty()) resolve(index.claimAll());
+                showEntrants();
+                return false;
+            }
+
+            // Don't need to do anything here since we update search on demand.
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                return false;
+            }
         });
 
-        return view;
+        return binding.getRoot();
+    }
+
+    // Display the entrants of the index, narrowed down by the search if any.
+    private void showEntrants() {
+        adapter.submitEntrants(
+                index,
+                searchPrefix.isEmpty() ? index.emails() : index.searchByNamePrefix(searchPrefix));
+    }
+
+    // Look up the account names of the given entrants, then refresh the rows.
+    private void resolve(List<String> emails) {
+        if (emails.isEmpty()) return;
+        // The index outlives the view, so it takes the names even once the view is gone. It may have
+        // been replaced in the meantime, in which case the names go to the entrants still within it.
+        accountDB
+                .fetchAccounts(emails)
+                .thenRun(accounts -> accounts.forEach(
+                        account -> index.putName(account.email(), account.name())))
+                .catchE(e -> {
+                    Log.e("EntrantsFragment", e.toString());
+                    index.release(emails);
+                })
+                .bindTo(getViewLifecycleOwner())
+                .thenRun(accounts -> {
+                    if (searchPrefix.isEmpty()) {
+                        adapter.onNamesResolved();
+                    } else {
+                        showEntrants();
+                    }
+                });
     }
 
     public static final class EnrolledEntrantsFragment extends EntrantsFragment {
@@ -118,6 +195,17 @@ protected List<String> selectEntrantList(EventEntrants entrantsInfo) {
         }
     }
 
+    /**
+     * Cancel many selected entrants at once.
+     * @param emails The target entrants
+     * @return Promise.
+     */
+    private Promise<Void> cancelEntrants(List<String> emails) {
+        assert eventViewModel.eventID != null;
+        // A single batch, so that the server redraws the lottery once for all of them.
+        return new EventsDB().cancelSelectedUsers(eventViewModel.eventID, emails);
+    }
+
     /**
      * Cancel a selected entrant.
      * @param email The target entrant
@@ -126,7 +214,7 @@ private void cancelEntrant(String email) {
         EventsDB eventsDB = new EventsDB();
 
         assert eventViewModel.eventID != null;
-        eventsDB.cancelSelectedUser(eventViewModel.eventID, email)
-                .thenRun(x -> eventViewModel.requestEntrantsUpdate());
+        // The entrants listener of the view model picks up the change.
+        eventsDB.cancelSelectedUser(eventViewModel.eventID, email);
     }
 }
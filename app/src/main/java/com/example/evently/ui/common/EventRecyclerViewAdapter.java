@@ -4,16 +4,25 @@
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
+import android.content.Context;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.ViewGroup;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.firebase.storage.StorageReference;
 
 import com.example.evently.data.EventsDB;
+import com.example.evently.data.generic.LaneScheduler;
+import com.example.evently.data.generic.Promise;
 import com.example.evently.data.model.Event;
 import com.example.evently.data.model.EventStatus;
 import com.example.evently.databinding.FragmentEventBinding;
@@ -26,29 +35,93 @@
  * <p>
  * This is not abstract since there's no requirement for displaying {@link Event}s differently.
  * They always look the same (a little box with all the event brief info + picture).
+ * <p>
+ * Events are turned into {@link EventRow}s in the background, as they arrive. Binding a row then
+ * only assigns the prepared strings to the views. New lists are diffed against the current one in
+ * the background too, so that only the rows that actually changed are rebound.
  */
 public class EventRecyclerViewAdapter
-        extends RecyclerView.Adapter<EventRecyclerViewAdapter.EventViewHolder> {
+        extends ListAdapter<
+                EventRecyclerViewAdapter.EventRow, EventRecyclerViewAdapter.EventViewHolder> {
 
     public interface EventOnClickListener {
         void accept(Event n);
     }
 
+    /**
+     * Everything displayed by the row of an event, ready to be assigned to the views.
+     * @param event The event itself.
+     * @param status Label of the event status.
+     * @param selectionDate Label of the selection date, or of the closed waitlist.
+     * @param eventDate Label of the event date.
+     * @param category Label of the event category.
+     * @param entrants Label of the entrant count, out of the entrant limit if any.
+     * @param seats Label of the selection limit.
+     * @param poster Reference to the poster of the event.
+     */
+    public record EventRow(
+            Event event,
+            String status,
+            String selectionDate,
+            String eventDate,
+            String category,
+            String entrants,
+            String seats,
+            StorageReference poster) {
+        /**
+         * Prepare the row of an event.
+         * @param event The event.
+         * @param now The current time, which the status of the event depends on.
+         * @param eventsDB Database to find the poster in.
+         * @return The row.
+         */
+        public static EventRow of(Event event, Instant now, EventsDB eventsDB) {
+            final var isOpen = event.computeStatus(now) == EventStatus.OPEN;
+            final var entrantCount = event.entrantCounts().enrolled();
+            return new EventRow(
+                    event,
+                    isOpen ? "Open" : "Closed",
+                    isOpen
+                            ? MessageFormat.format(
+                                    "Selection date: {0}",
+                                    SELECTION_DATE_FORMATTER.format(
+                                            event.selectionTime().toInstant()))
+                            : "Waitlist closed",
+                    EVENT_DATE_TIME_FORMATTER.format(event.eventTime().toInstant()),
+                    event.category().toString(),
+                    event.optionalEntrantLimit()
+                            .map(limit -> MessageFormat.format(
+                                    "{0} / {1} Entrants", entrantCount, limit))
+                            .orElseGet(() ->
+                                    MessageFormat.format("{0} Entrants", entrantCount)),
+                    MessageFormat.format("Seats: {0}", event.selectionLimit()),
+                    eventsDB.getPosterStorageRef(event.eventID()));
+        }
+    }
+
     private static final DateTimeFormatter SELECTION_DATE_FORMATTER =
             DateTimeFormatter.ofPattern("yyyy-MM-dd").withZone(ZoneId.systemDefault());
     private static final DateTimeFormatter EVENT_DATE_TIME_FORMATTER =
             DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
-    private final List<Event> mValues;
+    private final Context context;
+    private final EventsDB eventsDB = new EventsDB();
     private final EventOnClickListener onEventClick;
 
+    // Bumped by every replacement of the list, so that rows prepared for an older list are dropped.
+    // Only touched on the main thread.
+    private int generation = 0;
+
     /**
      * Creates an adapter for rendering {@link Event} items and handling per-item clicks.
-     * @param items list of events to display; retained by reference.
+     * The list starts out empty, see {@link #submitEvents(List, Runnable)}.
+     * @param context context the rows are displayed in.
      * @param onEventClick callback invoked when the item's “Details” button is pressed.
      */
-    public EventRecyclerViewAdapter(List<Event> items, EventOnClickListener onEventClick) {
-        mValues = items;
+    public EventRecyclerViewAdapter(Context context, EventOnClickListener onEventClick) {
+        super(UuidItemDiff.config(row -> row.event().eventID()));
+        this.context = context;
         this.onEventClick = onEventClick;
+        setHasStableIds(true);
     }
 
     /**
@@ -61,8 +134,12 @@ public EventRecyclerViewAdapter(List<Event> items, EventOnClickListener onEventC
      */
     @NonNull @Override
     public EventViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        return new EventViewHolder(FragmentEventBinding.inflate(
+        final var holder = new EventViewHolder(FragmentEventBinding.inflate(
                 LayoutInflater.from(parent.getContext()), parent, false));
+        // Details button with given click logic, on whichever event the row is bound to.
+        holder.binding.btnDetails.setOnClickListener(
+                v -> onEventClick.accept(holder.mItem.event()));
+        return holder;
     }
 
     /**
@@ -72,73 +149,84 @@ public EventViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewTyp
      */
     @Override
     public void onBindViewHolder(final EventViewHolder holder, int position) {
-        // Attach the Event to the view.
-        holder.mItem = mValues.get(position);
-        var binding = holder.binding;
-
-        // Title / name
-        binding.content.setText(holder.mItem.name());
-
-        // Gets a reference to the poster, and stores it in the image view.
-        StorageReference posterReference =
-                new EventsDB().getPosterStorageRef(holder.mItem.eventID());
-        GlideUtils.loadPosterIntoImageView(posterReference, binding.imgPoster);
-
-        // Status + selectionDate
-        EventStatus status = holder.mItem.computeStatus(Instant.now());
-
-        switch (status) {
-            case OPEN -> {
-                binding.txtStatus.setText("Open");
-                binding.txtselectionDate.setText(MessageFormat.format(
-                        "Selection date: {0}",
-                        SELECTION_DATE_FORMATTER.format(
-                                holder.mItem.selectionTime().toInstant())));
-            }
-            case CLOSED -> {
-                binding.txtStatus.setText("Closed");
-                binding.txtselectionDate.setText("Waitlist closed");
-            }
-        }
+        // Attach the row to the view.
+        holder.mItem = getItem(position);
+        final var row = holder.mItem;
+        final var binding = holder.binding;
+
+        binding.content.setText(row.event().name());
+        GlideUtils.loadPosterIntoImageView(row.poster(), binding.imgPoster);
+        binding.txtStatus.setText(row.status());
+        binding.txtselectionDate.setText(row.selectionDate());
+        binding.txtDate.setText(row.eventDate());
+        binding.txtDescription.setText(row.event().description());
+        binding.txtCategory.setText(row.category());
+        binding.txtEntrants.setText(row.entrants());
+        binding.txtSelectionLimit.setText(row.seats());
+    }
 
-        // Event date
-        binding.txtDate.setText(
-                EVENT_DATE_TIME_FORMATTER.format(holder.mItem.eventTime().toInstant()));
-
-        // Details button with given click logic.
-        binding.btnDetails.setOnClickListener(v -> onEventClick.accept(holder.mItem));
-
-        // Event description
-        binding.txtDescription.setText(holder.mItem.description());
-
-        // Event category
-        binding.txtCategory.setText(holder.mItem.category().toString());
-
-        // Entrants count
-        EventsDB db = new EventsDB();
-        db.fetchEventEntrants(holder.mItem.eventID()).thenRun(eventEntrants -> {
-            Integer entrants = eventEntrants.get().all().size();
-            if (holder.mItem.optionalEntrantLimit().isEmpty()) {
-                binding.txtEntrants.setText(MessageFormat.format("{0} Entrants", entrants));
-            } else {
-                binding.txtEntrants.setText(MessageFormat.format(
-                        "{0} / {1} Entrants",
-                        entrants, holder.mItem.optionalEntrantLimit().get()));
-            }
+    /**
+     * Replaces the list of events. The rows are prepared in the background.
+     * If another list is submitted meanwhile, these events are dropped.
+     * @param events events to display, in display order.
+     * @param onCommitted called once the events are displayed.
+     */
+    public void submitEvents(List<Event> events, Runnable onCommitted) {
+        final var submitted = ++generation;
+        prepareRows(events, rows -> {
+            // A newer list was submitted while these rows were being prepared.
+            if (submitted != generation) return;
+            submitList(rows, onCommitted);
+        });
+    }
+
+    /**
+     * Appends a freshly loaded page of events to the end of the list.
+     * The rows are prepared in the background. If the list is replaced meanwhile, these
+     * events are dropped.
+     * @param events events to add, in display order.
+     * @param onCommitted called once the events are displayed.
+     */
+    public void appendEvents(List<Event> events, Runnable onCommitted) {
+        final var submitted = generation;
+        prepareRows(events, rows -> {
+            // The list these events follow was replaced while their rows were being prepared.
+            if (submitted != generation) return;
+            final var all = new ArrayList<>(getCurrentList());
+            all.addAll(rows);
+            submitList(all, onCommitted);
         });
+    }
+
+    // Prepares the rows in the background, or right here if the prefetch lane is full.
+    private void prepareRows(List<Event> events, Consumer<List<EventRow>> onPrepared) {
+        Promise.launch(context, LaneScheduler.Lane.PREFETCH, () -> toRows(events))
+                .onSuccess(onPrepared)
+                .onFailure(e -> {
+                    if (e instanceof RejectedExecutionException) {
+                        // Late rows on the main thread beat a stale list.
+                        onPrepared.accept(toRows(events));
+                    } else {
+                        Log.e("EventRecyclerViewAdapter", "Failed to prepare event rows", e);
+                    }
+                });
+    }
 
-        // Selection Limit
-        binding.txtSelectionLimit.setText(
-                MessageFormat.format("Seats: {0}", holder.mItem.selectionLimit()));
+    private List<EventRow> toRows(List<Event> events) {
+        final var now = Instant.now();
+        return events.stream()
+                .map(event -> EventRow.of(event, now, eventsDB))
+                .collect(Collectors.toList());
     }
 
     /**
-     * Returns the number of {@link Event} items currently held by the adapter.
-     * @return the total item count to be rendered.
+     * Returns a stable ID for the {@link Event} at the given position, derived from its UUID.
+     * @param position position of the event.
+     * @return the stable ID.
      */
     @Override
-    public int getItemCount() {
-        return mValues.size();
+    public long getItemId(int position) {
+        return UuidItemDiff.stableId(getItem(position).event().eventID());
     }
 
     /**
@@ -146,7 +234,7 @@ public int getItemCount() {
      */
     public static class EventViewHolder extends RecyclerView.ViewHolder {
         public final FragmentEventBinding binding;
-        public Event mItem;
+        public EventRow mItem;
 
         /**
          * Constructs a new ViewHolder using the provided ViewBinding.
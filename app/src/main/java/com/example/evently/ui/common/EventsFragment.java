@@ -1,6 +1,6 @@
 package com.example.evently.ui.common;
 
-import java.util.List;
+import java.util.Optional;
 import java.util.function.Consumer;
 
 import android.os.Bundle;
@@ -11,6 +11,7 @@
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
+import com.example.evently.data.generic.Page;
 import com.example.evently.data.model.Event;
 
 /**
@@ -37,16 +38,24 @@ protected LiveData<Void> getLiveData() {
     }
 
     @Override
-    protected void updateEventsBy(Void target, Consumer<List<Event>> act) {
-        initEvents(act);
+    protected void updateEventsBy(
+            Void target,
+            Optional<Page.Token> after,
+            Consumer<Page<Event>> act,
+            Runnable onFailure) {
+        initEvents(after, act, onFailure);
     }
 
     /**
-     * This method will be called by onCreateView to set up the events view.
+     * This method will be called by onCreateView to set up the events view,
+     * and again whenever the user scrolls near the end of the loaded events.
      * It is guaranteed that the activity context will be available at the time of calling.
-     * @param callback Callback that will be passed the events into.
+     * @param after Token of the previously loaded page, or empty for the first page.
+     * @param callback Callback that will be passed the page of events into.
+     * @param onFailure Called instead of the callback if the page could not be fetched.
      */
-    protected abstract void initEvents(Consumer<List<Event>> callback);
+    protected abstract void initEvents(
+            Optional<Page.Token> after, Consumer<Page<Event>> callback, Runnable onFailure);
 
     @Override
     public View onCreateView(
@@ -1,7 +1,6 @@
 package com.example.evently.ui.common;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Optional;
 import java.util.function.Consumer;
 
 import android.os.Bundle;
@@ -12,9 +11,11 @@
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.LiveData;
+import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.evently.R;
+import com.example.evently.data.generic.Page;
 import com.example.evently.data.model.Event;
 
 /**
@@ -22,9 +23,25 @@
  * <p>
  * Subclasses supply a {@link LiveData} source and refresh trigger, and provide
  * per-item click handling via {@link #onEventClick(Event)}.
+ * <p>
+ * Events are loaded a page at a time. The next page is requested as the user scrolls near the end of the list.
  */
 public abstract class LiveEventsFragment<T> extends Fragment {
 
+    /**
+     * Number of rows left below the last visible one at which the next page starts loading.
+     */
+    private static final int PREFETCH_DISTANCE = 5;
+
+    private RecyclerView recyclerView;
+    private EventRecyclerViewAdapter adapter;
+
+    // Loads the next page of the current target. This is a no-op when there's nothing (more) to load.
+    private Runnable loadNextPage = () -> {};
+
+    // Bumped on every new target, so that pages belonging to a stale target can be dropped.
+    private int generation = 0;
+
     /**
      *
      * @return the {@link LiveData} source for events to render.
@@ -32,12 +49,18 @@
     protected abstract LiveData<T> getLiveData();
 
     /**
-     * Updates the list of events based on the latest observed data.
+     * Fetches a page of events based on the latest observed data.
      *
      * @param target new value from {@link #getLiveData()}.
-     * @param act callback to receive the updated {@link Event} list.
+     * @param after token of the previously loaded page, or empty for the first page.
+     * @param act callback to receive the fetched {@link Page} of events.
+     *            Sources that aren't paginated may simply yield everything as the last page.
+     *            It may be called again with fresher results, which replace the earlier ones.
+     * @param onFailure called instead of {@code act} if the page could not be fetched.
+     * @see Page#last
      */
-    protected abstract void updateEventsBy(T target, Consumer<List<Event>> act);
+    protected abstract void updateEventsBy(
+            T target, Optional<Page.Token> after, Consumer<Page<Event>> act, Runnable onFailure);
 
     /**
      * Listener to attach to the event on click.
@@ -51,23 +74,78 @@ public View onCreateView(
             @NonNull LayoutInflater inflater,
             @Nullable ViewGroup container,
             @Nullable Bundle savedInstanceState) {
-        RecyclerView recyclerView =
+        recyclerView =
                 (RecyclerView) inflater.inflate(R.layout.fragment_event_list, container, false);
 
         if (recyclerView == null) {
             throw new AssertionError("EventsFragment.onCreateView called with non RecyclerView");
         }
 
-        recyclerView.setAdapter(
-                new EventRecyclerViewAdapter(new ArrayList<>(), this::onEventClick));
+        adapter = new EventRecyclerViewAdapter(requireContext(), this::onEventClick);
+        recyclerView.setAdapter(adapter);
+
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView view, int dx, int dy) {
+                loadNextPageIfNearEnd();
+            }
+        });
 
         getLiveData().observe(getViewLifecycleOwner(), target -> {
-            updateEventsBy(target, events -> {
-                final var adapter = new EventRecyclerViewAdapter(events, this::onEventClick);
-                recyclerView.swapAdapter(adapter, false);
-            });
+            final var gen = ++generation;
+            // Don't let the previous target keep loading pages.
+            loadNextPage = () -> {};
+            updateEventsBy(
+                    target,
+                    Optional.empty(),
+                    page -> {
+                        if (gen != generation) return;
+                        // Only the rows that differ from the previous target get rebound.
+                        adapter.submitEvents(page.items(), () -> {
+                            if (gen == generation) onPageLoaded(target, gen, page);
+                        });
+                    },
+                    () -> {});
         });
 
         return recyclerView;
     }
+
+    // Set up the loader for the page following the one that was just loaded.
+    private void onPageLoaded(T target, int gen, Page<Event> page) {
+        loadNextPage = page.next().map(token -> pageLoader(target, gen, token)).orElse(() -> {});
+        // The page may not have filled up the screen, in which case there will be no scroll to trigger the next one.
+        recyclerView.post(this::loadNextPageIfNearEnd);
+    }
+
+    // Loads the page following the given token, once.
+    private Runnable pageLoader(T target, int gen, Page.Token token) {
+        return () -> {
+            // Only ever request a page once, even if we are scrolled again while loading.
+            loadNextPage = () -> {};
+            updateEventsBy(
+                    target,
+                    Optional.of(token),
+                    nextPage -> {
+                        if (gen != generation) return;
+                        adapter.appendEvents(nextPage.items(), () -> {
+                            if (gen == generation) onPageLoaded(target, gen, nextPage);
+                        });
+                    },
+                    () -> {
+                        // Let the next scroll request the same page again.
+                        if (gen == generation) loadNextPage = pageLoader(target, gen, token);
+                    });
+        };
+    }
+
+    private void loadNextPageIfNearEnd() {
+        if (!(recyclerView.getLayoutManager() instanceof LinearLayoutManager layoutManager)) {
+            return;
+        }
+        final var lastVisible = layoutManager.findLastVisibleItemPosition();
+        if (lastVisible + PREFETCH_DISTANCE >= adapter.getItemCount()) {
+            loadNextPage.run();
+        }
+    }
 }
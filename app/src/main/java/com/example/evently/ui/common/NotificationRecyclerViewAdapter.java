@@ -2,19 +2,28 @@
 
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.OptionalInt;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import android.content.Context;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.evently.R;
+import com.example.evently.data.generic.LaneScheduler;
+import com.example.evently.data.generic.Promise;
 import com.example.evently.data.model.Notification;
 import com.example.evently.databinding.FragmentNotifBinding;
 import com.example.evently.utils.FirebaseAuthUtils;
@@ -25,60 +34,158 @@
  * This is meant to be a reusable class for displaying each {@link Notification}.
  * <p>
  * This should essentially be managed entirely by the owner fragment.
+ * <p>
+ * Notifications are turned into {@link NotificationRow}s in the background, as they arrive.
+ * New lists are diffed against the current one in the background too, so that only the rows that
+ * actually changed are rebound.
  */
 public class NotificationRecyclerViewAdapter
-        extends RecyclerView.Adapter<NotificationRecyclerViewAdapter.NotificationViewHolder> {
+        extends ListAdapter<
+                NotificationRecyclerViewAdapter.NotificationRow,
+                NotificationRecyclerViewAdapter.NotificationViewHolder> {
 
     public interface NotificationOnClickListener {
         void accept(Notification n);
     }
 
+    /**
+     * Everything displayed by the row of a notification, ready to be assigned to the views.
+     * @param notification The notification itself.
+     * @param date Label of the creation time.
+     * @param seen Whether the current user has seen the notification.
+     */
+    public record NotificationRow(Notification notification, String date, boolean seen) {
+        /**
+         * Prepare the row of a notification.
+         * @param notification The notification.
+         * @param email Email of the current user.
+         * @return The row.
+         */
+        public static NotificationRow of(Notification notification, String email) {
+            return new NotificationRow(
+                    notification,
+                    DATE_TIME_FORMATTER.format(notification.creationTime()),
+                    notification.hasSeen(email));
+        }
+    }
+
     private static final DateTimeFormatter DATE_TIME_FORMATTER =
             DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.of("UTC"));
-    private final List<Notification> mValues;
+    private final Context context;
     private final NotificationOnClickListener onNotificationClick;
     private final String entrantEmail;
+    private final int highlightColor;
+
+    // Bumped by every replacement of the list, so that rows prepared for an older list are dropped.
+    // Only touched on the main thread.
+    private int generation = 0;
 
+    /**
+     * Creates an adapter for rendering {@link Notification} items. The list starts out empty,
+     * see {@link #submitNotifications(List, Runnable)}.
+     * @param context context the rows are displayed in.
+     * @param onNotificationClick callback invoked when an item is clicked.
+     */
     public NotificationRecyclerViewAdapter(
-            List<Notification> items, NotificationOnClickListener onNotificationClick) {
-        mValues = items;
+            Context context, NotificationOnClickListener onNotificationClick) {
+        super(UuidItemDiff.config(row -> row.notification().id()));
+        this.context = context;
         entrantEmail = FirebaseAuthUtils.getCurrentEmail();
+        highlightColor = ContextCompat.getColor(context, R.color.notif_highlight);
         this.onNotificationClick = onNotificationClick;
+        setHasStableIds(true);
     }
 
     @NonNull @Override
     public NotificationViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        return new NotificationViewHolder(FragmentNotifBinding.inflate(
+        final var holder = new NotificationViewHolder(FragmentNotifBinding.inflate(
                 LayoutInflater.from(parent.getContext()), parent, false));
+        final var binding = holder.binding;
+        binding.notifTitle.setVisibility(View.VISIBLE);
+        binding.notifDate.setVisibility(View.VISIBLE);
+        // Set the user provided listener, on whichever notification the row is bound to.
+        binding.notifCardLayout.setOnClickListener(
+                v -> onNotificationClick.accept(holder.mItem.notification()));
+        return holder;
     }
 
     @Override
     public void onBindViewHolder(final NotificationViewHolder holder, int position) {
-        // Attach the Event to the view.
-        holder.mItem = mValues.get(position);
-        var notif = holder.mItem;
-        var binding = holder.binding;
-        var ctx = binding.getRoot().getContext();
+        // Attach the row to the view.
+        holder.mItem = getItem(position);
+        final var row = holder.mItem;
+        final var binding = holder.binding;
 
-        binding.notifTitle.setText(notif.title());
-        binding.notifTitle.setVisibility(View.VISIBLE);
-        binding.notifDescription.setText(notif.description());
-        binding.notifDate.setText(DATE_TIME_FORMATTER.format(notif.creationTime()));
-        binding.notifDate.setVisibility(View.VISIBLE);
+        binding.notifTitle.setText(row.notification().title());
+        binding.notifDescription.setText(row.notification().description());
+        binding.notifDate.setText(row.date());
 
         // Highlight if not seen.
-        if (!notif.hasSeen(entrantEmail)) {
-            binding.notifCardLayout.setBackgroundColor(
-                    ContextCompat.getColor(ctx, R.color.notif_highlight));
+        if (!row.seen()) {
+            binding.notifCardLayout.setBackgroundColor(highlightColor);
+        } else {
+            // The row may have been highlighted for a previous notification, or before being seen.
+            binding.notifCardLayout.setBackground(null);
         }
-
-        // Set the user provided listener.
-        binding.notifCardLayout.setOnClickListener(v -> onNotificationClick.accept(notif));
     }
 
     @Override
-    public int getItemCount() {
-        return mValues.size();
+    public long getItemId(int position) {
+        return UuidItemDiff.stableId(getItem(position).notification().id());
+    }
+
+    /**
+     * Replaces the list of notifications. The rows are prepared in the background.
+     * If another list is submitted meanwhile, these notifications are dropped.
+     * @param notifications notifications to display, in display order.
+     * @param onCommitted called once the notifications are displayed.
+     */
+    public void submitNotifications(List<Notification> notifications, Runnable onCommitted) {
+        final var submitted = ++generation;
+        prepareRows(notifications, rows -> {
+            // A newer list was submitted while these rows were being prepared.
+            if (submitted != generation) return;
+            submitList(rows, onCommitted);
+        });
+    }
+
+    /**
+     * Appends a freshly loaded page of notifications to the end of the list.
+     * The rows are prepared in the background. If the list is replaced meanwhile, these
+     * notifications are dropped.
+     * @param notifications notifications to add, in display order.
+     * @param onCommitted called once the notifications are displayed.
+     */
+    public void appendNotifications(List<Notification> notifications, Runnable onCommitted) {
+        final var submitted = generation;
+        prepareRows(notifications, rows -> {
+            // The list these notifications follow was replaced while their rows were being prepared.
+            if (submitted != generation) return;
+            final var all = new ArrayList<>(getCurrentList());
+            all.addAll(rows);
+            submitList(all, onCommitted);
+        });
+    }
+
+    // Prepares the rows in the background, or right here if the prefetch lane is full.
+    private void prepareRows(
+            List<Notification> notifications, Consumer<List<NotificationRow>> onPrepared) {
+        Promise.launch(context, LaneScheduler.Lane.PREFETCH, () -> toRows(notifications))
+                .onSuccess(onPrepared)
+                .onFailure(e -> {
+                    if (e instanceof RejectedExecutionException) {
+                        // Late rows on the main thread beat a stale list.
+                        onPrepared.accept(toRows(notifications));
+                    } else {
+                        Log.e("NotificationRecyclerViewAdapter", "Failed to prepare rows", e);
+                    }
+                });
+    }
+
+    private List<NotificationRow> toRows(List<Notification> notifications) {
+        return notifications.stream()
+                .map(notification -> NotificationRow.of(notification, entrantEmail))
+                .collect(Collectors.toList());
     }
 
     /**
@@ -87,14 +194,15 @@ public int getItemCount() {
      * @return The position of the item if found, or nothing.
      */
     public OptionalInt findItemPosition(Predicate<Notification> predicate) {
-        return IntStream.range(0, mValues.size())
-                .filter(i -> predicate.test(mValues.get(i)))
+        final var items = getCurrentList();
+        return IntStream.range(0, items.size())
+                .filter(i -> predicate.test(items.get(i).notification()))
                 .findFirst();
     }
 
     public static class NotificationViewHolder extends RecyclerView.ViewHolder {
         public final FragmentNotifBinding binding;
-        public Notification mItem;
+        public NotificationRow mItem;
 
         public NotificationViewHolder(FragmentNotifBinding binding) {
             super(binding.getRoot());
@@ -1,6 +1,6 @@
 package com.example.evently.ui.common;
 
-import java.util.List;
+import java.util.Optional;
 import java.util.function.Consumer;
 
 import android.content.Context;
@@ -8,12 +8,14 @@
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import androidx.annotation.NonNull;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.evently.R;
 import com.example.evently.data.NotificationDB;
+import com.example.evently.data.generic.Page;
 import com.example.evently.data.model.Notification;
 
 /**
@@ -23,10 +25,20 @@
  * <p>
  * Extending classes can provide initial list of notifications by implementing `initNotifications`.
  * Extending classes will also have access to the {@link NotificationRecyclerViewAdapter} to modify dynamically.
+ * <p>
+ * Notifications are loaded a page at a time. The next page is requested as the user scrolls near the end of the list.
  * @see NotificationRecyclerViewAdapter
  */
 public abstract class NotificationsFragment extends Fragment {
 
+    /**
+     * Number of rows left below the last visible one at which the next page starts loading.
+     */
+    private static final int PREFETCH_DISTANCE = 5;
+
+    // Loads the next page. This is a no-op when there's nothing (more) to load.
+    private Runnable loadNextPage = () -> {};
+
     protected NotificationDB notificationDB;
 
     /**
@@ -44,11 +56,22 @@ public abstract class NotificationsFragment extends Fragment {
     protected abstract void onNotificationClick(Notification notif);
 
     /**
-     * This method will be called by onCreateView to set up the notifications view.
+     * This method will be called by onCreateView to set up the notifications view, and as the user scrolls
+     * to load further pages.
      * It is guaranteed that the activity context will be available at the time of calling.
-     * @param callback Callback that will be passed the notifications into.
+     * @param after Token of the previously loaded page, or empty for the first page.
+     * @param callback Callback that will be passed the page of notifications into.
+     *                 Sources that aren't paginated may simply yield everything as the last page.
+     * @see Page#last
+     */
+    protected abstract void initNotifications(
+            Optional<Page.Token> after, Consumer<Page<Notification>> callback);
+
+    /**
+     * Called once the first page of notifications is displayed by the adapter.
+     * Does nothing by default.
      */
-    protected abstract void initNotifications(Consumer<List<Notification>> callback);
+    protected void onFirstPageShown() {}
 
     @Override
     public View onCreateView(
@@ -61,10 +84,21 @@ public View onCreateView(
             Context context = recyclerView.getContext();
             recyclerView.setLayoutManager(new LinearLayoutManager(context));
 
-            // Set up the recycler view adapter with the initial list of events (asynchronous).
-            initNotifications(notifs -> {
-                adapter = new NotificationRecyclerViewAdapter(notifs, this::onNotificationClick);
-                recyclerView.setAdapter(adapter);
+            // The adapter is set up once, and fed the initial list of notifications (asynchronous).
+            adapter = new NotificationRecyclerViewAdapter(context, this::onNotificationClick);
+            recyclerView.setAdapter(adapter);
+            initNotifications(
+                    Optional.empty(),
+                    page -> adapter.submitNotifications(page.items(), () -> {
+                        onFirstPageShown();
+                        onPageLoaded(page);
+                    }));
+
+            recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+                @Override
+                public void onScrolled(@NonNull RecyclerView view, int dx, int dy) {
+                    loadNextPageIfNearEnd();
+                }
             });
 
             return view;
@@ -73,4 +107,30 @@ public View onCreateView(
                     "NotificationsFragment.onCreateView called with non RecyclerView");
         }
     }
+
+    // Set up the loader for the page following the one that was just loaded.
+    private void onPageLoaded(Page<Notification> page) {
+        loadNextPage = page.next()
+                .<Runnable>map(token -> () -> {
+                    // Only ever request a page once, even if we are scrolled again while loading.
+                    loadNextPage = () -> {};
+                    initNotifications(
+                            Optional.of(token),
+                            nextPage -> adapter.appendNotifications(
+                                    nextPage.items(), () -> onPageLoaded(nextPage)));
+                })
+                .orElse(() -> {});
+        // The page may not have filled up the screen, in which case there will be no scroll to trigger the next one.
+        recyclerView.post(this::loadNextPageIfNearEnd);
+    }
+
+    private void loadNextPageIfNearEnd() {
+        if (!(recyclerView.getLayoutManager() instanceof LinearLayoutManager layoutManager)) {
+            return;
+        }
+        final var lastVisible = layoutManager.findLastVisibleItemPosition();
+        if (lastVisible + PREFETCH_DISTANCE >= adapter.getItemCount()) {
+            loadNextPage.run();
+        }
+    }
 }
@@ -1,5 +1,9 @@
 package com.example.evently.ui.common;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -9,19 +13,46 @@
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.ViewModelProvider;
 
+import com.example.evently.data.generic.Page;
+import com.example.evently.data.model.Event;
 import com.example.evently.ui.model.EventSearchViewModel;
 
 /**
  * A fragment representing list of events filtered by the search bar
+ * <p>
+ * Every change of the search string is first answered from the events found so far, then from the
+ * network once typing pauses. Network results for a search string the user has since moved on from
+ * are dropped.
  */
 public abstract class SearchedEventsFragment extends LiveEventsFragment<String> {
     private EventSearchViewModel eventSearchViewModel;
 
+    /**
+     * Search the network for events matching the search string.
+     * @param searchString Words to search with.
+     * @param act Callback to receive the matching events.
+     */
+    protected abstract void fetchSearchResults(String searchString, Consumer<List<Event>> act);
+
     @Override
     protected LiveData<String> getLiveData() {
         return eventSearchViewModel.getSearchString();
     }
 
+    @Override
+    protected final void updateEventsBy(
+            String target,
+            Optional<Page.Token> after,
+            Consumer<Page<Event>> act,
+            Runnable onFailure) {
+        act.accept(Page.last(eventSearchViewModel.searchLocally(target)));
+        if (target.isBlank()) return;
+        eventSearchViewModel.debounceSearch(() -> fetchSearchResults(target, events -> {
+            eventSearchViewModel.addKnownEvents(events);
+            act.accept(Page.last(events));
+        }));
+    }
+
     @Override
     public View onCreateView(
             @NonNull LayoutInflater inflater,
@@ -0,0 +1,62 @@
+package com.example.evently.ui.common;
+
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.DiffUtil;
+
+/**
+ * {@link DiffUtil.ItemCallback} for list items identified by a {@link UUID}.
+ * <p>
+ * Two items are the same row when their UUIDs match, and the row is left untouched when the items
+ * are also equal. This suits the records of the data models, which have value equality.
+ * @param <T> Type of the list items.
+ */
+public final class UuidItemDiff<T> extends DiffUtil.ItemCallback<T> {
+    // Shared by all the lists, diffs are short and don't need a thread each.
+    private static final Executor DIFF_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    private final Function<T, UUID> idOf;
+
+    /**
+     * @param idOf Getter for the UUID of an item.
+     */
+    public UuidItemDiff(Function<T, UUID> idOf) {
+        this.idOf = idOf;
+    }
+
+    /**
+     * Build the config of a list adapter whose diffs are computed off the main thread.
+     * @param idOf Getter for the UUID of an item.
+     * @return The config.
+     * @param <T> Type of the list items.
+     */
+    public static <T> AsyncDifferConfig<T> config(Function<T, UUID> idOf) {
+        return new AsyncDifferConfig.Builder<>(new UuidItemDiff<>(idOf))
+                .setBackgroundThreadExecutor(DIFF_EXECUTOR)
+                .build();
+    }
+
+    /**
+     * Fold a UUID into a stable item ID, as used by {@code RecyclerView.Adapter#getItemId}.
+     * @param id The UUID.
+     * @return The stable ID.
+     */
+    public static long stableId(UUID id) {
+        return id.getMostSignificantBits() ^ id.getLeastSignificantBits();
+    }
+
+    @Override
+    public boolean areItemsTheSame(@NonNull T oldItem, @NonNull T newItem) {
+        return idOf.apply(oldItem).equals(idOf.apply(newItem));
+    }
+
+    @Override
+    public boolean areContentsTheSame(@NonNull T oldItem, @NonNull T newItem) {
+        return oldItem.equals(newItem);
+    }
+}
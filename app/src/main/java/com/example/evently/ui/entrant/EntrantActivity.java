@@ -5,7 +5,9 @@
 import android.os.Bundle;
 
 import com.example.evently.R;
+import com.example.evently.data.NotificationDB;
 import com.example.evently.ui.common.ArchitectureActivity;
+import com.example.evently.utils.FirebaseAuthUtils;
 import com.example.evently.utils.IntentConstants;
 
 /**
@@ -55,4 +57,20 @@ public void onCreate(Bundle savedInstanceState) {
             }
         }
     }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        refreshNotificationBadge();
+    }
+
+    /**
+     * Refresh the unread notification count shown on the navbar.
+     * This is a single document read, so it's fine to call whenever notifications may have been seen.
+     */
+    public void refreshNotificationBadge() {
+        new NotificationDB()
+                .fetchUnreadCount(FirebaseAuthUtils.getCurrentEmail())
+                .thenRun(this::showNotificationBadge);
+    }
 }
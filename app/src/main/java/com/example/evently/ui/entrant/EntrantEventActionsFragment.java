@@ -31,6 +31,7 @@
 
 import com.example.evently.R;
 import com.example.evently.data.EventsDB;
+import com.example.evently.data.model.EventEntrants;
 import com.example.evently.databinding.FragmentEntrantEventActionsBinding;
 import com.example.evently.ui.common.EventQRDialogFragment;
 import com.example.evently.ui.model.EventViewModel;
@@ -69,6 +70,7 @@ public class EntrantEventActionsFragment extends Fragment {
                                             "This event requires location to enroll",
                                             Toast.LENGTH_LONG)
                                     .show();
+                            hideLoadingIndicator();
                         } else {
                             // We must have been launched from within enroll, continue that flow.
                             enrollWithLocation();
@@ -118,46 +120,9 @@ public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceStat
             }
         });
 
-        eventViewModel.getEventEntrantsLive().observe(getViewLifecycleOwner(), eventEntrants -> {
-            binding.waitlistAction.setIcon(null);
-            if (eventEntrants.all().contains(self)) {
-                // The user has already joined!
-                binding.waitlistAction.setText(R.string.event_join_btn_joined);
-                binding.waitlistAction.setOnClickListener(
-                        v -> eventsDB.unenroll(eventViewModel.eventID, self).thenRun(vu -> {
-                            showLoadingIndicator();
-
-                            // A join/leave action has happened - ask to update entrants and event.
-                            eventViewModel.requestUpdate();
-                        }));
-            } else {
-                // The user may join.
-                binding.waitlistAction.setText(R.string.event_join_btn);
-                binding.waitlistAction.setOnClickListener(v -> {
-                    binding.waitlistAction.setEnabled(false);
-                    showLoadingIndicator();
-                    // Check if enrollment requires location.
-                    // N.B: This relies on the eventViewModel observer firing first.
-                    if (requireLocation) {
-                        if (Arrays.stream(LocationPermissions)
-                                .anyMatch(perm ->
-                                        ContextCompat.checkSelfPermission(requireContext(), perm)
-                                                != PackageManager.PERMISSION_GRANTED)) {
-                            // Directly ask for the permission as they aren't granted yet.
-                            requestPermissionLauncher.launch(new String[] {
-                                Manifest.permission.ACCESS_FINE_LOCATION,
-                                Manifest.permission.ACCESS_COARSE_LOCATION
-                            });
-                        } else {
-                            // Already have permission, go ahead with enrolling.
-                            enrollWithLocation();
-                        }
-                    } else {
-                        enrollIntoEvent(null);
-                    }
-                });
-            }
-        });
+        eventViewModel
+                .getEventEntrantsLive()
+                .observe(getViewLifecycleOwner(), this::showWaitlistAction);
 
         binding.utilShareBtn.shareBtn.setOnClickListener(v -> {
             final var qrDialog = new EventQRDialogFragment();
@@ -168,6 +133,59 @@ public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceStat
         });
     }
 
+    // Set up the waitlist button to join or leave, depending on whether the user has joined.
+    private void showWaitlistAction(EventEntrants eventEntrants) {
+        binding.waitlistAction.setIcon(null);
+        if (eventEntrants.all().contains(self)) {
+            // The user has already joined!
+            binding.waitlistAction.setText(R.string.event_join_btn_joined);
+            binding.waitlistAction.setOnClickListener(v -> {
+                binding.waitlistAction.setEnabled(false);
+                showLoadingIndicator();
+                eventsDB.unenroll(eventViewModel.eventID, self)
+                        .bindTo(getViewLifecycleOwner())
+                        // The entrants listener picks up the change, and clears the indicator.
+                        .thenRun(vu -> binding.waitlistAction.setEnabled(true))
+                        .catchE(e -> {
+                            Log.e("EntrantEventActions", e.toString());
+                            Toast.makeText(
+                                            requireContext(),
+                                            "Something went wrong...",
+                                            Toast.LENGTH_SHORT)
+                                    .show();
+                            binding.waitlistAction.setEnabled(true);
+                            hideLoadingIndicator();
+                        });
+            });
+        } else {
+            // The user may join.
+            binding.waitlistAction.setText(R.string.event_join_btn);
+            binding.waitlistAction.setOnClickListener(v -> {
+                binding.waitlistAction.setEnabled(false);
+                showLoadingIndicator();
+                // Check if enrollment requires location.
+                // N.B: This relies on the eventViewModel observer firing first.
+                if (requireLocation) {
+                    if (Arrays.stream(LocationPermissions)
+                            .anyMatch(perm ->
+                                    ContextCompat.checkSelfPermission(requireContext(), perm)
+                                            != PackageManager.PERMISSION_GRANTED)) {
+                        // Directly ask for the permission as they aren't granted yet.
+                        requestPermissionLauncher.launch(new String[] {
+                            Manifest.permission.ACCESS_FINE_LOCATION,
+                            Manifest.permission.ACCESS_COARSE_LOCATION
+                        });
+                    } else {
+                        // Already have permission, go ahead with enrolling.
+                        enrollWithLocation();
+                    }
+                } else {
+                    enrollIntoEvent(null);
+                }
+            });
+        }
+    }
+
     // This must only be called once we know the location permission has been granted.
     @RequiresPermission(
             allOf = {
@@ -179,6 +197,11 @@ private void enrollWithLocation() {
                 .getCurrentLocation(Priority.PRIORITY_HIGH_ACCURACY, null)
                 .addOnSuccessListener(location -> {
                     enrollIntoEvent(new GeoPoint(location.getLatitude(), location.getLongitude()));
+                })
+                .addOnFailureListener(e -> {
+                    Log.e("EntrantEventActions", e.toString());
+                    binding.waitlistAction.setEnabled(true);
+                    hideLoadingIndicator();
                 });
     }
 
@@ -189,14 +212,24 @@ private void showLoadingIndicator() {
         binding.waitlistAction.setIconGravity(MaterialButton.ICON_GRAVITY_TEXT_START);
     }
 
+    // Take down the loading indicator, setting the waitlist button back up for the latest entrants.
+    private void hideLoadingIndicator() {
+        final var eventEntrants = eventViewModel.getEventEntrantsLive().getValue();
+        if (eventEntrants != null) {
+            showWaitlistAction(eventEntrants);
+        } else {
+            binding.waitlistAction.setIcon(null);
+            binding.waitlistAction.setText(R.string.event_join_btn);
+        }
+    }
+
     private void enrollIntoEvent(GeoPoint loc) {
         assert eventViewModel.eventID != null;
-        eventsDB.enroll(eventViewModel.eventID, self, loc)
-                .thenRun(vu -> {
-                    binding.waitlistAction.setEnabled(true);
-                    // A join/leave action has happened - ask to update entrants and event.
-                    eventViewModel.requestUpdate();
-                })
+        // The request is applied on the server, batched with everyone else enrolling at the same time.
+        eventsDB.requestEnroll(eventViewModel.eventID, self, loc)
+                .bindTo(getViewLifecycleOwner())
+                // The entrants listener picks up the change.
+                .thenRun(vu -> binding.waitlistAction.setEnabled(true))
                 .catchE(e -> {
                     switch (e) {
                         case IllegalArgumentException ignored ->
@@ -218,7 +251,7 @@ private void enrollIntoEvent(GeoPoint loc) {
                         }
                     }
                     binding.waitlistAction.setEnabled(true);
-                    eventViewModel.requestUpdate();
+                    hideLoadingIndicator();
                 });
     }
 }
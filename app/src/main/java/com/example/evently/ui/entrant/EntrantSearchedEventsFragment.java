@@ -16,8 +16,8 @@
 public class EntrantSearchedEventsFragment extends SearchedEventsFragment {
 
     @Override
-    protected void updateEventsBy(String target, Consumer<List<Event>> act) {
-        new EventsDB().fetchEventsBySearchString(target).thenRun(act);
+    protected void fetchSearchResults(String searchString, Consumer<List<Event>> act) {
+        new EventsDB().fetchEventsBySearchString(searchString).thenRun(act);
     }
 
     @Override
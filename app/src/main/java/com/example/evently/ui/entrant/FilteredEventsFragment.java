@@ -1,9 +1,10 @@
 package com.example.evently.ui.entrant;
 
-import java.util.List;
+import java.util.Optional;
 import java.util.function.Consumer;
 
 import android.os.Bundle;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -15,6 +16,7 @@
 import androidx.navigation.fragment.NavHostFragment;
 
 import com.example.evently.data.EventsDB;
+import com.example.evently.data.generic.Page;
 import com.example.evently.data.model.Event;
 import com.example.evently.data.model.EventFilter;
 import com.example.evently.ui.common.LiveEventsFragment;
@@ -37,8 +39,19 @@ protected LiveData<EventFilter> getLiveData() {
     }
 
     @Override
-    protected void updateEventsBy(EventFilter filter, Consumer<List<Event>> act) {
-        new EventsDB().fetchEventByFilters(filter).thenRun(act);
+    protected void updateEventsBy(
+            EventFilter filter,
+            Optional<Page.Token> after,
+            Consumer<Page<Event>> act,
+            Runnable onFailure) {
+        new EventsDB()
+                .fetchEventByFilters(filter, EventsDB.DEFAULT_PAGE_SIZE, after)
+                .bindTo(getViewLifecycleOwner())
+                .thenRun(act)
+                .catchE(e -> {
+                    Log.e("FilteredEvents", "Error fetching events", e);
+                    onFailure.run();
+                });
     }
 
     @Override
@@ -1,6 +1,6 @@
 package com.example.evently.ui.entrant;
 
-import java.util.List;
+import java.util.Optional;
 import java.util.function.Consumer;
 
 import android.util.Log;
@@ -9,6 +9,7 @@
 import androidx.navigation.fragment.NavHostFragment;
 
 import com.example.evently.data.EventsDB;
+import com.example.evently.data.generic.Page;
 import com.example.evently.data.model.Event;
 import com.example.evently.ui.common.EventsFragment;
 import com.example.evently.utils.FirebaseAuthUtils;
@@ -36,15 +37,21 @@ protected void onEventClick(Event event) {
     /**
      * Supplies the “Joined” list with placeholder events.
      *
+     * @param after Ignored, all the joined events are yielded as a single page.
      * @param callback Callback that will be passed the events into.
+     * @param onFailure Called if the events could not be fetched.
      */
     @Override
-    protected void initEvents(Consumer<List<Event>> callback) {
+    protected void initEvents(
+            Optional<Page.Token> after, Consumer<Page<Event>> callback, Runnable onFailure) {
         new EventsDB()
                 .fetchEventsByEnrolled(FirebaseAuthUtils.getCurrentEmail())
+                .map(Page::last)
+                .bindTo(getViewLifecycleOwner())
                 .thenRun(callback)
                 .catchE(e -> {
                     Log.e("JoinedEvents", e.toString());
+                    onFailure.run();
                     Toast.makeText(requireContext(), "Something went wrong...", Toast.LENGTH_SHORT)
                             .show();
                 });
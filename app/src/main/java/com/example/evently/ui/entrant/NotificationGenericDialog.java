@@ -47,11 +47,18 @@ public Dialog onCreateDialog(Bundle savedInstanceState) {
         var title = args.getString("title");
         message = args.getString("description");
 
+        final var activity = requireActivity();
+
         return new MaterialAlertDialogBuilder(requireContext())
                 .setTitle(title)
                 .setView(binding.getRoot())
                 .setPositiveButton("OK", (dialog, id) -> new NotificationDB()
-                        .markSeen(notificationID, FirebaseAuthUtils.getCurrentEmail()))
+                        .markSeen(notificationID, FirebaseAuthUtils.getCurrentEmail())
+                        .thenRun(x -> {
+                            if (activity instanceof EntrantActivity entrantActivity) {
+                                entrantActivity.refreshNotificationBadge();
+                            }
+                        }))
                 .setNeutralButton("View Event", (dialog, id) -> {
                     NavHostFragment.findNavController(requireParentFragment())
                             .navigate(
@@ -51,16 +51,26 @@ public Dialog onCreateDialog(Bundle savedInstanceState) {
         var title = args.getString("title");
         message = args.getString("description");
 
+        final var activity = requireActivity();
+
         return new MaterialAlertDialogBuilder(requireContext())
                 .setTitle(title)
                 .setView(binding.getRoot())
                 .setPositiveButton("Accept", (dialog, id) -> {
                     eventsDB.addAccepted(eventID, self);
-                    notificationDB.markSeen(notificationID, self);
+                    notificationDB.markSeen(notificationID, self).thenRun(x -> {
+                        if (activity instanceof EntrantActivity entrantActivity) {
+                            entrantActivity.refreshNotificationBadge();
+                        }
+                    });
                 })
                 .setNegativeButton("Decline", (dialog, id) -> {
                     eventsDB.addCancelled(eventID, self);
-                    notificationDB.markSeen(notificationID, FirebaseAuthUtils.getCurrentEmail());
+                    notificationDB.markSeen(notificationID, self).thenRun(x -> {
+                        if (activity instanceof EntrantActivity entrantActivity) {
+                            entrantActivity.refreshNotificationBadge();
+                        }
+                    });
                 })
                 .setNeutralButton("View Event", (dialog, id) -> {
                     NavHostFragment.findNavController(requireParentFragment())
@@ -1,6 +1,6 @@
 package com.example.evently.ui.entrant;
 
-import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.function.Consumer;
 
@@ -8,6 +8,8 @@
 import android.util.Log;
 import android.widget.Toast;
 
+import com.example.evently.data.NotificationDB;
+import com.example.evently.data.generic.Page;
 import com.example.evently.data.model.Notification;
 import com.example.evently.ui.common.NotificationsFragment;
 import com.example.evently.utils.FirebaseAuthUtils;
@@ -34,14 +36,13 @@ protected void onNotificationClick(Notification notif) {
         dialog.show(getChildFragmentManager(), "EventNotification");
     }
 
-    protected void initNotifications(Consumer<List<Notification>> callback) {
+    protected void initNotifications(
+            Optional<Page.Token> after, Consumer<Page<Notification>> callback) {
         String email = FirebaseAuthUtils.getCurrentEmail();
         notificationDB
-                .fetchUserNotifications(email)
-                .thenRun(notifs -> {
-                    callback.accept(notifs);
-                    handleNotificationClickIntent();
-                })
+                .fetchInbox(email, NotificationDB.DEFAULT_INBOX_PAGE_SIZE, after)
+                .bindTo(getViewLifecycleOwner())
+                .thenRun(callback)
                 .catchE(e -> {
                     Log.e("ViewNotificationsFragment", e.toString());
                     Toast.makeText(requireContext(), "Something went wrong...", Toast.LENGTH_SHORT)
@@ -49,6 +50,12 @@ protected void initNotifications(Consumer<List<Notification>> callback) {
                 });
     }
 
+    // The notification to highlight is searched for within the first page only.
+    @Override
+    protected void onFirstPageShown() {
+        handleNotificationClickIntent();
+    }
+
     /**
      * We may have been passed a notification ID to "blink" (double highlight).
      * This happens when a user clicks on a push notification.
@@ -63,10 +70,6 @@ private void handleNotificationClickIntent() {
                     intent.getStringExtra(IntentConstants.NOTIFICATION_INTENT_ID_KEY));
 
             // Find this notification in the adapter.
-            // NOTE (chase): There is no guarantee that adapter is set by now. It waits on a network
-            // call in onCreateView.
-            // If we notice consistent exceptions here, we must switch to LiveData.
-            // See: https://developer.android.com/topic/libraries/architecture/livedata#java
             var optionalPos = adapter.findItemPosition(notif -> notif.id().equals(targetID));
             // Scroll to this notification and highlight it.
             if (optionalPos.isPresent()) {
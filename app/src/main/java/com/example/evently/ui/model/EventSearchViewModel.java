@@ -1,20 +1,47 @@
 package com.example.evently.ui.model;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import android.os.Handler;
+import android.os.Looper;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 
+import com.example.evently.data.EventsDB;
+import com.example.evently.data.generic.SearchTokens;
+import com.example.evently.data.generic.TrieIndex;
+import com.example.evently.data.model.Event;
 import com.example.evently.ui.common.SearchEventsFragment;
 import com.example.evently.ui.common.SearchedEventsFragment;
 
 /**
  * A view model to continually update and track a search string.
+ * <p>
+ * It also keeps an index of the events found by searches so far, so that a search can be answered
+ * locally as the user types, while the network query is held back until they pause.
  * @see SearchEventsFragment
  * @see SearchedEventsFragment
  */
 public class EventSearchViewModel extends ViewModel {
+    /**
+     * How long typing must pause before a search goes to the network.
+     */
+    public static final long SEARCH_DEBOUNCE_MILLIS = 250;
+
     private final MutableLiveData<String> searchStringLive = new MutableLiveData<>("");
 
+    // Events known locally, indexed by the words of their name and description.
+    private final Map<UUID, Event> knownEvents = new HashMap<>();
+    private final TrieIndex<UUID> searchIndex = new TrieIndex<>();
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private Runnable pendingSearch = () -> {};
+
     /**
      * @return The event filter live data to observe changes upon.
      */
@@ -36,4 +63,46 @@ public void setSearchString(String newSearchString) {
     public void clear() {
         searchStringLive.setValue("");
     }
+
+    /**
+     * Search the locally known events. This is meant to be fast enough to run on every keystroke.
+     * @param searchString Words to search with.
+     * @return The matching events, ranked the same way as the network search.
+     */
+    public List<Event> searchLocally(String searchString) {
+        final var matches = new ArrayList<Event>();
+        for (final var eventID : searchIndex.lookupAny(SearchTokens.queryTokens(searchString))) {
+            matches.add(knownEvents.get(eventID));
+        }
+        return EventsDB.rankBySearch(matches, searchString);
+    }
+
+    /**
+     * Add events, or newer versions of them, to the locally known ones.
+     * @param events Events found by the network.
+     */
+    public void addKnownEvents(List<Event> events) {
+        for (final var event : events) {
+            knownEvents.put(event.eventID(), event);
+            searchIndex.put(
+                    event.eventID(),
+                    SearchTokens.words(event.name() + " " + event.description()));
+        }
+    }
+
+    /**
+     * Run a network search once typing pauses. A search scheduled earlier that has not started yet
+     * is dropped.
+     * @param search The search to run.
+     */
+    public void debounceSearch(Runnable search) {
+        handler.removeCallbacks(pendingSearch);
+        pendingSearch = search;
+        handler.postDelayed(search, SEARCH_DEBOUNCE_MILLIS);
+    }
+
+    @Override
+    protected void onCleared() {
+        handler.removeCallbacks(pendingSearch);
+    }
 }
@@ -7,6 +7,8 @@
 import androidx.lifecycle.SavedStateHandle;
 import androidx.lifecycle.ViewModel;
 
+import com.google.firebase.firestore.ListenerRegistration;
+
 import com.example.evently.data.EventsDB;
 import com.example.evently.data.model.Event;
 import com.example.evently.data.model.EventEntrants;
@@ -14,19 +16,29 @@
 /**
  * ViewModel to keep track of {@link Event } and {@link EventEntrants } during the lifecycle of
  * an {@link com.example.evently.ui.common.EventDetailsFragment }
+ * <p>
+ * Both are listened to in real time, so changes made by this user or anyone else show up without
+ * any explicit refresh. The listeners are detached once the ViewModel is cleared.
  */
 public class EventViewModel extends ViewModel {
     public final UUID eventID;
     private final EventsDB eventsDB = new EventsDB();
 
-    private MutableLiveData<Event> event = new MutableLiveData<>();
-    private MutableLiveData<EventEntrants> eventEntrants = new MutableLiveData<>();
+    private final MutableLiveData<Event> event = new MutableLiveData<>();
+    private final MutableLiveData<EventEntrants> eventEntrants = new MutableLiveData<>();
+
+    private final ListenerRegistration eventRegistration;
+    private final ListenerRegistration entrantsRegistration;
 
     public EventViewModel(SavedStateHandle savedStateHandle) {
         eventID = savedStateHandle.get("eventID");
         assert eventID != null;
 
-        requestUpdate();
+        // Snapshot listeners are called on the main thread.
+        eventRegistration = eventsDB.listenEvent(eventID, eventResult -> {
+            eventResult.ifPresent(event::setValue);
+        });
+        entrantsRegistration = eventsDB.listenEventEntrants(eventID, eventEntrants::setValue);
     }
 
     public LiveData<Event> getEventLive() {
@@ -37,20 +49,9 @@ public LiveData<EventEntrants> getEventEntrantsLive() {
         return eventEntrants;
     }
 
-    public void requestUpdate() {
-        requestEventUpdate();
-        requestEntrantsUpdate();
-    }
-
-    public void requestEventUpdate() {
-        eventsDB.fetchEvent(eventID).optionally(eventResult -> {
-            event.setValue(eventResult);
-        });
-    }
-
-    public void requestEntrantsUpdate() {
-        eventsDB.fetchEventEntrants(eventID).optionally(eventResult -> {
-            eventEntrants.setValue(eventResult);
-        });
+    @Override
+    protected void onCleared() {
+        eventRegistration.remove();
+        entrantsRegistration.remove();
     }
 }
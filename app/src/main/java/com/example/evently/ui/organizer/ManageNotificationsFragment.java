@@ -1,6 +1,6 @@
 package com.example.evently.ui.organizer;
 
-import java.util.List;
+import java.util.Optional;
 import java.util.function.Consumer;
 
 import android.util.Log;
@@ -8,6 +8,7 @@
 import androidx.navigation.NavController;
 import androidx.navigation.fragment.NavHostFragment;
 
+import com.example.evently.data.generic.Page;
 import com.example.evently.data.model.Notification;
 import com.example.evently.ui.common.NotificationsFragment;
 import com.example.evently.utils.FirebaseAuthUtils;
@@ -23,14 +24,20 @@ protected void onNotificationClick(Notification notif) {
         navController.navigate(action);
     }
 
-    protected void initNotifications(Consumer<List<Notification>> callback) {
+    protected void initNotifications(
+            Optional<Page.Token> after, Consumer<Page<Notification>> callback) {
         String email = FirebaseAuthUtils.getCurrentEmail();
 
         // Gets the organizer's notifications, and runs the callback function
-        notificationDB.fetchNotificationsByOrganizer(email).thenRun(callback).catchE(e -> {
-            Log.e("OrganizerNotificationFragment", e.toString());
-            Toast.makeText(requireContext(), "Something went wrong...", Toast.LENGTH_SHORT)
-                    .show();
-        });
+        notificationDB
+                .fetchNotificationsByOrganizer(email)
+                .map(Page::last)
+                .bindTo(getViewLifecycleOwner())
+                .thenRun(callback)
+                .catchE(e -> {
+                    Log.e("OrganizerNotificationFragment", e.toString());
+                    Toast.makeText(requireContext(), "Something went wrong...", Toast.LENGTH_SHORT)
+                            .show();
+                });
     }
 }
@@ -1,6 +1,6 @@
 package com.example.evently.ui.organizer;
 
-import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.function.Consumer;
 
@@ -17,6 +17,7 @@
 import com.example.evently.R;
 import com.example.evently.data.EventsDB;
 import com.example.evently.data.NotificationDB;
+import com.example.evently.data.generic.Page;
 import com.example.evently.data.model.Notification;
 import com.example.evently.data.model.Notification.Channel;
 import com.example.evently.databinding.FragmentNotificationThreadBinding;
@@ -132,11 +133,17 @@ public View onCreateView(
 
         /**
          * The following function initiates the list of notifications in a recycler view.
-         * @param callback Callback that consumes a list of notifications
+         * @param after Token of the previous page. Unused, as everything is yielded at once.
+         * @param callback Callback that consumes a page of notifications
          */
-        protected void initNotifications(Consumer<List<Notification>> callback) {
+        protected void initNotifications(
+                Optional<Page.Token> after, Consumer<Page<Notification>> callback) {
             // Runs the callback for initNotifications.
-            notificationDB.fetchEventNotifications(eventID, channel).thenRun(callback);
+            notificationDB
+                    .fetchEventNotifications(eventID, channel)
+                    .map(Page::last)
+                    .bindTo(getViewLifecycleOwner())
+                    .thenRun(callback);
         }
     }
 }
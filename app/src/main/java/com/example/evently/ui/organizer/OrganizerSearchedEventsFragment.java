@@ -17,9 +17,9 @@
 public class OrganizerSearchedEventsFragment extends SearchedEventsFragment {
 
     @Override
-    protected void updateEventsBy(String target, Consumer<List<Event>> act) {
+    protected void fetchSearchResults(String searchString, Consumer<List<Event>> act) {
         final var self = FirebaseAuthUtils.getCurrentEmail();
-        new EventsDB().fetchOrganizerEventsBySearchString(self, target).thenRun(act);
+        new EventsDB().fetchOrganizerEventsBySearchString(self, searchString).thenRun(act);
     }
 
     @Override
@@ -1,6 +1,7 @@
 package com.example.evently.ui.organizer;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Consumer;
 
 import android.util.Log;
@@ -9,6 +10,7 @@
 import androidx.navigation.fragment.NavHostFragment;
 
 import com.example.evently.data.EventsDB;
+import com.example.evently.data.generic.Page;
 import com.example.evently.data.model.Event;
 import com.example.evently.ui.common.EventsFragment;
 import com.example.evently.utils.FirebaseAuthUtils;
@@ -34,19 +36,25 @@ protected void onEventClick(Event event) {
      * Provides the initial dataset for the organizer's event list
      * this adds a single placeholder event the first time the list is shown.
      *
+     * @param after Ignored, all the organizer's events are yielded as a single page.
      * @param callback Callback that will be passed the events into.
+     * @param onFailure Called if the events could not be fetched.
      */
     @Override
-    protected void initEvents(Consumer<List<Event>> callback) {
+    protected void initEvents(
+            Optional<Page.Token> after, Consumer<Page<Event>> callback, Runnable onFailure) {
 
         new EventsDB()
                 .fetchEventsByOrganizers(FirebaseAuthUtils.getCurrentEmail())
+                .map(Page::last)
+                .bindTo(getViewLifecycleOwner())
                 .thenRun(callback)
                 .catchE(e -> {
                     Log.e("OwnEvents", "Error showing events", e);
+                    onFailure.run();
                     Toast.makeText(requireContext(), "Something went wrong...", Toast.LENGTH_SHORT)
                             .show();
-                    callback.accept(java.util.List.of());
+                    callback.accept(Page.last(List.of()));
                 });
     }
 }
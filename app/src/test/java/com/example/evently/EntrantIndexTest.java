@@ -0,0 +1,99 @@
+package com.example.evently;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import com.example.evently.ui.common.EntrantIndex;
+
+/**
+ * Local unit tests for {@link EntrantIndex}.
+ */
+public class EntrantIndexTest {
+    @Test
+    public void testSortedAndIndexable() {
+        final var index = new EntrantIndex(List.of("c@x.com", "a@x.com", "b@x.com", "a@x.com"));
+        assertEquals(List.of("a@x.com", "b@x.com", "c@x.com"), index.emails());
+        assertEquals("b@x.com", index.emailAt(1));
+        assertEquals(2, index.indexOf("c@x.com"));
+        assertTrue(index.indexOf("z@x.com") < 0);
+    }
+
+    @Test
+    public void testClaimPages() {
+        final var emails = IntStream.range(0, EntrantIndex.PAGE_SIZE + 5)
+                .mapToObj(i -> String.format("%03d@x.com", i))
+                .collect(Collectors.toList());
+        final var index = new EntrantIndex(emails);
+
+        // The first page is handed out once.
+        final var firstPage = index.claimPageOf("001@x.com");
+        assertEquals(emails.subList(0, EntrantIndex.PAGE_SIZE), firstPage);
+        assertEquals(List.of(), index.claimPageOf("002@x.com"));
+
+        // Resolved entrants are never handed out, released ones are.
+        index.putName("030@x.com", "Thirty");
+        assertEquals(
+                emails.subList(EntrantIndex.PAGE_SIZE + 1, emails.size()),
+                index.claimPageOf("033@x.com"));
+        index.release(firstPage);
+        assertEquals(firstPage, index.claimAll());
+    }
+
+    @Test
+    public void testNames() {
+        final var index = new EntrantIndex(List.of("a@x.com", "b@x.com"));
+        index.putName("a@x.com", "Alice");
+        assertEquals(Optional.of("Alice"), index.nameOf("a@x.com"));
+        assertEquals("b@x.com", index.displayNameOf("b@x.com"));
+
+        // Names carry over to an index of the next entrants.
+        final var next = index.withEntrants(List.of("a@x.com", "c@x.com"));
+        assertEquals("Alice", next.displayNameOf("a@x.com"));
+        assertEquals(List.of("c@x.com"), next.claimAll());
+    }
+
+    @Test
+    public void testClaimsCarryOver() {
+        final var index = new EntrantIndex(List.of("a@x.com", "b@x.com"));
+        final var claimed = index.claimAll();
+
+        // The entrants are being resolved for the previous index, so they aren't handed out again.
+        final var next = index.withEntrants(List.of("b@x.com", "c@x.com"));
+        assertEquals(List.of("c@x.com"), next.claimAll());
+
+        // Their names land in the next index, except for the entrants it no longer holds.
+        next.putName("a@x.com", "Alice");
+        next.putName("b@x.com", "Bob");
+        assertEquals(Optional.empty(), next.nameOf("a@x.com"));
+        assertEquals(Optional.of("Bob"), next.nameOf("b@x.com"));
+        assertEquals(List.of(), next.searchByNamePrefix("al"));
+
+        next.release(claimed);
+        assertEquals(List.of(), next.claimAll());
+    }
+
+    @Test
+    public void testSearchByNamePrefix() {
+        final var index = new EntrantIndex(List.of("1@x.com", "2@x.com", "3@x.com", "4@x.com"));
+        index.putName("1@x.com", "Bob");
+        index.putName("2@x.com", "alice");
+        index.putName("3@x.com", "Alan");
+        index.putName("4@x.com", "Al");
+
+        assertEquals(List.of("4@x.com", "3@x.com", "2@x.com"), index.searchByNamePrefix("al"));
+        assertEquals(List.of("3@x.com"), index.searchByNamePrefix("ALA"));
+        assertEquals(List.of(), index.searchByNamePrefix("Alx"));
+
+        // Renamed entrants are found by their new name only.
+        index.putName("1@x.com", "Albert");
+        assertEquals(List.of(), index.searchByNamePrefix("bob"));
+        assertEquals(List.of("1@x.com"), index.searchByNamePrefix("alb"));
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.evently;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.example.evently.data.generic.LaneScheduler;
+import com.example.evently.data.generic.LaneScheduler.Lane;
+import com.example.evently.data.generic.LaneScheduler.LaneConfig;
+
+/**
+ * Local unit tests for {@link LaneScheduler}.
+ */
+public class LaneSchedulerTest {
+    // A single thread and a single queue slot per lane, so that lanes fill up quickly.
+    private final LaneScheduler scheduler = new LaneScheduler(Map.of(
+            Lane.PREFETCH, new LaneConfig(1, 1, Thread.NORM_PRIORITY),
+            Lane.IO, new LaneConfig(1, 1, Thread.NORM_PRIORITY),
+            Lane.CPU, new LaneConfig(1, 1, Thread.NORM_PRIORITY)));
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        scheduler.shutdown();
+    }
+
+    // Occupy the thread of a lane until released, and wait for it to start.
+    private void block(Lane lane) throws InterruptedException {
+        final var running = new CountDownLatch(1);
+        scheduler.submit(lane, () -> {
+            running.countDown();
+            return release.await(10, TimeUnit.SECONDS);
+        });
+        assertTrue(running.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testBusyLaneDoesNotBlockOthers() throws Exception {
+        block(Lane.IO);
+        assertEquals(42, (int) scheduler.submit(Lane.PREFETCH, () -> 42).get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testFullLaneRejects() throws Exception {
+        block(Lane.IO);
+        final var queued = scheduler.submit(Lane.IO, () -> "queued");
+        final var rejected = scheduler.submit(Lane.IO, () -> "rejected");
+
+        final var e = assertThrows(ExecutionException.class, rejected::get);
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+
+        final var stats = scheduler.stats(Lane.IO);
+        assertEquals(1, stats.queueDepth());
+        assertEquals(1, stats.maxQueueDepth());
+        assertEquals(2, stats.submitted());
+        assertEquals(1, stats.rejected());
+
+        release.countDown();
+        assertEquals("queued", queued.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testStatsTrackWaits() throws Exception {
+        block(Lane.CPU);
+        final var queued = scheduler.submit(Lane.CPU, () -> {
+            throw new IllegalStateException("Failed");
+        });
+        Thread.sleep(20);
+        release.countDown();
+
+        final var e = assertThrows(ExecutionException.class, queued::get);
+        assertTrue(e.getCause() instanceof IllegalStateException);
+
+        final var stats = scheduler.stats(Lane.CPU);
+        assertEquals(0, stats.queueDepth());
+        assertEquals(2, stats.started());
+        assertEquals(2, stats.completed());
+        assertTrue(stats.maxWait().toMillis() >= 20);
+        assertTrue(stats.averageWait().compareTo(stats.maxWait()) <= 0);
+    }
+
+    @Test
+    public void testMissingLaneConfig() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new LaneScheduler(
+                        Map.of(Lane.IO, new LaneConfig(1, 1, Thread.NORM_PRIORITY))));
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.evently;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.example.evently.data.generic.LogHistogram;
+
+/**
+ * Local unit tests for {@link LogHistogram}.
+ */
+public class LogHistogramTest {
+    // Whether a percentile is the expected value, give or take the width of its bucket.
+    private static void assertWithinBucket(long expected, long actual) {
+        final var tolerance = Math.max(1, expected / LogHistogram.SUB_BUCKETS);
+        assertTrue(
+                "Expected about " + expected + ", got " + actual,
+                Math.abs(actual - expected) <= tolerance);
+    }
+
+    @Test
+    public void testEmpty() {
+        final var histogram = new LogHistogram();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.max());
+        assertEquals(0, histogram.percentile(50));
+        assertEquals(0, histogram.percentile(99));
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        final var histogram = new LogHistogram();
+        for (int i = 0; i < LogHistogram.SUB_BUCKETS; i++) {
+            histogram.record(i);
+        }
+        assertEquals(LogHistogram.SUB_BUCKETS, histogram.count());
+        assertEquals(0, histogram.percentile(0));
+        assertEquals(3, histogram.percentile(50));
+        assertEquals(LogHistogram.SUB_BUCKETS - 1, histogram.percentile(100));
+    }
+
+    @Test
+    public void testPercentiles() {
+        final var histogram = new LogHistogram();
+        for (int i = 1; i <= 100_000; i++) {
+            histogram.record(i);
+        }
+        assertEquals(100_000, histogram.count());
+        assertEquals(100_000, histogram.max());
+        assertWithinBucket(50_000, histogram.percentile(50));
+        assertWithinBucket(99_000, histogram.percentile(99));
+        assertEquals(100_000, histogram.percentile(100));
+    }
+
+    @Test
+    public void testLargeValues() {
+        final var histogram = new LogHistogram();
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(-5);
+        assertEquals(2, histogram.count());
+        assertEquals(Long.MAX_VALUE, histogram.max());
+        assertEquals(0, histogram.percentile(50));
+        assertEquals(Long.MAX_VALUE, histogram.percentile(100));
+    }
+
+    @Test
+    public void testReset() {
+        final var histogram = new LogHistogram();
+        histogram.record(1_000);
+        histogram.reset();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.max());
+        assertEquals(0, histogram.percentile(50));
+    }
+
+    @Test
+    public void testPercentileOutOfRange() {
+        final var histogram = new LogHistogram();
+        assertThrows(IllegalArgumentException.class, () -> histogram.percentile(101));
+        assertThrows(IllegalArgumentException.class, () -> histogram.percentile(-1));
+    }
+}
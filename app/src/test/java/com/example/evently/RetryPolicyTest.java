@@ -0,0 +1,42 @@
+package com.example.evently;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+
+import com.example.evently.data.generic.RetryPolicy;
+
+/**
+ * Local unit tests for {@link RetryPolicy}.
+ */
+public class RetryPolicyTest {
+    private final RetryPolicy policy = new RetryPolicy(
+            3, Duration.ofMillis(100), Duration.ofMillis(300), RetryPolicy::isTransient);
+
+    @Test
+    public void testBackoffGrowsUpToMaximum() {
+        // Without jitter, delays are half of the exponential ceiling.
+        assertEquals(Duration.ofMillis(50), policy.backoff(1, 0));
+        assertEquals(Duration.ofMillis(100), policy.backoff(2, 0));
+        assertEquals(Duration.ofMillis(150), policy.backoff(3, 0));
+        assertEquals(Duration.ofMillis(150), policy.backoff(40, 0));
+
+        // With the most jitter, they approach the ceiling.
+        assertEquals(Duration.ofMillis(99), policy.backoff(1, 0.99));
+        assertEquals(Duration.ofMillis(298), policy.backoff(3, 0.99));
+    }
+
+    @Test
+    public void testShouldRetry() {
+        final var timeout = new TimeoutException();
+        assertTrue(policy.shouldRetry(timeout, 1));
+        assertTrue(policy.shouldRetry(timeout, 2));
+        assertFalse(policy.shouldRetry(timeout, 3));
+        assertFalse(policy.shouldRetry(new IllegalArgumentException("Event is full"), 1));
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.evently;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.example.evently.data.generic.SearchTokens;
+
+/**
+ * Local unit tests for {@link SearchTokens}.
+ */
+public class SearchTokensTest {
+    @Test
+    public void testWords() {
+        assertEquals(
+                List.of("cafe", "yoga", "101", "drop", "in"),
+                SearchTokens.words("  Café YOGA-101: drop in!"));
+        assertEquals(List.of(), SearchTokens.words(" ... "));
+    }
+
+    @Test
+    public void testIndexTokens() {
+        assertEquals(
+                List.of("y", "yo", "yog", "yoga", "c", "cl", "cla", "clas", "class"),
+                SearchTokens.indexTokens("Yoga", "class yoga"));
+
+        final var longWord = "a".repeat(SearchTokens.MAX_TOKEN_LENGTH + 5);
+        assertEquals(SearchTokens.MAX_TOKEN_LENGTH, SearchTokens.indexTokens(longWord).size());
+
+        final var manyWords = new StringBuilder();
+        for (int i = 0; i < SearchTokens.MAX_INDEX_TOKENS; i++) {
+            manyWords.append("word").append(i).append(' ');
+        }
+        assertEquals(
+                SearchTokens.MAX_INDEX_TOKENS,
+                SearchTokens.indexTokens(manyWords.toString()).size());
+    }
+
+    @Test
+    public void testQueryTokens() {
+        assertEquals(List.of("yo", "class"), SearchTokens.queryTokens("Yo class yo"));
+
+        final var manyWords = new StringBuilder();
+        for (int i = 0; i < SearchTokens.MAX_QUERY_TOKENS + 5; i++) {
+            manyWords.append("w").append(i).append(' ');
+        }
+        assertEquals(
+                SearchTokens.MAX_QUERY_TOKENS,
+                SearchTokens.queryTokens(manyWords.toString()).size());
+    }
+
+    @Test
+    public void testMatchCount() {
+        final var index =
+                new HashSet<>(SearchTokens.indexTokens("Beginner Yoga", "A relaxing evening class"));
+        assertEquals(2, SearchTokens.matchCount(SearchTokens.queryTokens("yog eve"), index));
+        assertEquals(1, SearchTokens.matchCount(SearchTokens.queryTokens("yoga pilates"), index));
+        // Queries match the start of words only.
+        assertEquals(0, SearchTokens.matchCount(SearchTokens.queryTokens("oga"), index));
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.evently;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.example.evently.data.generic.TrieIndex;
+
+/**
+ * Local unit tests for {@link TrieIndex}.
+ */
+public class TrieIndexTest {
+    private final TrieIndex<Integer> index = new TrieIndex<>();
+
+    @Test
+    public void testLookup() {
+        index.put(1, List.of("yoga", "class"));
+        index.put(2, List.of("yogurt", "tasting"));
+        index.put(3, List.of("chess"));
+
+        assertEquals(Set.of(1, 2), index.lookup("yo"));
+        assertEquals(Set.of(1), index.lookup("yoga"));
+        assertEquals(Set.of(1, 3), index.lookup("c"));
+        assertEquals(Set.of(), index.lookup("yogas"));
+        assertEquals(Set.of(), index.lookup(""));
+        assertEquals(Set.of(1, 2, 3), index.lookupAny(List.of("yog", "ch")));
+    }
+
+    @Test
+    public void testPutReplacesWords() {
+        index.put(1, List.of("yoga", "class"));
+        index.put(2, List.of("yoga"));
+        index.put(1, List.of("pilates"));
+
+        assertEquals(Set.of(2), index.lookup("yoga"));
+        assertEquals(Set.of(), index.lookup("cl"));
+        assertEquals(Set.of(1), index.lookup("pi"));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    public void testRemove() {
+        index.put(1, List.of("yoga", "yogi"));
+        index.put(2, List.of("yogurt"));
+        index.remove(1);
+        index.remove(3);
+
+        assertEquals(Set.of(2), index.lookup("yog"));
+        assertEquals(Set.of(), index.lookup("yogi"));
+        assertEquals(1, index.size());
+
+        index.remove(2);
+        assertEquals(Set.of(), index.lookup("y"));
+        assertEquals(0, index.size());
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.evently;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import com.example.evently.data.generic.TtlCache;
+
+/**
+ * Local unit tests for {@link TtlCache}.
+ */
+public class TtlCacheTest {
+    private final AtomicLong now = new AtomicLong();
+    private final TtlCache<String, Integer> cache =
+            new TtlCache<>(2, Duration.ofNanos(10), now::get);
+
+    @Test
+    public void testHitsAndMisses() {
+        assertEquals(Optional.empty(), cache.get("a"));
+        cache.put("a", 1);
+        assertEquals(Optional.of(1), cache.get("a"));
+        assertEquals(new TtlCache.Stats(1, 1, 1), cache.stats());
+    }
+
+    @Test
+    public void testExpiry() {
+        cache.put("a", 1);
+        now.set(9);
+        assertEquals(Optional.of(1), cache.get("a"));
+        now.set(10);
+        assertEquals(Optional.empty(), cache.get("a"));
+        assertEquals(0, cache.stats().size());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        cache.put("a", 1);
+        cache.put("b", 2);
+        // Touch "a", so that "b" is now the least recently used.
+        cache.get("a");
+        cache.put("c", 3);
+        assertEquals(Optional.of(1), cache.get("a"));
+        assertEquals(Optional.empty(), cache.get("b"));
+        assertEquals(Optional.of(3), cache.get("c"));
+    }
+
+    @Test
+    public void testInvalidate() {
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.invalidate("a");
+        assertEquals(Optional.empty(), cache.get("a"));
+        cache.invalidateAll();
+        assertEquals(Optional.empty(), cache.get("b"));
+    }
+
+    @Test
+    public void testPutIfUnchanged() {
+        final var before = cache.version();
+        assertTrue(cache.putIfUnchanged("a", 1, before));
+        assertEquals(Optional.of(1), cache.get("a"));
+    }
+
+    @Test
+    public void testSkipsPutAfterInvalidate() {
+        final var before = cache.version();
+        // "a" is written, and invalidated, while a read of it is in flight.
+        cache.invalidate("a");
+        assertFalse(cache.putIfUnchanged("a", 1, before));
+        assertEquals(Optional.empty(), cache.get("a"));
+        // Other keys are unaffected.
+        assertTrue(cache.putIfUnchanged("b", 2, before));
+        // A read started after the invalidation is cached.
+        assertTrue(cache.putIfUnchanged("a", 1, cache.version()));
+    }
+
+    @Test
+    public void testSkipsPutAfterInvalidateAll() {
+        final var before = cache.version();
+        cache.invalidateAll();
+        assertFalse(cache.putIfUnchanged("a", 1, before));
+        assertTrue(cache.putIfUnchanged("a", 1, cache.version()));
+    }
+
+    @Test
+    public void testSkipsPutAfterForgettingInvalidations() {
+        final var before = cache.version();
+        // More keys are invalidated than the cache holds, so they are forgotten all at once.
+        cache.invalidate("x");
+        cache.invalidate("y");
+        cache.invalidate("z");
+        assertFalse(cache.putIfUnchanged("a", 1, before));
+        assertFalse(cache.putIfUnchanged("x", 1, before));
+    }
+}
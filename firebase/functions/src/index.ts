@@ -3,16 +3,74 @@ import * as logger from "firebase-functions/logger";
 import {
   onDocumentCreated,
   onDocumentUpdated,
+  onDocumentWritten,
 } from "firebase-functions/v2/firestore";
 
+import { createHash } from "crypto";
+
 import { initializeApp } from "firebase-admin/app";
-import { FieldPath, getFirestore, Timestamp } from "firebase-admin/firestore";
+import {
+  DocumentReference,
+  FieldValue,
+  GeoPoint,
+  getFirestore,
+  Timestamp,
+} from "firebase-admin/firestore";
+import {
+  CallableRequest,
+  HttpsError,
+  onCall,
+} from "firebase-functions/v2/https";
 import { onSchedule } from "firebase-functions/scheduler";
 
 // Constants for safe usage.
 const EVENTS_COLL = "events";
 const EVENT_ENTRANTS_COLL = "eventEntrants";
+const ENTRANTS_COLL = "entrants";
+const ENROLL_REQUESTS_COLL = "enrollRequests";
+const ENROLL_SHARDS_COLL = "enrollShards";
 const NOTIFS_COLL = "notifications";
+const INBOXES_COLL = "inboxes";
+const INBOX_ITEMS_COLL = "items";
+const ADMIN_COLL = "admin";
+
+// Maximum number of writes firestore allows within a single batch.
+const MAX_BATCH_WRITES = 500;
+
+// Error code firestore fails with when creating a document that already exists.
+const ALREADY_EXISTS = 6;
+
+// Number of inboxes a notification is delivered to at once, each within its own transaction.
+const MAX_CONCURRENT_DELIVERIES = 100;
+
+// Number of shards the entrant limit of an event is shared out between.
+// Must match EventsDB.NUM_ENROLL_SHARDS.
+const NUM_ENROLL_SHARDS = 10;
+
+// Field of an entrant holding the enrollment shard they reserved a slot on.
+// Must match EventsDB.SHARD_FIELD.
+const SHARD_FIELD = "shard";
+
+// Field of an enrollment shard flagging that entrants came or went since the enrolled count of its
+// event was last recounted. Must match ShardedCounter.CHANGED_FIELD.
+const SHARD_CHANGED_FIELD = "changed";
+
+// Maximum number of entrants given a shard within a single transaction, see seedEnrollShards.
+const MAX_SEED_BATCH = 400;
+
+// Maximum number of enroll requests applied within a single transaction.
+// Each takes two writes (the request and the entrant), alongside the shards and the event.
+const MAX_ENROLL_BATCH = 200;
+
+// Field of an event holding its search tokens, and the bounds on those tokens.
+// Must match EventsDB.SEARCH_TOKENS_FIELD and SearchTokens.
+const SEARCH_TOKENS_FIELD = "searchTokens";
+const MIN_PREFIX_LENGTH = 1;
+const MAX_TOKEN_LENGTH = 20;
+const MAX_INDEX_TOKENS = 1000;
+// Built at runtime, since Unicode property escapes are newer than the compilation target.
+const ACCENTS = new RegExp("\\p{M}+", "gu");
+const WORD_SEPARATORS = new RegExp("[^\\p{L}\\p{N}]+", "u");
 
 // The key for selection limit as stored in the database.
 const EVENT_SELECTION_LIMIT_KEY = "selectionLimit";
@@ -55,11 +113,58 @@ interface Notification {
   seenBy: string[];
 }
 
-interface EventEntrants {
+// A notification, as materialized within the inbox of a recipient.
+interface InboxItem {
+  eventId: string;
+  channel: Channel;
+  title: string;
+  description: string;
+  creationTime: Timestamp;
+  seen: boolean;
+}
+
+type EntrantStatus = "Enrolled" | "Selected" | "Accepted" | "Cancelled";
+
+// A single entrant of an event, stored at eventEntrants/{eventID}/entrants/{email}.
+interface Entrant {
+  eventId: string;
+  email: string;
+  status: EntrantStatus;
+  location?: GeoPoint;
+}
+
+type EnrollRequestStatus = "Pending" | "Enrolled" | "Rejected";
+
+// Why an enroll request was rejected.
+type EnrollRejection = "Full" | "Closed";
+
+// A request to enroll, stored at events/{eventID}/enrollRequests/{email}.
+// The client writes it as pending, and watches it until it is either enrolled or rejected.
+interface EnrollRequest {
+  eventId: string;
+  email: string;
+  status: EnrollRequestStatus;
+  reason?: EnrollRejection;
+  location?: GeoPoint;
+  creationTime: Timestamp;
+}
+
+// Entrants of an event, as kept by older versions of the app on eventEntrants/{eventID}.
+// Superseded by a document per entrant, see migrateEventEntrants.
+interface LegacyEventEntrants {
   enrolledEntrants: string[];
-  selectedEntrants: string[];
-  acceptedEntrants: string[];
-  cancelledEntrants: string[];
+  selectedEntrants?: string[];
+  acceptedEntrants?: string[];
+  cancelledEntrants?: string[];
+  entrantLocations?: { [email: string]: GeoPoint };
+}
+
+// Entrant counts, as kept up to date on the event document.
+interface EntrantCounts {
+  enrolledCount?: number;
+  selectedCount?: number;
+  acceptedCount?: number;
+  cancelledCount?: number;
 }
 
 const app = initializeApp();
@@ -77,28 +182,35 @@ export const createNotification = onDocumentCreated(
       return;
     }
     const notif = snapshot.data() as Notification;
+    if (notificationID == winnerNotificationID(notif.eventId)) {
+      // Delivered to each winner as they are drawn, see notifyWinner.
+      return;
+    }
 
-    const eventEntrantsDoc = await db
-      .collection(EVENT_ENTRANTS_COLL)
-      .doc(notif.eventId)
-      .get();
-    if (!eventEntrantsDoc.exists) {
+    const eventDoc = await db.collection(EVENTS_COLL).doc(notif.eventId).get();
+    if (!eventDoc.exists) {
       logger.error(
         `Notification references non existent event with ID: ${notif.eventId}`
       );
       return;
     }
-    const eventEntrants = eventEntrantsDoc.data() as EventEntrants;
 
-    const tokens = await getTokensForChannel(notif.channel, eventEntrants);
-    logger.info(`Sending to ${tokens.length} devices`);
-    await sendNotification(
-      tokens,
-      notificationID,
-      notif.title,
-      notif.description
-    );
-    logger.info("Notifications sent!");
+    const emails = await getEmailsForChannel(notif.channel, notif.eventId);
+    const sendPush = async () => {
+      const tokens = await getTokensByEmails(emails);
+      logger.info(`Sending to ${tokens.length} devices`);
+      await sendNotification(
+        tokens,
+        notificationID,
+        notif.title,
+        notif.description
+      );
+      logger.info("Notifications sent!");
+    };
+    await Promise.all([
+      fanOutToInboxes(notificationID, notif, emails),
+      sendPush(),
+    ]);
   }
 );
 
@@ -118,93 +230,306 @@ export const selectWinners = onSchedule("every day 00:00", async (event) => {
     }
     // Run the lottery selection
     logger.info("Checking selection for eventID: " + eventsRef.id);
-    const eventEntrantsDoc = await db
-      .collection(EVENT_ENTRANTS_COLL)
-      .doc(eventsRef.id)
-      .get();
-    const eventEntrants = eventEntrantsDoc.data() as EventEntrants;
-    if (eventEntrants.selectedEntrants.length != 0) {
+    const counts = ref.data() as EntrantCounts;
+    if ((counts.selectedCount ?? 0) != 0) {
       logger.info("Selection already done eventID: " + eventsRef.id);
       continue;
     }
-    if (eventEntrants.enrolledEntrants.length == 0) {
+    const enrolled = await entrantsRef(eventsRef.id)
+      .where(entrantsKey("status"), "==", entrantStatus("Enrolled"))
+      .select()
+      .get();
+    if (enrolled.empty) {
       logger.info("No entrants for eventID: " + eventsRef.id);
       continue;
     }
     logger.info("Running selection for eventID: " + eventsRef.id);
-    const res = draw(eventEntrants.enrolledEntrants, eventSelectionLimit);
-    await db
-      .collection(EVENT_ENTRANTS_COLL)
-      .doc(eventsRef.id)
-      .update({ selectedEntrants: res });
+    const res = draw(
+      enrolled.docs.map((doc) => doc.id),
+      eventSelectionLimit
+    );
+    await selectEntrants(eventsRef.id, res);
+    // The winners are told by monitorEntrants, as their status changes.
+    await writeLoserNotification(eventsRef.id);
   }
 });
 
+// Mark the given entrants of an event as selected, in as many batches as needed.
+// The selected count on the event is only set once every winner is marked, which is what tells
+// the next daily selection that this event is done.
+async function selectEntrants(eventID: string, emails: string[]) {
+  for (let i = 0; i < emails.length; i += MAX_BATCH_WRITES) {
+    const batch = db.batch();
+    for (const email of emails.slice(i, i + MAX_BATCH_WRITES)) {
+      batch.update(entrantsRef(eventID).doc(email), {
+        status: entrantStatus("Selected"),
+      });
+    }
+    await batch.commit();
+  }
+  await db
+    .collection(EVENTS_COLL)
+    .doc(eventID)
+    .update({ selectedCount: FieldValue.increment(emails.length) });
+}
+
+// Apply pending enroll requests of an event, a batch at a time.
+// Many requests arriving at once are applied by a handful of transactions, rather than each client
+// contending on the event with its own transaction.
+export const drainEnrollRequests = onDocumentWritten(
+  `${EVENTS_COLL}/{eventID}/${ENROLL_REQUESTS_COLL}/{email}`,
+  async (fsEvent) => {
+    const request = fsEvent.data?.after.data() as EnrollRequest | undefined;
+    if (!request || request.status != enrollRequestStatus("Pending")) {
+      // Deleted, or an outcome we wrote ourselves.
+      return;
+    }
+    const eventID = fsEvent.params.eventID;
+    logger.info(`Executing drainEnrollRequests for ID: ${eventID}`);
+    // Another instance may be draining the very same requests. Whoever gets to them first applies
+    // them, the other finds them no longer pending.
+    let applied = 0;
+    do {
+      applied = await applyEnrollRequests(eventID);
+    } while (applied == MAX_ENROLL_BATCH);
+  }
+);
+
+// Apply a single batch of pending enroll requests, in the order they were made.
+// Returns the number of requests applied.
+async function applyEnrollRequests(eventID: string): Promise<number> {
+  const eventRef = db.collection(EVENTS_COLL).doc(eventID);
+  const shardsRef = eventRef.collection(ENROLL_SHARDS_COLL);
+  const pendingRef = eventRef
+    .collection(ENROLL_REQUESTS_COLL)
+    .where(enrollRequestsKey("status"), "==", enrollRequestStatus("Pending"))
+    .orderBy(enrollRequestsKey("creationTime"))
+    .limit(MAX_ENROLL_BATCH);
+
+  return db.runTransaction(async (tx) => {
+    const pending = await tx.get(pendingRef);
+    if (pending.empty) {
+      return 0;
+    }
+    const eventDoc = await tx.get(eventRef);
+    const shardDocs = await tx.get(shardsRef);
+    const entrantDocs = await tx.getAll(
+      ...pending.docs.map((doc) => entrantsRef(eventID).doc(doc.id))
+    );
+
+    const reject = (ref: DocumentReference, reason: EnrollRejection) =>
+      tx.update(ref, { status: enrollRequestStatus("Rejected"), reason });
+    const selectionTime = eventDoc.get("selectionTime") as
+      | Timestamp
+      | undefined;
+    if (!selectionTime || selectionTime.toDate() < new Date()) {
+      pending.docs.forEach((doc) => reject(doc.ref, "Closed"));
+      return pending.size;
+    }
+
+    // Free slots on each shard, the same way the client shares out the limit.
+    const entrantLimit = eventDoc.get("entrantLimit") as
+      | number
+      | null
+      | undefined;
+    const shardCounts = new Map(
+      shardDocs.docs.map((doc) => [
+        Number(doc.id),
+        (doc.get("count") as number | undefined) ?? 0,
+      ])
+    );
+    const freeSlots =
+      entrantLimit == null
+        ? []
+        : [...Array(shardsFor(entrantLimit)).keys()].map(
+            (shard) =>
+              capacityOf(entrantLimit, shard) - (shardCounts.get(shard) ?? 0)
+          );
+    const reserved = new Array(freeSlots.length).fill(0);
+
+    let enrolled = 0;
+    pending.docs.forEach((doc, i) => {
+      if (entrantDocs[i].exists) {
+        // Already enrolled. Nothing to do.
+        tx.update(doc.ref, { status: enrollRequestStatus("Enrolled") });
+        return;
+      }
+      const entrant: Entrant & { shard?: number } = {
+        eventId: eventID,
+        email: doc.id,
+        status: entrantStatus("Enrolled"),
+      };
+      const location = doc.get(enrollRequestsKey("location")) as
+        | GeoPoint
+        | undefined;
+      if (location) {
+        entrant.location = location;
+      }
+      if (entrantLimit != null) {
+        const shard = freeSlots.findIndex((free, s) => free > reserved[s]);
+        if (shard == -1) {
+          reject(doc.ref, "Full");
+          return;
+        }
+        reserved[shard]++;
+        entrant.shard = shard;
+      }
+      tx.create(entrantsRef(eventID).doc(doc.id), entrant);
+      tx.update(doc.ref, { status: enrollRequestStatus("Enrolled") });
+      enrolled++;
+    });
+
+    reserved.forEach((n, shard) => {
+      if (n > 0) {
+        tx.set(
+          shardsRef.doc(String(shard)),
+          { count: FieldValue.increment(n), [SHARD_CHANGED_FIELD]: true },
+          { merge: true }
+        );
+      }
+    });
+    if (entrantLimit == null && enrolled > 0) {
+      // No slots reserved, but the enrolled count still needs a recount.
+      tx.set(
+        shardsRef.doc("0"),
+        { [SHARD_CHANGED_FIELD]: true },
+        { merge: true }
+      );
+    }
+    const noneFree = freeSlots.every((free, s) => free <= reserved[s]);
+    if (entrantLimit != null && noneFree) {
+      tx.update(eventRef, { isFull: true });
+    }
+    return pending.size;
+  });
+}
+
+// Keep the enrolled count of events up to date, as entrants come and go. This is the only writer of
+// the count. Whoever adds or removes an entrant flags one of the enrollment shards of the event
+// instead, so that concurrent enrollments never write the event itself. Every minute, the events
+// with flagged shards are recounted, once each, however many entrants came or went meanwhile.
+export const aggregateEnrolledCounts = onSchedule("every 1 minutes", async () => {
+  const flagged = await db
+    .collectionGroup(ENROLL_SHARDS_COLL)
+    .where(SHARD_CHANGED_FIELD, "==", true)
+    .get();
+  const shardsByEvent = new Map<string, typeof flagged.docs>();
+  for (const shardDoc of flagged.docs) {
+    const eventID = shardDoc.ref.parent.parent?.id;
+    if (eventID) {
+      const shardDocs = shardsByEvent.get(eventID) ?? [];
+      shardsByEvent.set(eventID, [...shardDocs, shardDoc]);
+    }
+  }
+  for (const [eventID, shardDocs] of shardsByEvent) {
+    // Flags are cleared before counting, and only if the shard is unchanged since it was read. An
+    // entrant coming or going meanwhile thus leaves a flag for the next run.
+    await Promise.all(
+      shardDocs.map((shardDoc) =>
+        shardDoc.ref
+          .update(
+            { [SHARD_CHANGED_FIELD]: false },
+            { lastUpdateTime: shardDoc.updateTime }
+          )
+          .catch((e) => logger.info(`Shard changed while recounting: ${e}`))
+      )
+    );
+    const eventRef = db.collection(EVENTS_COLL).doc(eventID);
+    const [eventDoc, counted] = await Promise.all([
+      eventRef.get(),
+      entrantsRef(eventID).count().get(),
+    ]);
+    if (!eventDoc.exists) {
+      // The event is being deleted.
+      continue;
+    }
+    const count = counted.data().count;
+    if (eventDoc.get("enrolledCount") != count) {
+      await eventRef.update({ enrolledCount: count });
+    }
+  }
+  logger.info(`Recounted the entrants of ${shardsByEvent.size} events`);
+});
+
+// Number of enrollment shards in use for a given entrant limit. Must match ShardedCounter.shardsFor.
+function shardsFor(capacity: number): number {
+  return Math.max(1, Math.min(NUM_ENROLL_SHARDS, capacity));
+}
+
+// Share of the entrant limit reserved for a given shard. Must match ShardedCounter.capacityOf.
+function capacityOf(capacity: number, shard: number): number {
+  const shards = shardsFor(capacity);
+  return Math.floor(capacity / shards) + (shard < capacity % shards ? 1 : 0);
+}
+
 class BenignError extends Error {
   constructor(message: string) {
     super(message);
   }
 }
 
-// Tasks to perform when entrants changes.
-// e.g If someone cancels, we perform a redraw.
-// e.g If winners are added, we write winning notification.
-export const monitorEntrants = onDocumentUpdated(
-  `${EVENT_ENTRANTS_COLL}/{eventID}`,
+// Redraw winners when entrants cancel.
+// This is keyed on the cancelled count of the event, rather than on the status of each entrant, so
+// that cancelling many entrants at once (e.g EventsDB.moveEntrants) redraws once per write of the
+// event, not once per entrant.
+export const monitorCancellations = onDocumentUpdated(
+  `${EVENTS_COLL}/{eventID}`,
   async (fsEvent) => {
-    // Wish there was a way to fire only if the cancelledEntrants field was updated...
-    const eventID = fsEvent.params.eventID;
-    logger.info(`Executing monitorEntrants for ID: ${eventID}`);
     const snapshot = fsEvent.data;
     if (!snapshot) {
       logger.warn("No data associated with document updation event");
       return;
     }
-
-    const oldEventEntrants = snapshot.before.data() as EventEntrants;
-    const newEventEntrants = snapshot.after.data() as EventEntrants;
-
-    const tasks = [];
-
-    // Check if there were new cancelled entries.
-    // Note: It must not be possible to remove cancelled entrants from the cancelled list.
-    if (newEventEntrants.cancelledEntrants.length > oldEventEntrants.cancelledEntrants.length) {
-      tasks.push(redrawSelected(eventID));
+    const before = snapshot.before.data() as EntrantCounts;
+    const after = snapshot.after.data() as EntrantCounts;
+    if ((after.cancelledCount ?? 0) <= (before.cancelledCount ?? 0)) {
+      // No one cancelled (e.g the enrolled count was recounted).
+      return;
     }
+    return redrawSelected(fsEvent.params.eventID);
+  }
+);
 
-    // Simplest case: check if there selected entrants was filled (when it was previously empty).
-    if (oldEventEntrants.selectedEntrants.length == 0 && newEventEntrants.selectedEntrants.length > 0) {
-      // First time selection! Send both winner and loser notifications!
-      tasks.push(writeWinnerNotification(eventID, []));
-      tasks.push(writeLoserNotification(eventID));
-    } else {
-      // More complex case:
-      // Note: A simple length check won't do. Consider the situation where:
-      // 1. An account is cancelled from the selected list by the organizer.
-      // 2. A redraw is run and a new account is added to the selected list.
-      // If the above two happen around the same time, the length difference will be zero.
-      const oldSelected = new Set(oldEventEntrants.selectedEntrants);
-      const newSelected = new Set(newEventEntrants.selectedEntrants);
-
-      const additionalSelected = newSelected.difference(oldSelected);
-      if (additionalSelected.size != 0) {
-        // We ensure to mark the "old winners" within the seenBy set.
-        tasks.push(writeWinnerNotification(eventID, oldEventEntrants.selectedEntrants));
-      }
+// Tasks to perform when an entrant changes status.
+// e.g If someone is selected, by the first draw or a redraw, we let them know.
+// Cancellations are handled once per event write instead, see monitorCancellations.
+// This is keyed on the status of each entrant, rather than on the counts of the event, so that
+// entrants who were already selected are never told again when more winners are drawn.
+// Entrants created with a status (e.g when migrated) are not a change of status, and are left be.
+export const monitorEntrants = onDocumentUpdated(
+  `${EVENT_ENTRANTS_COLL}/{eventID}/${ENTRANTS_COLL}/{email}`,
+  async (fsEvent) => {
+    const eventID = fsEvent.params.eventID;
+    const email = fsEvent.params.email;
+    const snapshot = fsEvent.data;
+    if (!snapshot) {
+      logger.warn("No data associated with document updation event");
+      return;
     }
 
-    return Promise.all(tasks);
+    const oldStatus = snapshot.before.get(entrantsKey("status")) as EntrantStatus;
+    const newStatus = snapshot.after.get(entrantsKey("status")) as EntrantStatus;
+    // Check if someone was drawn.
+    if (
+      oldStatus != entrantStatus("Enrolled") ||
+      newStatus != entrantStatus("Selected")
+    ) {
+      return;
+    }
+    logger.info(`Executing monitorEntrants for ID: ${eventID}`);
+    return notifyWinner(eventID, email);
   }
 );
 
-// Redraw winners when someone cancels.
+// Redraw winners when someone cancels, see monitorCancellations.
 async function redrawSelected(eventID: string) {
   logger.info(`Executing redrawSelected for ID: ${eventID}`);
 
-  const eventDoc = await db.collection(EVENTS_COLL).doc(eventID).get();
+  const eventRef = db.collection(EVENTS_COLL).doc(eventID);
+  const eventDoc = await eventRef.get();
   if (!eventDoc.exists) {
     logger.error(
-      `EventEntrants references non existent event with ID: ${eventID}`
+      `Redraw references non existent event with ID: ${eventID}`
     );
     return;
   }
@@ -212,54 +537,49 @@ async function redrawSelected(eventID: string) {
 
   // Redraw (but be wary of concurrency bugs indeed)!
   // Note: Multiple instances of this function may be called
-  // around the same time if two users cancel around the same time.
+  // around the same time if two users cancel around the same time, or if a function is retried.
   // Thus: One must be wise in implementing redraw.
-  const selfRef = db
-    .collection(EVENT_ENTRANTS_COLL)
-    .where(FieldPath.documentId(), "==", eventID)
-    // It's important to be as specific as possible in what we're reading in a transaction.
-    // We don't want the transaction to be retried just because an irrelevant part of the document was updated.
-    .select(
-      entrantsKey("enrolledEntrants"),
-      entrantsKey("selectedEntrants"),
-      entrantsKey("cancelledEntrants")
-    )
-    .limit(1);
+  // It's important to be as specific as possible in what we're reading in a transaction.
+  // We don't want the transaction to be retried just because an irrelevant entrant was updated.
+  const winnersRef = entrantsRef(eventID)
+    .where(entrantsKey("status"), "in", [
+      entrantStatus("Selected"),
+      entrantStatus("Accepted"),
+    ])
+    .select();
+  // People who already won (including those who cancelled) are not eligible.
+  const eligibleRef = entrantsRef(eventID)
+    .where(entrantsKey("status"), "==", entrantStatus("Enrolled"))
+    .select();
 
   return db
     .runTransaction(async (tx) => {
-      const selfEntrantsRes = await tx.get(selfRef);
-      if (selfEntrantsRes.empty) {
-        throw new Error("EventEntrants selfRef query found no results");
-      }
-
-      const selfEntrants = selfEntrantsRes.docs[0].data() as Omit<
-        EventEntrants,
-        "acceptedEntrants"
-      >;
-      const currentWinners = new Set(selfEntrants.selectedEntrants);
-      const cancelled = new Set(selfEntrants.cancelledEntrants);
-      const eligibleWinners = currentWinners.difference(cancelled);
-      if (eligibleWinners.size == selectionLimit) {
+      const winners = (await tx.get(winnersRef)).docs.map((doc) => doc.id);
+      if (winners.length >= selectionLimit) {
         // Another concurrent redraw has run and selected new winners. Nothing to be done.
         // We must cancel the transaction by throwing an error. It should be caught later and ignored.
         throw new BenignError("Redraw has already run!");
       }
 
       // Our chance to shine!
-      const all = new Set(selfEntrants.enrolledEntrants);
-      // People who already won (including those who cancelled) are not eligible.
-      const eligible = all.difference(currentWinners.union(cancelled));
+      const eligible = (await tx.get(eligibleRef)).docs.map((doc) => doc.id);
       // Draw for the remaining number of slots.
-      const remainingSlots = selectionLimit - eligibleWinners.size;
-      const additionalWinners = draw([...eligible], remainingSlots);
-
-      // Update the selected entrants list. It should remove the cancelled entrants and add in the new winners.
-      tx.update(db.collection(EVENT_ENTRANTS_COLL).doc(eventID), {
-        selectedEntrants: [
-          ...eligibleWinners.union(new Set(additionalWinners)),
-        ],
+      const remainingSlots = selectionLimit - winners.length;
+      const additionalWinners = draw(eligible, remainingSlots);
+      if (additionalWinners.length == 0) {
+        throw new BenignError("No entrants left to redraw from!");
+      }
+
+      for (const email of additionalWinners) {
+        tx.update(entrantsRef(eventID).doc(email), {
+          status: entrantStatus("Selected"),
+        });
+      }
+      // Keep the denormalized count on the event in sync.
+      tx.update(eventRef, {
+        selectedCount: FieldValue.increment(additionalWinners.length),
       });
+      // The new winners are told by monitorEntrants, as their status changes.
     })
     .catch((e) => {
       if (!(e instanceof BenignError)) {
@@ -268,31 +588,60 @@ async function redrawSelected(eventID: string) {
     });
 }
 
-async function writeWinnerNotification(eventID: string, seenBy: string[] = []) {
-  const selfRef = db
-    .collection(NOTIFS_COLL)
-    .where(notifsKey("eventId"), "==", eventID)
-    .where(notifsKey("channel"), "==", channel("Winners"))
-    .limit(1);
-  return db
-    .runTransaction(async (tx) => {
-      const winningNotificationsRef = await tx.get(selfRef);
-      if (!winningNotificationsRef.empty) {
-        // We already have a notification written in the winners channel. No more is needed!
-        throw new BenignError("Write winner notification has already run!");
-      }
+// Let a single entrant know they were selected, within their inbox and on their devices.
+// Every winner of an event gets their own delivery of the same notification, and is only pushed to
+// upon a new delivery. A retry thus notifies no one twice.
+async function notifyWinner(eventID: string, email: string) {
+  const notificationID = winnerNotificationID(eventID);
+  const notif = await writeWinnerNotification(eventID, notificationID);
+  const delivered = await deliverToInbox(email, notificationID, {
+    eventId: notif.eventId,
+    channel: notif.channel,
+    title: notif.title,
+    description: notif.description,
+    creationTime: notif.creationTime,
+    seen: false,
+  });
+  if (!delivered) {
+    logger.info(`Winner of ${eventID} was already notified`);
+    return;
+  }
+  const tokens = await getTokensByEmails([email]);
+  await sendNotification(tokens, notificationID, notif.title, notif.description);
+}
 
-      // Write the winner notification!
-      tx.create(
-        db.collection(NOTIFS_COLL).doc(crypto.randomUUID()),
-        winnerNotification(eventID, seenBy)
-      );
-    })
-    .catch((e) => {
-      if (!(e instanceof BenignError)) {
-        throw e;
-      }
-    });
+// Write the winner notification of an event, unless it was already written by an earlier winner.
+// It is what organizers and admins see of the notification, and what it is delivered from.
+// Returns the notification, as written.
+async function writeWinnerNotification(
+  eventID: string,
+  notificationID: string
+): Promise<Notification> {
+  const notifRef = db.collection(NOTIFS_COLL).doc(notificationID);
+  try {
+    await notifRef.create(winnerNotification(eventID));
+  } catch (e) {
+    if ((e as { code?: number }).code != ALREADY_EXISTS) {
+      throw e;
+    }
+  }
+  return (await notifRef.get()).data() as Notification;
+}
+
+// ID of the winner notification of an event, the same for every winner.
+// Laid out as a (name based) UUID, as the app expects notification IDs to be UUIDs.
+function winnerNotificationID(eventID: string): string {
+  const hex = createHash("sha1")
+    .update(`${eventID}/${channel("Winners")}`)
+    .digest("hex");
+  const variant = ((parseInt(hex[16], 16) & 0x3) | 0x8).toString(16);
+  return [
+    hex.slice(0, 8),
+    hex.slice(8, 12),
+    "5" + hex.slice(13, 16),
+    variant + hex.slice(17, 20),
+    hex.slice(20, 32),
+  ].join("-");
 }
 
 async function writeLoserNotification(eventID: string) {
@@ -347,28 +696,103 @@ async function sendNotification(
   }
 }
 
-// Get tokens for emails that belong to a particular channel.
-// Note: This will drop any participant emails for which tokens are not found. See error log.
-async function getTokensForChannel(
+// Get emails that belong to a particular channel.
+async function getEmailsForChannel(
   channel: Channel,
-  entrants: EventEntrants
+  eventID: string
 ): Promise<string[]> {
-  switch (channel) {
-    case "All":
-      return getTokensByEmails(entrants.enrolledEntrants);
-    case "Winners":
-      return getTokensByEmails(entrants.selectedEntrants);
-    case "Losers": {
-      const allSet = new Set(entrants.enrolledEntrants);
-      // All the cancelled entrants were also winners at one point, not loser.
-      const effectiveWinnersSet = new Set(
-        entrants.selectedEntrants.concat(entrants.cancelledEntrants)
-      );
-      return getTokensByEmails([...allSet.difference(effectiveWinnersSet)]);
+  const entrants = entrantsRef(eventID);
+  const statusKey = entrantsKey("status");
+  const query = (() => {
+    switch (channel) {
+      case "All":
+        return entrants;
+      case "Winners":
+        return entrants.where(statusKey, "in", [
+          entrantStatus("Selected"),
+          entrantStatus("Accepted"),
+        ]);
+      case "Losers":
+        // All the cancelled entrants were also winners at one point, not loser.
+        return entrants.where(statusKey, "==", entrantStatus("Enrolled"));
+      case "Cancelled":
+        return entrants.where(statusKey, "==", entrantStatus("Cancelled"));
     }
-    case "Cancelled":
-      return getTokensByEmails(entrants.cancelledEntrants);
+  })();
+  // Entrants are keyed by email, there's no need to read anything else.
+  const snapshot = await query.select().get();
+  return snapshot.docs.map((doc) => doc.id);
+}
+
+function entrantsRef(eventID: string) {
+  return db
+    .collection(EVENT_ENTRANTS_COLL)
+    .doc(eventID)
+    .collection(ENTRANTS_COLL);
+}
+
+// Materialize a notification into the inbox of each of its recipients.
+// This way, reading an inbox is a single query no matter how many events the user joined.
+// The unread count of each inbox is bumped alongside, for unseen deliveries.
+// Functions may run more than once for the same notification, so each delivery is made at most
+// once, see deliverToInbox.
+async function fanOutToInboxes(
+  notificationID: string,
+  notif: Notification,
+  emails: string[]
+) {
+  const seenBy = new Set(notif.seenBy);
+  let delivered = 0;
+  for (let i = 0; i < emails.length; i += MAX_CONCURRENT_DELIVERIES) {
+    const outcomes = await Promise.all(
+      emails.slice(i, i + MAX_CONCURRENT_DELIVERIES).map((email) =>
+        deliverToInbox(email, notificationID, {
+          eventId: notif.eventId,
+          channel: notif.channel,
+          title: notif.title,
+          description: notif.description,
+          creationTime: notif.creationTime,
+          seen: seenBy.has(email),
+        })
+      )
+    );
+    delivered += outcomes.filter((isNew) => isNew).length;
   }
+  logger.info(`Delivered to ${delivered} of ${emails.length} inboxes`);
+}
+
+// Deliver a notification into a single inbox, unless it is already there.
+// The item and the unread count are written together, only if the item does not exist yet. A retry
+// thus neither counts the item as unread twice, nor marks it unseen after the user has seen it.
+// Returns whether the notification was delivered.
+async function deliverToInbox(
+  email: string,
+  notificationID: string,
+  item: InboxItem
+): Promise<boolean> {
+  const itemRef = inboxItemRef(email, notificationID);
+  return db.runTransaction(async (tx) => {
+    if ((await tx.get(itemRef)).exists) {
+      return false;
+    }
+    tx.create(itemRef, item);
+    if (!item.seen) {
+      tx.set(
+        db.collection(INBOXES_COLL).doc(email),
+        { unreadCount: FieldValue.increment(1) },
+        { merge: true }
+      );
+    }
+    return true;
+  });
+}
+
+function inboxItemRef(email: string, notificationID: string) {
+  return db
+    .collection(INBOXES_COLL)
+    .doc(email)
+    .collection(INBOX_ITEMS_COLL)
+    .doc(notificationID);
 }
 
 // Note: This drops emails for which tokens are not found but does log an error.
@@ -394,6 +818,297 @@ async function getTokensByEmails(emails: string[]): Promise<string[]> {
   return res.flat();
 }
 
+// Only admins may run migrations. Admins are listed by email within the admin collection.
+async function requireAdmin(request: CallableRequest) {
+  const email = request.auth?.token.email;
+  if (!email || !(await db.collection(ADMIN_COLL).doc(email).get()).exists) {
+    throw new HttpsError("permission-denied", "Only admins may run migrations");
+  }
+}
+
+// Recount the entrants of every event, onto the counts kept on the event.
+// Events stored before the counts were kept have none, and decrementing a missing count leaves it
+// negative. Each event is recounted within a transaction, so this is safe to run again.
+export const backfillEntrantCounts = onCall(async (request) => {
+  await requireAdmin(request);
+  const events = await db.collection(EVENTS_COLL).listDocuments();
+  let recounted = 0;
+  for (const eventRef of events) {
+    if (await recountEntrants(eventRef)) {
+      recounted++;
+    }
+  }
+  logger.info(`Recounted the entrants of ${recounted} events`);
+  return { recounted };
+});
+
+// Recount the entrants of an event, within a transaction.
+// Returns whether the event exists.
+async function recountEntrants(eventRef: DocumentReference): Promise<boolean> {
+  return db.runTransaction(async (tx) => {
+    const eventDoc = await tx.get(eventRef);
+    if (!eventDoc.exists) {
+      return false;
+    }
+    const entrants = await tx.get(
+      entrantsRef(eventRef.id).select(entrantsKey("status"))
+    );
+    const statuses = entrants.docs.map(
+      (doc) => doc.get(entrantsKey("status")) as EntrantStatus
+    );
+    tx.update(eventRef, { ...countEntrants(statuses) });
+    return true;
+  });
+}
+
+// Reserve a shard slot for the entrants of limited events that enrolled before enrollment was
+// sharded. Otherwise their shards start out empty, and the event takes on more than its limit.
+// Each entrant goes to the shard with the most room left, even once every shard is full, so that
+// unenrolling releases their slot as usual. Entrants that have a shard already are left as they
+// are, so this is safe to run again. Should be run after migrateEventEntrants.
+export const seedEnrollShards = onCall(async (request) => {
+  await requireAdmin(request);
+  const events = await db
+    .collection(EVENTS_COLL)
+    .where("entrantLimit", "!=", null)
+    .get();
+  let seeded = 0;
+  for (const eventDoc of events.docs) {
+    const entrantLimit = eventDoc.get("entrantLimit") as number;
+    const shardsRef = eventDoc.ref.collection(ENROLL_SHARDS_COLL);
+    const entrants = await entrantsRef(eventDoc.id).select(SHARD_FIELD).get();
+    const unsharded = entrants.docs
+      .filter((doc) => doc.get(SHARD_FIELD) == undefined)
+      .map((doc) => doc.ref);
+    for (let i = 0; i < unsharded.length; i += MAX_SEED_BATCH) {
+      seeded += await db.runTransaction(async (tx) => {
+        const shardDocs = await tx.get(shardsRef);
+        const batch = await tx.getAll(...unsharded.slice(i, i + MAX_SEED_BATCH));
+        const shardCounts = new Map(
+          shardDocs.docs.map((doc) => [
+            Number(doc.id),
+            (doc.get("count") as number | undefined) ?? 0,
+          ])
+        );
+        const room = [...Array(shardsFor(entrantLimit)).keys()].map(
+          (shard) =>
+            capacityOf(entrantLimit, shard) - (shardCounts.get(shard) ?? 0)
+        );
+        const added = new Array(room.length).fill(0);
+
+        let given = 0;
+        for (const entrant of batch) {
+          if (!entrant.exists || entrant.get(SHARD_FIELD) != undefined) {
+            // Gone, or enrolled again since.
+            continue;
+          }
+          const shard = room.reduce(
+            (best, free, s) => (free > room[best] ? s : best),
+            0
+          );
+          room[shard]--;
+          added[shard]++;
+          tx.update(entrant.ref, { [SHARD_FIELD]: shard });
+          given++;
+        }
+        added.forEach((n, shard) => {
+          if (n > 0) {
+            tx.set(
+              shardsRef.doc(String(shard)),
+              { count: FieldValue.increment(n), [SHARD_CHANGED_FIELD]: true },
+              { merge: true }
+            );
+          }
+        });
+        if (given > 0 && room.every((free) => free <= 0)) {
+          tx.update(eventDoc.ref, { isFull: true });
+        }
+        return given;
+      });
+    }
+  }
+  logger.info(`Reserved a shard slot for ${seeded} entrants`);
+  return { seeded };
+});
+
+// Move the entrants older versions of the app kept as arrays, on the eventEntrants document of each
+// event, into their own documents. Entrants that already have a document are left as they are.
+// The arrays are removed once moved, and the counts recounted, so this is safe to run again.
+export const migrateEventEntrants = onCall(async (request) => {
+  await requireAdmin(request);
+  const legacyDocs = await db
+    .collection(EVENT_ENTRANTS_COLL)
+    .where("enrolledEntrants", "!=", null)
+    .get();
+  for (const legacyDoc of legacyDocs.docs) {
+    const eventID = legacyDoc.id;
+    const existing = await entrantsRef(eventID).select().get();
+    const moved = new Set(existing.docs.map((doc) => doc.id));
+    const entrants = legacyEntrants(
+      eventID,
+      legacyDoc.data() as LegacyEventEntrants
+    ).filter((entrant) => !moved.has(entrant.email));
+    for (let i = 0; i < entrants.length; i += MAX_BATCH_WRITES) {
+      const batch = db.batch();
+      for (const entrant of entrants.slice(i, i + MAX_BATCH_WRITES)) {
+        batch.create(entrantsRef(eventID).doc(entrant.email), entrant);
+      }
+      await batch.commit();
+    }
+    await recountEntrants(db.collection(EVENTS_COLL).doc(eventID));
+    await legacyDoc.ref.update({
+      enrolledEntrants: FieldValue.delete(),
+      selectedEntrants: FieldValue.delete(),
+      acceptedEntrants: FieldValue.delete(),
+      cancelledEntrants: FieldValue.delete(),
+      entrantLocations: FieldValue.delete(),
+    });
+    logger.info(`Moved ${entrants.length} entrants of event ${eventID}`);
+  }
+  return { migrated: legacyDocs.size };
+});
+
+// The entrants of an event as kept by older versions of the app, one document per entrant.
+// Every entrant was listed as enrolled, and within the list of the furthest status they reached.
+function legacyEntrants(eventID: string, legacy: LegacyEventEntrants): Entrant[] {
+  const selected = new Set(legacy.selectedEntrants ?? []);
+  const accepted = new Set(legacy.acceptedEntrants ?? []);
+  const cancelled = new Set(legacy.cancelledEntrants ?? []);
+  const locations = legacy.entrantLocations ?? {};
+  return legacy.enrolledEntrants.map((email) => {
+    const entrant: Entrant = {
+      eventId: eventID,
+      email,
+      status: cancelled.has(email)
+        ? entrantStatus("Cancelled")
+        : accepted.has(email)
+          ? entrantStatus("Accepted")
+          : selected.has(email)
+            ? entrantStatus("Selected")
+            : entrantStatus("Enrolled"),
+    };
+    if (locations[email]) {
+      entrant.location = locations[email];
+    }
+    return entrant;
+  });
+}
+
+// Deliver the notifications sent before inboxes were kept into the inbox of each of their
+// recipients. Otherwise they vanish from the app, which only reads inboxes. Recipients are
+// resolved by their current status, as the app used to, and the seen state is carried over from
+// seenBy. Deliveries already made are left as they are, so this is safe to run again.
+export const backfillInboxes = onCall(async (request) => {
+  await requireAdmin(request);
+  const notifs = await db.collection(NOTIFS_COLL).get();
+  let backfilled = 0;
+  for (const notifDoc of notifs.docs) {
+    const notif = notifDoc.data() as Notification;
+    if (!(await db.collection(EVENTS_COLL).doc(notif.eventId).get()).exists) {
+      // The event is gone, and its notifications are no longer shown.
+      continue;
+    }
+    const emails = await getEmailsForChannel(notif.channel, notif.eventId);
+    await fanOutToInboxes(notifDoc.id, notif, emails);
+    backfilled++;
+  }
+  logger.info(`Delivered ${backfilled} notifications into inboxes`);
+  return { backfilled };
+});
+
+// Index the events created by older versions of the app, or before the tokens last changed, for
+// search. Events are only written when their tokens differ, and not at all if edited in the
+// meantime (the app writes the tokens alongside the edit), so this is safe to run again.
+export const backfillSearchTokens = onCall(async (request) => {
+  await requireAdmin(request);
+  const events = await db
+    .collection(EVENTS_COLL)
+    .select("name", "description", SEARCH_TOKENS_FIELD)
+    .get();
+  let indexed = 0;
+  for (const eventDoc of events.docs) {
+    const tokens = indexTokens(
+      (eventDoc.get("name") as string | undefined) ?? "",
+      (eventDoc.get("description") as string | undefined) ?? ""
+    );
+    const current = eventDoc.get(SEARCH_TOKENS_FIELD) as string[] | undefined;
+    if (
+      current?.length === tokens.length &&
+      current.every((token, i) => token === tokens[i])
+    ) {
+      continue;
+    }
+    try {
+      await eventDoc.ref.update(
+        { [SEARCH_TOKENS_FIELD]: tokens },
+        { lastUpdateTime: eventDoc.updateTime }
+      );
+      indexed++;
+    } catch (e) {
+      logger.warn(`Skipped event ${eventDoc.id}, changed while indexing: ${e}`);
+    }
+  }
+  logger.info(`Indexed ${indexed} events for search`);
+  return { indexed };
+});
+
+// Build the tokens to index a document under, the same way the app does, see
+// SearchTokens.indexTokens: every prefix of every normalized word, earlier texts first.
+function indexTokens(...texts: string[]): string[] {
+  const tokens = new Set<string>();
+  for (const text of texts) {
+    for (const word of searchWords(text)) {
+      for (let end = MIN_PREFIX_LENGTH; end <= word.length; end++) {
+        if (tokens.size >= MAX_INDEX_TOKENS) {
+          return [...tokens];
+        }
+        tokens.add(word.substring(0, end));
+      }
+    }
+  }
+  return [...tokens];
+}
+
+// Split text into its words: lowercased, stripped of accents and truncated, see SearchTokens.words.
+function searchWords(text: string): string[] {
+  return text
+    .normalize("NFD")
+    .replace(ACCENTS, "")
+    .toLowerCase()
+    .split(WORD_SEPARATORS)
+    .filter((word) => word.length > 0)
+    .map((word) => word.substring(0, MAX_TOKEN_LENGTH));
+}
+
+// Count entrants the same way the app does, see EventsDB.countFields.
+// Every entrant counts as enrolled, the same way aggregateEnrolledCounts recounts them, and
+// accepted entrants still count as selected.
+function countEntrants(statuses: EntrantStatus[]): Required<EntrantCounts> {
+  const counts = {
+    enrolledCount: statuses.length,
+    selectedCount: 0,
+    acceptedCount: 0,
+    cancelledCount: 0,
+  };
+  for (const status of statuses) {
+    switch (status) {
+      case "Enrolled":
+        break;
+      case "Selected":
+        counts.selectedCount++;
+        break;
+      case "Accepted":
+        counts.selectedCount++;
+        counts.acceptedCount++;
+        break;
+      case "Cancelled":
+        counts.cancelledCount++;
+        break;
+    }
+  }
+  return counts;
+}
+
 // Helper to draw N elements from given input array.
 function draw<T>(input: T[], selectionN: number): T[] {
   if (input.length <= selectionN) {
@@ -422,10 +1137,12 @@ function chooseNRandom<T>(arr: T[], n: number): T[] {
   return result;
 }
 
-const entrantsKey = collectionKey<EventEntrants>;
+const entrantsKey = collectionKey<Entrant>;
 
 const notifsKey = collectionKey<Notification>;
 
+const enrollRequestsKey = collectionKey<EnrollRequest>;
+
 // Type safe way to use the property names of records as string.
 function collectionKey<T>(name: keyof T): keyof T {
   return name;
@@ -435,3 +1152,13 @@ function collectionKey<T>(name: keyof T): keyof T {
 function channel(channel: Channel): Channel {
   return channel;
 }
+
+// Type safe way to use a string as an enroll request status.
+function enrollRequestStatus(status: EnrollRequestStatus): EnrollRequestStatus {
+  return status;
+}
+
+// Type safe way to use a string as an entrant status.
+function entrantStatus(status: EntrantStatus): EntrantStatus {
+  return status;
+}